@@ -0,0 +1,54 @@
+package io.appwish.voteservice.dto.converter;
+
+import com.google.protobuf.Timestamp;
+import io.appwish.grpc.ItemTypeProto;
+import io.appwish.grpc.VoteInputProto;
+import io.appwish.grpc.VoteReplyProto;
+import io.appwish.grpc.VoteScoreReplyProto;
+import io.appwish.grpc.VoteTypeProto;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.reply.VoteReply;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.dto.type.VoteType;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures converting the requests and replies of the vote and score calls, which every gRPC call of these kinds goes through.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProtoMapperBenchmark {
+
+  private final VoteInputProto voteInput = VoteInputProto.newBuilder()
+      .setItemId(8888)
+      .setItemType(ItemTypeProto.WISH)
+      .setVoteType(VoteTypeProto.UP)
+      .build();
+  private final VoteReply voteReply = new VoteReply(
+      new Vote(1, "9999", 8888, ItemType.WISH, VoteType.UP, Timestamp.newBuilder().setSeconds(1580547600).build()));
+  private final Score score = new Score(900, 100);
+
+  @Benchmark
+  public VoteInput voteInputToDomain() {
+    return ProtoMapper.toDomain(voteInput);
+  }
+
+  @Benchmark
+  public VoteReplyProto voteReplyToProtobuf() {
+    return ProtoMapper.toProtobuf(voteReply);
+  }
+
+  @Benchmark
+  public VoteScoreReplyProto scoreToProtobuf() {
+    return ProtoMapper.toProtobuf(score);
+  }
+}
@@ -0,0 +1,68 @@
+package io.appwish.voteservice.repository.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.repository.Deadline;
+import io.appwish.voteservice.repository.VoteRepository;
+import io.vertx.core.Future;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures reading scores which are all cached, the path of most reads of popular items. The cache is shared by all benchmark threads, like by
+ * all DatabaseVerticle instances, so running with more threads shows contention on it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CachingVoteRepositoryBenchmark {
+
+  private static final int ITEMS = 20;
+
+  private CachingVoteRepository repository;
+  private VoteSelector selector;
+  private List<VoteSelector> selectors;
+
+  @Setup
+  public void setUp() {
+    final Cache<VoteSelector, Score> cache = CachingVoteRepository.scoreCache(100_000, Duration.ofMinutes(10));
+    // Every read hits the cache, so the delegate is never called
+    final VoteRepository delegate = (VoteRepository) Proxy.newProxyInstance(VoteRepository.class.getClassLoader(),
+        new Class<?>[]{VoteRepository.class}, (proxy, method, args) -> {
+          throw new UnsupportedOperationException(method.getName());
+        });
+    repository = new CachingVoteRepository(delegate, cache);
+    selectors = new ArrayList<>(ITEMS);
+
+    for (int i = 0; i < ITEMS; i++) {
+      final VoteSelector cached = new VoteSelector(i, ItemType.WISH);
+      cache.put(cached, new Score(i, 1));
+      selectors.add(cached);
+    }
+
+    selector = selectors.get(0);
+  }
+
+  @Benchmark
+  public Future<Score> voteScore() {
+    return repository.voteScore(selector, false, Deadline.NONE);
+  }
+
+  @Benchmark
+  public Future<Map<VoteSelector, Score>> voteScores() {
+    return repository.voteScores(selectors, false, Deadline.NONE);
+  }
+}
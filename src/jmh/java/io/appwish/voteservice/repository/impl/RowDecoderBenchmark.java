@@ -0,0 +1,124 @@
+package io.appwish.voteservice.repository.impl;
+
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.dto.type.VoteType;
+import io.appwish.voteservice.repository.ScoreChange;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.pgclient.PgPool;
+import io.vertx.sqlclient.PoolOptions;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.Tuple;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures decoding rows of a vote and of a page of scores. The rows are returned by an embedded Postgres once per trial, so they're decoded
+ * from the same binary values as in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RowDecoderBenchmark {
+
+  private static final String DATABASE_HOST = "localhost";
+  private static final String DEFAULT_POSTGRES = "postgres";
+  private static final int USER_KEY = 1;
+  private static final int ITEMS = 100;
+
+  private EmbeddedPostgres postgres;
+  private Vertx vertx;
+  private Row voteRow;
+  private List<Row> scoreRows;
+
+  @Setup
+  public void setUp() throws Exception {
+    postgres = EmbeddedPostgres.start();
+    vertx = Vertx.vertx();
+
+    final PgConnectOptions connectOptions = new PgConnectOptions()
+        .setPort(postgres.getPort())
+        .setHost(DATABASE_HOST)
+        .setDatabase(DEFAULT_POSTGRES)
+        .setUser(DEFAULT_POSTGRES)
+        .setPassword(DEFAULT_POSTGRES);
+    final PgPool client = PgPool.pool(vertx, connectOptions, new PoolOptions().setMaxSize(1));
+
+    await(PostgresSchema.prepare(client));
+
+    final Long[] itemIds = new Long[ITEMS];
+    final Short[] itemTypes = new Short[ITEMS];
+
+    for (int i = 0; i < ITEMS; i++) {
+      itemIds[i] = (long) i;
+      itemTypes[i] = ItemType.WISH.code();
+      voteRow = await(query(client, Query.VOTE, Tuple.of(USER_KEY, itemIds[i], itemTypes[i], VoteType.UP.code(), RowDecoder.now())))
+          .iterator().next();
+    }
+
+    scoreRows = new ArrayList<>(ITEMS);
+    await(query(client, Query.GET_SCORES, Tuple.of(itemIds, itemTypes))).forEach(scoreRows::add);
+    client.close();
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    vertx.close();
+    postgres.close();
+  }
+
+  @Benchmark
+  public Vote vote() {
+    return RowDecoder.vote(voteRow, "9999");
+  }
+
+  @Benchmark
+  public ScoreChange voteScoreChange() {
+    return RowDecoder.voteScoreChange(voteRow);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void scores(final Blackhole blackhole) {
+    for (final Row row : scoreRows) {
+      blackhole.consume(RowDecoder.itemSelector(row));
+      blackhole.consume(RowDecoder.versionedItemScore(row));
+    }
+  }
+
+  private static Future<RowSet<Row>> query(final PgPool client, final Query query, final Tuple tuple) {
+    final Promise<RowSet<Row>> promise = Promise.promise();
+    client.preparedQuery(query.sql(), tuple, promise);
+    return promise.future();
+  }
+
+  private static <T> T await(final Future<T> future) throws Exception {
+    final CompletableFuture<T> result = new CompletableFuture<>();
+
+    future.setHandler(event -> {
+      if (event.succeeded()) {
+        result.complete(event.result());
+      } else {
+        result.completeExceptionally(event.cause());
+      }
+    });
+
+    return result.get(30, TimeUnit.SECONDS);
+  }
+}
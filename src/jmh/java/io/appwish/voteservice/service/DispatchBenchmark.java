@@ -0,0 +1,85 @@
+package io.appwish.voteservice.service;
+
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.eventbus.EventBusConfigurer;
+import io.appwish.voteservice.repository.Deadline;
+import io.appwish.voteservice.repository.VoteRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares reading a score through the event bus, as gRPC verticles do by default, with calling the repository directly, as they do in direct
+ * dispatch mode. The repository answers from memory, so the difference is the cost of the dispatch alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DispatchBenchmark {
+
+  private static final VoteSelector SELECTOR = new VoteSelector(8888, ItemType.WISH);
+  private static final Score SCORE = new Score(900, 100);
+
+  private Vertx vertx;
+  private VoteOperations direct;
+  private VoteOperations eventBus;
+
+  @Setup
+  public void setUp() {
+    vertx = Vertx.vertx();
+    // Only scores are read, anything else fails
+    final VoteRepository repository = (VoteRepository) Proxy.newProxyInstance(VoteRepository.class.getClassLoader(),
+        new Class<?>[]{VoteRepository.class}, (proxy, method, args) -> {
+          if ("voteScore".equals(method.getName())) {
+            return Future.succeededFuture(SCORE);
+          }
+          throw new UnsupportedOperationException(method.getName());
+        });
+
+    new EventBusConfigurer(vertx.eventBus()).registerCodecs();
+    new DatabaseService(vertx.eventBus(), repository).registerEventBusEventHandlers();
+    direct = new RepositoryVoteOperations(repository);
+    eventBus = new EventBusVoteOperations(vertx.eventBus());
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Benchmark
+  public Score directDispatch() throws Exception {
+    return await(direct.voteScore(SELECTOR, false, Deadline.NONE));
+  }
+
+  @Benchmark
+  public Score eventBusDispatch() throws Exception {
+    return await(eventBus.voteScore(SELECTOR, false, Deadline.NONE));
+  }
+
+  private static <T> T await(final Future<T> future) throws Exception {
+    final CompletableFuture<T> result = new CompletableFuture<>();
+
+    future.setHandler(event -> {
+      if (event.succeeded()) {
+        result.complete(event.result());
+      } else {
+        result.completeExceptionally(event.cause());
+      }
+    });
+
+    return result.get(10, TimeUnit.SECONDS);
+  }
+}
@@ -1,12 +1,35 @@
 package io.appwish.voteservice;
 
 
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.reply.VoteScoresReply;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.eventbus.Address;
 import io.appwish.voteservice.eventbus.EventBusConfigurer;
+import io.appwish.voteservice.metrics.Metrics;
 import io.appwish.voteservice.repository.VoteRepository;
+import io.appwish.voteservice.repository.impl.CachingVoteRepository;
+import io.appwish.voteservice.repository.impl.GroupCommitter;
+import io.appwish.voteservice.repository.impl.KeyedSerializer;
+import io.appwish.voteservice.repository.impl.PostgresSchema;
 import io.appwish.voteservice.repository.impl.PostgresVoteRepository;
-import io.appwish.voteservice.repository.impl.Query;
+import io.appwish.voteservice.repository.impl.RankingVoteRepository;
+import io.appwish.voteservice.repository.impl.RollupCompactor;
+import io.appwish.voteservice.repository.impl.ScoreRanking;
+import io.appwish.voteservice.repository.impl.SerializingVoteRepository;
+import io.appwish.voteservice.repository.impl.SerializingVoteRepository.UserItem;
+import io.appwish.voteservice.repository.impl.SingleFlight;
+import io.appwish.voteservice.repository.impl.StatementStatistics;
+import io.appwish.voteservice.repository.impl.TrendingRanking;
+import io.appwish.voteservice.service.RepositoryVoteOperations;
 import io.appwish.voteservice.verticle.DatabaseVerticle;
 import io.appwish.voteservice.verticle.GrpcVerticle;
+import io.appwish.voteservice.verticle.MetricsVerticle;
 import io.vertx.config.ConfigRetriever;
 import io.vertx.config.ConfigRetrieverOptions;
 import io.vertx.config.ConfigStoreOptions;
@@ -15,12 +38,23 @@ import io.vertx.core.CompositeFuture;
 import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.Verticle;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import io.vertx.pgclient.PgConnectOptions;
 import io.vertx.pgclient.PgPool;
 import io.vertx.sqlclient.PoolOptions;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Main verticle responsible for configuration and deploying all other verticles
@@ -33,6 +67,32 @@ public class MainVerticle extends AbstractVerticle {
   private static final String DATABASE_NAME = "dbName";
   private static final String DATABASE_USER = "dbUser";
   private static final String DATABASE_PASSWORD = "dbPassword";
+  private static final String DATABASE_POOL_SIZE = "dbPoolSize";
+  private static final String DATABASE_POOL_MAX_WAIT_QUEUE_SIZE = "dbPoolMaxWaitQueueSize";
+  private static final String DATABASE_READ_HOST = "dbReadHost";
+  private static final String DATABASE_READ_PORT = "dbReadPort";
+  private static final String DATABASE_READ_POOL_SIZE = "dbReadPoolSize";
+  private static final String DATABASE_READ_POOL_MAX_WAIT_QUEUE_SIZE = "dbReadPoolMaxWaitQueueSize";
+  private static final String DATABASE_STATEMENT_TIMEOUT_MS = "dbStatementTimeoutMs";
+  private static final String WRITE_BATCH_WINDOW_MS = "writeBatchWindowMs";
+  private static final String WRITE_BATCH_MAX_SIZE = "writeBatchMaxSize";
+  private static final String SCORE_CACHE_SIZE = "scoreCacheSize";
+  private static final String SCORE_CACHE_TTL_MS = "scoreCacheTtlMs";
+  private static final String GRPC_INSTANCES = "grpcInstances";
+  private static final String DATABASE_INSTANCES = "dbInstances";
+  private static final String DISPATCH_MODE = "dispatchMode";
+  private static final String DIRECT_DISPATCH = "direct";
+  private static final String METRICS_HOST = "metricsHost";
+  private static final String METRICS_PORT = "metricsPort";
+  private static final String SLOW_QUERY_THRESHOLD_MS = "slowQueryThresholdMs";
+  private static final String SLOW_QUERY_LOG_INTERVAL_MS = "slowQueryLogIntervalMs";
+  private static final String IN_MEMORY_RANKINGS = "inMemoryRankings";
+  private static final String TRENDING_HALF_LIFE_HOURS = "trendingHalfLifeHours";
+  private static final double DEFAULT_TRENDING_HALF_LIFE_HOURS = 24;
+  private static final String ROLLUP_COMPACTION_INTERVAL_MS = "rollupCompactionIntervalMs";
+  private static final String ROLLUP_HOURLY_RETENTION_HOURS = "rollupHourlyRetentionHours";
+  private static final long STATS_INTERVAL_MS = 60_000;
+  private static final int CPU_CORES = Runtime.getRuntime().availableProcessors();
 
   @Override
   public void start(final Promise<Void> startPromise) {
@@ -48,6 +108,11 @@ public class MainVerticle extends AbstractVerticle {
       final String databaseName = config.getString(DATABASE_NAME);
       final String databaseUser = config.getString(DATABASE_USER);
       final String databasePassword = config.getString(DATABASE_PASSWORD);
+      final Integer writeBatchWindowMs = config.getInteger(WRITE_BATCH_WINDOW_MS, 0);
+      final Integer writeBatchMaxSize = config.getInteger(WRITE_BATCH_MAX_SIZE, 64);
+      // Reads go to the primary unless a read replica is configured
+      final String databaseReadHost = config.getString(DATABASE_READ_HOST, databaseHost);
+      final Integer databaseReadPort = config.getInteger(DATABASE_READ_PORT, databasePort);
 
       final PgConnectOptions connectOptions = new PgConnectOptions()
           .setPort(databasePort)
@@ -56,36 +121,188 @@ public class MainVerticle extends AbstractVerticle {
           .setUser(databaseUser)
           .setPassword(databasePassword);
 
-      final PoolOptions poolOptions = new PoolOptions().setMaxSize(5);
-      final PgPool client = PgPool.pool(vertx, connectOptions, poolOptions);
-      final VoteRepository repository = new PostgresVoteRepository(client);
+      // Statements of the repositories are aborted by Postgres after the timeout, unless they run with a deadline. Preparing the schema, loading
+      // rankings and compacting rollups take longer, so they keep no timeout, as do all statements with zero timeout.
+      final PgConnectOptions queryConnectOptions = new PgConnectOptions(connectOptions)
+          .addProperty("statement_timeout", String.valueOf(config.getInteger(DATABASE_STATEMENT_TIMEOUT_MS, 0)));
+      final PgConnectOptions readConnectOptions = new PgConnectOptions(queryConnectOptions)
+          .setPort(databaseReadPort)
+          .setHost(databaseReadHost);
+
+      // Reads and writes have separate pools, so that heavy read traffic can't starve writes. Every DatabaseVerticle instance has its own pools.
+      final PoolOptions poolOptions = new PoolOptions()
+          .setMaxSize(config.getInteger(DATABASE_POOL_SIZE, 5))
+          .setMaxWaitQueueSize(config.getInteger(DATABASE_POOL_MAX_WAIT_QUEUE_SIZE, -1));
+      final PoolOptions readPoolOptions = new PoolOptions()
+          .setMaxSize(config.getInteger(DATABASE_READ_POOL_SIZE, 5))
+          .setMaxWaitQueueSize(config.getInteger(DATABASE_READ_POOL_MAX_WAIT_QUEUE_SIZE, -1));
+      final Integer scoreCacheSize = config.getInteger(SCORE_CACHE_SIZE, 0);
+      // Score caching is disabled with zero size. The cache is shared by all DatabaseVerticle instances.
+      final Cache<VoteSelector, Score> scoreCache = scoreCacheSize > 0
+          ? CachingVoteRepository.scoreCache(scoreCacheSize, Duration.ofMillis(config.getInteger(SCORE_CACHE_TTL_MS, 5000)))
+          : null;
+      final List<PostgresVoteRepository> postgresRepositories = new CopyOnWriteArrayList<>();
+      // Writes of a user on an item may arrive at any DatabaseVerticle instance, so they are ordered by one serializer shared by all of them
+      final KeyedSerializer<UserItem> writeSerializer = new KeyedSerializer<>();
+      // Reads of a viral item arrive at all DatabaseVerticle instances, so they're collapsed by one single flight shared by all of them
+      final SingleFlight<VoteSelector, Score> scoreReads = new SingleFlight<>();
+      // Slow queries aren't logged with zero threshold. Statistics are shared by all DatabaseVerticle instances.
+      final StatementStatistics statementStatistics = new StatementStatistics(Metrics.QUERY_LATENCY,
+          config.getInteger(SLOW_QUERY_THRESHOLD_MS, 0), config.getInteger(SLOW_QUERY_LOG_INTERVAL_MS, 10_000));
+      // Without the in-memory rankings top items are queried from Postgres and trending items aren't available. The rankings are shared by all
+      // DatabaseVerticle instances.
+      final boolean inMemoryRankings = config.getBoolean(IN_MEMORY_RANKINGS, false);
+      final ScoreRanking ranking = inMemoryRankings ? new ScoreRanking() : null;
+      final TrendingRanking trending = inMemoryRankings ? new TrendingRanking(trendingHalfLives(config)) : null;
+
+      final Function<Vertx, VoteRepository> repositoryFactory = instanceVertx -> {
+        final PgPool client = PgPool.pool(instanceVertx, queryConnectOptions, poolOptions);
+        final PgPool readClient = PgPool.pool(instanceVertx, readConnectOptions, readPoolOptions);
+        // Write batching is disabled with zero window
+        final GroupCommitter groupCommitter = writeBatchWindowMs > 0
+            ? new GroupCommitter(instanceVertx, client, writeBatchWindowMs, writeBatchMaxSize, statementStatistics)
+            : null;
+        final PostgresVoteRepository postgresRepository = new PostgresVoteRepository(client, readClient, groupCommitter, statementStatistics,
+            scoreReads);
+        postgresRepositories.add(postgresRepository);
+        // Score watchers of all gRPC verticles are told the new score of every committed change, in direct mode as well
+        postgresRepository.addScoreChangeHandler(change -> instanceVertx.eventBus()
+            .publish(Address.SCORE_CHANGED.get(), new VoteScoresReply(Collections.singletonMap(change.getSelector(), change.getScore()))));
+        final VoteRepository rankingRepository;
+        if (isNull(ranking)) {
+          rankingRepository = postgresRepository;
+        } else {
+          postgresRepository.addScoreChangeHandler(ranking::apply);
+          postgresRepository.addScoreChangeHandler(trending::apply);
+          rankingRepository = new RankingVoteRepository(postgresRepository, ranking, trending);
+        }
+        final VoteRepository serializingRepository = new SerializingVoteRepository(rankingRepository, writeSerializer);
+        return isNull(scoreCache) ? serializingRepository : new CachingVoteRepository(serializingRepository, scoreCache);
+      };
+
       final EventBusConfigurer util = new EventBusConfigurer(vertx.eventBus());
 
       util.registerCodecs();
 
+      Metrics.counter("score_reads_coalesced_total", "Score reads answered by a query executed for another concurrent read.", scoreReads::collapsed);
+
+      if (nonNull(scoreCache)) {
+        Metrics.counter("score_cache_hits_total", "Score reads served from the cache.", () -> scoreCache.stats().hitCount());
+        Metrics.counter("score_cache_misses_total", "Score reads missing the cache.", () -> scoreCache.stats().missCount());
+        Metrics.counter("score_cache_evictions_total", "Scores evicted from the cache.", () -> scoreCache.stats().evictionCount());
+      }
+
+      if (nonNull(ranking)) {
+        Metrics.gauge("score_ranking_items", "Items kept in the in-memory score ranking.", ranking::size);
+        Metrics.gauge("trending_ranking_items", "Items kept in the in-memory trending ranking.", trending::size);
+      }
+
+      vertx.setPeriodic(STATS_INTERVAL_MS, id -> {
+        LOG.info("Coalesced score reads: " + scoreReads.collapsed());
+        final Map<String, Long> expired = new TreeMap<>();
+        postgresRepositories.forEach(repository -> repository.expiredBeforeExecution()
+            .forEach((operation, count) -> expired.merge(operation, count, Long::sum)));
+        LOG.info("Expired before execution: " + expired);
+        LOG.info("Statements: " + statementStatistics.summary());
+        if (nonNull(scoreCache)) {
+          LOG.info("Score cache: " + scoreCache.stats());
+        }
+        if (nonNull(ranking)) {
+          LOG.info("Ranked items: " + ranking.size() + ", trending: " + trending.size());
+        }
+      });
+
+      final Integer rollupCompactionIntervalMs = config.getInteger(ROLLUP_COMPACTION_INTERVAL_MS, 0);
+      // Rollups aren't compacted with zero interval, so hourly buckets are kept forever
+      if (rollupCompactionIntervalMs > 0) {
+        final RollupCompactor compactor = new RollupCompactor(PgPool.pool(vertx, connectOptions, new PoolOptions().setMaxSize(1)),
+            Duration.ofHours(config.getInteger(ROLLUP_HOURLY_RETENTION_HOURS, 48)));
+        vertx.setPeriodic(rollupCompactionIntervalMs, id -> compactor.compact().setHandler(compacted -> {
+          if (compacted.failed()) {
+            LOG.error("Could not compact vote rollups", compacted.cause());
+          } else if (compacted.result() > 0) {
+            LOG.info("Compacted hourly vote rollups: " + compacted.result());
+          }
+        }));
+      }
+
       LOG.info("Preparing Postgres connection options: host=" + databaseHost + ", port=" + databasePort + ", name=" + databaseName + ", user=" + databaseUser + ", password=" + databasePassword.charAt(0) + "*****" + databasePassword.charAt(databasePassword.length() - 1));
+      LOG.info("Reading from Postgres at host=" + databaseReadHost + ", port=" + databaseReadPort);
+
+      final PgPool schemaClient = PgPool.pool(vertx, connectOptions, new PoolOptions().setMaxSize(1));
 
       // TODO It's here just for development purposes
-      client.preparedQuery(Query.CREATE_VOTE_TABLE.sql(), query -> { });
-
-      CompositeFuture.all(
-          deployDatabaseVerticle(repository),
-          deployGrpcVerticle())
-          .setHandler(ar -> {
-            if (ar.succeeded()) {
-              startPromise.complete();
-            } else {
-              LOG.error("Could not deploy required verticles", ar.cause());
-              startPromise.fail(ar.cause());
-            }
-          });
+      PostgresSchema.prepare(schemaClient).setHandler(schema -> {
+        if (schema.failed()) {
+          // Queries would fail or scan whole tables without the schema, so the service doesn't start
+          LOG.error("Could not prepare Postgres schema", schema.cause());
+          schemaClient.close();
+          startPromise.fail(schema.cause());
+          return;
+        }
+
+        // Rankings are loaded before any verticle is deployed, so that they don't miss any write
+        final Future<Void> rankingsLoaded = isNull(ranking)
+            ? Future.succeededFuture()
+            : ranking.load(schemaClient).compose(scores -> trending.load(schemaClient));
+        rankingsLoaded.setHandler(loaded -> {
+          schemaClient.close();
+
+          if (loaded.failed()) {
+            LOG.error("Could not load rankings", loaded.cause());
+            startPromise.fail(loaded.cause());
+            return;
+          }
+
+          deploy(config, repositoryFactory, statementStatistics, startPromise);
+        });
+      });
     });
   }
 
-  private Future<Void> deployGrpcVerticle() {
+  private void deploy(final JsonObject config, final Function<Vertx, VoteRepository> repositoryFactory,
+      final StatementStatistics statementStatistics, final Promise<Void> startPromise) {
+    final Integer grpcInstances = config.getInteger(GRPC_INSTANCES, CPU_CORES);
+    // In direct mode gRPC verticles call their own repositories, skipping the event bus, so database verticles aren't needed
+    final Future<Void> deployed = DIRECT_DISPATCH.equals(config.getString(DISPATCH_MODE))
+        ? deployVerticle(() -> new GrpcVerticle(instanceVertx -> new RepositoryVoteOperations(repositoryFactory.apply(instanceVertx))), grpcInstances)
+        : CompositeFuture.all(
+            deployDatabaseVerticle(repositoryFactory, config.getInteger(DATABASE_INSTANCES, CPU_CORES)),
+            deployVerticle(GrpcVerticle::new, grpcInstances)).mapEmpty();
+    final Integer metricsPort = config.getInteger(METRICS_PORT, 0);
+    // Metrics aren't served with zero port
+    final Future<Void> metricsDeployed = metricsPort > 0
+        ? deployVerticle(() -> new MetricsVerticle(config.getString(METRICS_HOST, "localhost"), metricsPort, statementStatistics), 1)
+        : Future.succeededFuture();
+
+    CompositeFuture.all(deployed, metricsDeployed).setHandler(ar -> {
+      if (ar.succeeded()) {
+        startPromise.complete();
+      } else {
+        LOG.error("Could not deploy required verticles", ar.cause());
+        startPromise.fail(ar.cause());
+      }
+    });
+  }
+
+  /**
+   * Reads half-lives of trending scores configured in hours per item type name, like {"WISH": 24}. Item types without one decay in a day.
+   */
+  private static Map<ItemType, Duration> trendingHalfLives(final JsonObject config) {
+    final JsonObject hours = config.getJsonObject(TRENDING_HALF_LIFE_HOURS, new JsonObject());
+    final Map<ItemType, Duration> halfLives = new EnumMap<>(ItemType.class);
+
+    for (final ItemType itemType : ItemType.values()) {
+      halfLives.put(itemType, Duration.ofMinutes((long) (hours.getDouble(itemType.name(), DEFAULT_TRENDING_HALF_LIFE_HOURS) * 60)));
+    }
+
+    return halfLives;
+  }
+
+  private Future<Void> deployVerticle(final Supplier<Verticle> verticle, final int instances) {
     final Promise<Void> promise = Promise.promise();
 
-    vertx.deployVerticle(new GrpcVerticle(), new DeploymentOptions(), res -> {
+    vertx.deployVerticle(verticle, new DeploymentOptions().setInstances(instances), res -> {
       if (res.failed()) {
         promise.fail(res.cause());
       } else {
@@ -96,10 +313,10 @@ public class MainVerticle extends AbstractVerticle {
     return promise.future();
   }
 
-  private Future<Void> deployDatabaseVerticle(final VoteRepository repository) {
+  private Future<Void> deployDatabaseVerticle(final Function<Vertx, VoteRepository> repositoryFactory, final int instances) {
     final Promise<Void> promise = Promise.promise();
 
-    vertx.deployVerticle(new DatabaseVerticle(repository), new DeploymentOptions(), res -> {
+    vertx.deployVerticle(() -> new DatabaseVerticle(repositoryFactory), new DeploymentOptions().setInstances(instances), res -> {
       if (res.failed()) {
         promise.fail(res.cause());
       } else {
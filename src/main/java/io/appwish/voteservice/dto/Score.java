@@ -1,34 +1,56 @@
 package io.appwish.voteservice.dto;
 
-import io.appwish.grpc.VoteScoreReplyProto;
 import java.util.Objects;
-import net.badata.protobuf.converter.annotation.ProtoClass;
-import net.badata.protobuf.converter.annotation.ProtoField;
 
 /**
  * This type should be used to represent item's vote score.
  * <p>
- * {@link ProtoClass} and {@link ProtoField} annotations are used by {@link net.badata.protobuf.converter.Converter} to convert back/forth between
- * protobuf data transfer objects and model objects.
+ * Besides up votes minus down votes, the score has a confidence: the lower bound of the Wilson score interval of the share of up votes at 95%
+ * confidence. It ranks an item with 900 up and 100 down votes above one with a single up vote, as it's much more certain that most voters like it.
+ * The same bound is stored by Postgres in vote_scores.confidence to order items by it.
  * <p>
- * The converter requires a POJO with getters, setters and a default constructor.
+ * Counters read from vote_scores or returned by a write also carry their version, which grows with every write to the counters of the item, so
+ * that scores of an item arriving out of order can be told apart. Zero means the version isn't known. The version tells when the counters were
+ * written rather than what they are, so it isn't part of equality.
+ * <p>
+ * Converted to and from protobuf by {@link io.appwish.voteservice.dto.converter.ProtoMapper}.
  */
-@ProtoClass(VoteScoreReplyProto.class)
 public class Score {
 
-  @ProtoField
-  private long score;
+  // Quantile of the standard normal distribution for 95% confidence
+  private static final double Z = 1.96;
 
-  @ProtoField
+  private long score;
   private long up;
-
-  @ProtoField
   private long down;
+  private double confidence;
+  private long version;
 
   public Score(long up, long down) {
+    this(up, down, 0);
+  }
+
+  public Score(long up, long down, long version) {
     this.score = up - down;
     this.up = up;
     this.down = down;
+    this.confidence = wilsonLowerBound(up, down);
+    this.version = version;
+  }
+
+  /**
+   * Returns the lower bound of the Wilson score interval of the share of up votes, or zero without any votes.
+   */
+  public static double wilsonLowerBound(final long up, final long down) {
+    final long n = up + down;
+
+    if (n <= 0) {
+      return 0;
+    }
+
+    final double p = (double) up / n;
+    final double z2 = Z * Z;
+    return (p + z2 / (2 * n) - Z * Math.sqrt((p * (1 - p) + z2 / (4 * n)) / n)) / (1 + z2 / n);
   }
 
   @Override
@@ -42,12 +64,13 @@ public class Score {
     Score score1 = (Score) o;
     return score == score1.score &&
         up == score1.up &&
-        down == score1.down;
+        down == score1.down &&
+        Double.compare(score1.confidence, confidence) == 0;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(score, up, down);
+    return Objects.hash(score, up, down, confidence);
   }
 
   @Override
@@ -56,6 +79,8 @@ public class Score {
         "score=" + score +
         ", up=" + up +
         ", down=" + down +
+        ", confidence=" + confidence +
+        ", version=" + version +
         '}';
   }
 
@@ -82,4 +107,20 @@ public class Score {
   public void setDown(long down) {
     this.down = down;
   }
+
+  public double getConfidence() {
+    return confidence;
+  }
+
+  public void setConfidence(double confidence) {
+    this.confidence = confidence;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
 }
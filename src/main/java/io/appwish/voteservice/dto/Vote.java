@@ -1,42 +1,22 @@
 package io.appwish.voteservice.dto;
 
 import com.google.protobuf.Timestamp;
-import io.appwish.grpc.VoteProto;
-import io.appwish.voteservice.dto.converter.ItemTypeConverter;
-import io.appwish.voteservice.dto.converter.VoteTypeConverter;
 import io.appwish.voteservice.dto.type.ItemType;
 import io.appwish.voteservice.dto.type.VoteType;
 import java.util.Objects;
-import net.badata.protobuf.converter.annotation.ProtoClass;
-import net.badata.protobuf.converter.annotation.ProtoField;
 
 /**
  * Represents single user's vote.
  * <p>
- * {@link ProtoClass} and {@link ProtoField} annotations are used by {@link net.badata.protobuf.converter.Converter} to convert back/forth between
- * protobuf data transfer objects and model objects.
- * <p>
- * The converter requires a POJO with getters, setters and a default constructor.
+ * Converted to and from protobuf by {@link io.appwish.voteservice.dto.converter.ProtoMapper}.
  */
-@ProtoClass(VoteProto.class)
 public class Vote {
 
-  @ProtoField
   private long id;
-
-  @ProtoField
   private String userId;
-
-  @ProtoField
   private long itemId;
-
-  @ProtoField(converter = ItemTypeConverter.class)
   private ItemType itemType;
-
-  @ProtoField
   private Timestamp createdAt;
-
-  @ProtoField(converter = VoteTypeConverter.class)
   private VoteType voteType;
 
   public Vote() {
@@ -0,0 +1,196 @@
+package io.appwish.voteservice.dto.converter;
+
+import static java.util.Objects.nonNull;
+
+import io.appwish.grpc.GranularityProto;
+import io.appwish.grpc.ItemTypeProto;
+import io.appwish.grpc.ScoreHistoryQueryProto;
+import io.appwish.grpc.ScoreOrderProto;
+import io.appwish.grpc.TopItemsQueryProto;
+import io.appwish.grpc.TrendingQueryProto;
+import io.appwish.grpc.UnvoteReplyProto;
+import io.appwish.grpc.VoteInputProto;
+import io.appwish.grpc.VoteProto;
+import io.appwish.grpc.VoteReplyProto;
+import io.appwish.grpc.VoteScoreReplyProto;
+import io.appwish.grpc.VoteSelectorProto;
+import io.appwish.grpc.VoteTypeProto;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
+import io.appwish.voteservice.dto.query.TrendingQuery;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.reply.UnvoteReply;
+import io.appwish.voteservice.dto.reply.VoteReply;
+import io.appwish.voteservice.dto.type.Granularity;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.dto.type.ScoreOrder;
+import io.appwish.voteservice.dto.type.VoteType;
+
+/**
+ * Converts protobuf data transfer objects to model objects and back.
+ * <p>
+ * Mapping is written out field by field, so converting a request or a reply costs no more than building the objects themselves.
+ */
+public final class ProtoMapper {
+
+  private ProtoMapper() {
+  }
+
+  public static VoteInput toDomain(final VoteInputProto proto) {
+    return new VoteInput(proto.getItemId(), toDomain(proto.getItemType()), toDomain(proto.getVoteType()));
+  }
+
+  public static VoteSelector toDomain(final VoteSelectorProto proto) {
+    return new VoteSelector(proto.getItemId(), toDomain(proto.getItemType()));
+  }
+
+  public static TopItemsQuery toDomain(final TopItemsQueryProto proto) {
+    return new TopItemsQuery(toDomain(proto.getItemType()), proto.getLimit(), proto.getOffset(), toDomain(proto.getOrder()));
+  }
+
+  public static TrendingQuery toDomain(final TrendingQueryProto proto) {
+    return new TrendingQuery(toDomain(proto.getItemType()), proto.getLimit());
+  }
+
+  public static ScoreHistoryQuery toDomain(final ScoreHistoryQueryProto proto) {
+    return new ScoreHistoryQuery(
+        toDomain(proto.getSelector()),
+        proto.hasFrom() ? proto.getFrom() : null,
+        proto.hasTo() ? proto.getTo() : null,
+        toDomain(proto.getGranularity()));
+  }
+
+  public static Vote toDomain(final VoteProto proto) {
+    return new Vote(
+        proto.getId(),
+        proto.getUserId(),
+        proto.getItemId(),
+        toDomain(proto.getItemType()),
+        toDomain(proto.getVoteType()),
+        proto.hasCreatedAt() ? proto.getCreatedAt() : null);
+  }
+
+  public static ItemType toDomain(final ItemTypeProto proto) {
+    switch (proto) {
+      case WISH:
+        return ItemType.WISH;
+      case COMMENT:
+        return ItemType.COMMENT;
+      default:
+        throw new IllegalArgumentException("Instance is none of valid values of ItemTypeProto");
+    }
+  }
+
+  public static ScoreOrder toDomain(final ScoreOrderProto proto) {
+    switch (proto) {
+      case SCORE:
+        return ScoreOrder.SCORE;
+      case CONFIDENCE:
+        return ScoreOrder.CONFIDENCE;
+      default:
+        throw new IllegalArgumentException("Instance is none of valid values of ScoreOrderProto");
+    }
+  }
+
+  public static Granularity toDomain(final GranularityProto proto) {
+    switch (proto) {
+      case HOUR:
+        return Granularity.HOUR;
+      case DAY:
+        return Granularity.DAY;
+      default:
+        throw new IllegalArgumentException("Instance is none of valid values of GranularityProto");
+    }
+  }
+
+  public static VoteType toDomain(final VoteTypeProto proto) {
+    switch (proto) {
+      case UP:
+        return VoteType.UP;
+      case DOWN:
+        return VoteType.DOWN;
+      default:
+        throw new IllegalArgumentException("Instance is none of valid values of VoteTypeProto");
+    }
+  }
+
+  public static VoteSelectorProto toProtobuf(final VoteSelector selector) {
+    return VoteSelectorProto.newBuilder()
+        .setItemId(selector.getItemId())
+        .setItemType(toProtobuf(selector.getItemType()))
+        .build();
+  }
+
+  public static VoteProto toProtobuf(final Vote vote) {
+    final VoteProto.Builder proto = VoteProto.newBuilder()
+        .setId(vote.getId())
+        .setItemId(vote.getItemId());
+
+    // Proto builders reject nulls, unset fields keep their defaults instead
+    if (nonNull(vote.getUserId())) {
+      proto.setUserId(vote.getUserId());
+    }
+
+    if (nonNull(vote.getItemType())) {
+      proto.setItemType(toProtobuf(vote.getItemType()));
+    }
+
+    if (nonNull(vote.getVoteType())) {
+      proto.setVoteType(toProtobuf(vote.getVoteType()));
+    }
+
+    if (nonNull(vote.getCreatedAt())) {
+      proto.setCreatedAt(vote.getCreatedAt());
+    }
+
+    return proto.build();
+  }
+
+  public static VoteReplyProto toProtobuf(final VoteReply reply) {
+    final VoteReplyProto.Builder proto = VoteReplyProto.newBuilder();
+
+    if (nonNull(reply.getVote())) {
+      proto.setVote(toProtobuf(reply.getVote()));
+    }
+
+    return proto.build();
+  }
+
+  public static UnvoteReplyProto toProtobuf(final UnvoteReply reply) {
+    return UnvoteReplyProto.newBuilder().setDeleted(reply.isDeleted()).build();
+  }
+
+  public static VoteScoreReplyProto toProtobuf(final Score score) {
+    return VoteScoreReplyProto.newBuilder()
+        .setScore(score.getScore())
+        .setUp(score.getUp())
+        .setDown(score.getDown())
+        .setConfidence(score.getConfidence())
+        .build();
+  }
+
+  public static ItemTypeProto toProtobuf(final ItemType itemType) {
+    switch (itemType) {
+      case WISH:
+        return ItemTypeProto.WISH;
+      case COMMENT:
+        return ItemTypeProto.COMMENT;
+      default:
+        throw new IllegalArgumentException("Instance is none of valid values of ItemType");
+    }
+  }
+
+  public static VoteTypeProto toProtobuf(final VoteType voteType) {
+    switch (voteType) {
+      case UP:
+        return VoteTypeProto.UP;
+      case DOWN:
+        return VoteTypeProto.DOWN;
+      default:
+        throw new IllegalArgumentException("Instance is none of valid values of VoteType");
+    }
+  }
+}
@@ -1,31 +1,17 @@
 package io.appwish.voteservice.dto.input;
 
-import io.appwish.grpc.VoteInputProto;
-import io.appwish.voteservice.dto.converter.ItemTypeConverter;
-import io.appwish.voteservice.dto.converter.VoteTypeConverter;
 import io.appwish.voteservice.dto.type.ItemType;
 import io.appwish.voteservice.dto.type.VoteType;
-import net.badata.protobuf.converter.annotation.ProtoClass;
-import net.badata.protobuf.converter.annotation.ProtoField;
 
 /**
  * This type should be used for inserting new votes to the database.
  * <p>
- * {@link ProtoClass} and {@link ProtoField} annotations are used by {@link net.badata.protobuf.converter.Converter} to convert back/forth between
- * protobuf data transfer objects and model objects.
- * <p>
- * The converter requires a POJO with getters, setters and a default constructor.
+ * Converted to and from protobuf by {@link io.appwish.voteservice.dto.converter.ProtoMapper}.
  */
-@ProtoClass(VoteInputProto.class)
 public class VoteInput {
 
-  @ProtoField
   private long itemId;
-
-  @ProtoField(converter = ItemTypeConverter.class)
   private ItemType itemType;
-
-  @ProtoField(converter = VoteTypeConverter.class)
   private VoteType voteType;
 
   public VoteInput() {
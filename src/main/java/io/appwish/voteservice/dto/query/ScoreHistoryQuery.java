@@ -0,0 +1,91 @@
+package io.appwish.voteservice.dto.query;
+
+import com.google.protobuf.Timestamp;
+import io.appwish.voteservice.dto.type.Granularity;
+import java.util.Objects;
+
+/**
+ * This type should be used to query the votes cast on an item between two points in time, counted in buckets of given granularity. The range
+ * starts at the beginning of the bucket containing from and ends before to.
+ * <p>
+ * Converted from protobuf by {@link io.appwish.voteservice.dto.converter.ProtoMapper}.
+ */
+public class ScoreHistoryQuery {
+
+  private VoteSelector selector;
+  private Timestamp from;
+  private Timestamp to;
+  private Granularity granularity;
+
+  public ScoreHistoryQuery(final VoteSelector selector, final Timestamp from, final Timestamp to, final Granularity granularity) {
+    this.selector = selector;
+    this.from = from;
+    this.to = to;
+    this.granularity = granularity;
+  }
+
+  public ScoreHistoryQuery() {
+  }
+
+  public VoteSelector getSelector() {
+    return selector;
+  }
+
+  public void setSelector(VoteSelector selector) {
+    this.selector = selector;
+  }
+
+  public Timestamp getFrom() {
+    return from;
+  }
+
+  public void setFrom(Timestamp from) {
+    this.from = from;
+  }
+
+  public Timestamp getTo() {
+    return to;
+  }
+
+  public void setTo(Timestamp to) {
+    this.to = to;
+  }
+
+  public Granularity getGranularity() {
+    return granularity;
+  }
+
+  public void setGranularity(Granularity granularity) {
+    this.granularity = granularity;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ScoreHistoryQuery that = (ScoreHistoryQuery) o;
+    return Objects.equals(selector, that.selector) &&
+        Objects.equals(from, that.from) &&
+        Objects.equals(to, that.to) &&
+        granularity == that.granularity;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(selector, from, to, granularity);
+  }
+
+  @Override
+  public String toString() {
+    return "ScoreHistoryQuery{" +
+        "selector=" + selector +
+        ", from=" + from +
+        ", to=" + to +
+        ", granularity=" + granularity +
+        '}';
+  }
+}
@@ -0,0 +1,90 @@
+package io.appwish.voteservice.dto.query;
+
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.dto.type.ScoreOrder;
+import java.util.Objects;
+
+/**
+ * This type should be used to query a page of the items of given type with the highest scores, in given order.
+ * <p>
+ * Converted from protobuf by {@link io.appwish.voteservice.dto.converter.ProtoMapper}.
+ */
+public class TopItemsQuery {
+
+  private ItemType itemType;
+  private int limit;
+  private int offset;
+  private ScoreOrder order;
+
+  public TopItemsQuery(final ItemType itemType, final int limit, final int offset, final ScoreOrder order) {
+    this.itemType = itemType;
+    this.limit = limit;
+    this.offset = offset;
+    this.order = order;
+  }
+
+  public TopItemsQuery() {
+  }
+
+  public ItemType getItemType() {
+    return itemType;
+  }
+
+  public void setItemType(ItemType itemType) {
+    this.itemType = itemType;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public void setLimit(int limit) {
+    this.limit = limit;
+  }
+
+  public int getOffset() {
+    return offset;
+  }
+
+  public void setOffset(int offset) {
+    this.offset = offset;
+  }
+
+  public ScoreOrder getOrder() {
+    return order;
+  }
+
+  public void setOrder(ScoreOrder order) {
+    this.order = order;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TopItemsQuery that = (TopItemsQuery) o;
+    return limit == that.limit &&
+        offset == that.offset &&
+        itemType == that.itemType &&
+        order == that.order;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(itemType, limit, offset, order);
+  }
+
+  @Override
+  public String toString() {
+    return "TopItemsQuery{" +
+        "itemType=" + itemType +
+        ", limit=" + limit +
+        ", offset=" + offset +
+        ", order=" + order +
+        '}';
+  }
+}
@@ -0,0 +1,65 @@
+package io.appwish.voteservice.dto.query;
+
+import io.appwish.voteservice.dto.type.ItemType;
+import java.util.Objects;
+
+/**
+ * This type should be used to query the items of given type with the highest time-decayed scores.
+ * <p>
+ * Converted from protobuf by {@link io.appwish.voteservice.dto.converter.ProtoMapper}.
+ */
+public class TrendingQuery {
+
+  private ItemType itemType;
+  private int limit;
+
+  public TrendingQuery(final ItemType itemType, final int limit) {
+    this.itemType = itemType;
+    this.limit = limit;
+  }
+
+  public TrendingQuery() {
+  }
+
+  public ItemType getItemType() {
+    return itemType;
+  }
+
+  public void setItemType(ItemType itemType) {
+    this.itemType = itemType;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public void setLimit(int limit) {
+    this.limit = limit;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TrendingQuery that = (TrendingQuery) o;
+    return limit == that.limit &&
+        itemType == that.itemType;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(itemType, limit);
+  }
+
+  @Override
+  public String toString() {
+    return "TrendingQuery{" +
+        "itemType=" + itemType +
+        ", limit=" + limit +
+        '}';
+  }
+}
@@ -1,27 +1,16 @@
 package io.appwish.voteservice.dto.query;
 
-import io.appwish.grpc.VoteSelectorProto;
-import io.appwish.voteservice.dto.converter.ItemTypeConverter;
 import io.appwish.voteservice.dto.type.ItemType;
 import java.util.Objects;
-import net.badata.protobuf.converter.annotation.ProtoClass;
-import net.badata.protobuf.converter.annotation.ProtoField;
 
 /**
  * This type should be used to query votes from the database.
  * <p>
- * {@link ProtoClass} and {@link ProtoField} annotations are used by {@link net.badata.protobuf.converter.Converter} to convert back/forth between
- * protobuf data transfer objects and model objects.
- * <p>
- * The converter requires a POJO with getters, setters and a default constructor.
+ * Converted to and from protobuf by {@link io.appwish.voteservice.dto.converter.ProtoMapper}.
  */
-@ProtoClass(VoteSelectorProto.class)
 public class VoteSelector {
 
-  @ProtoField
   private long itemId;
-
-  @ProtoField(converter = ItemTypeConverter.class)
   private ItemType itemType;
 
   public VoteSelector(final long itemId, final ItemType itemType) {
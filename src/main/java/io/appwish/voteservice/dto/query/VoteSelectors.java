@@ -0,0 +1,53 @@
+package io.appwish.voteservice.dto.query;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This type should be used to query data of many items at once.
+ * <p>
+ * Converted to and from protobuf in {@link io.appwish.voteservice.service.GrpcServiceImpl}, element by element.
+ */
+public class VoteSelectors {
+
+  private List<VoteSelector> selectors;
+
+  public VoteSelectors(final List<VoteSelector> selectors) {
+    this.selectors = selectors;
+  }
+
+  public VoteSelectors() {
+  }
+
+  public List<VoteSelector> getSelectors() {
+    return selectors;
+  }
+
+  public void setSelectors(final List<VoteSelector> selectors) {
+    this.selectors = selectors;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    VoteSelectors that = (VoteSelectors) o;
+    return Objects.equals(selectors, that.selectors);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(selectors);
+  }
+
+  @Override
+  public String toString() {
+    return "VoteSelectors{" +
+        "selectors=" + selectors +
+        '}';
+  }
+}
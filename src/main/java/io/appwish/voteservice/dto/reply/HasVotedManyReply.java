@@ -0,0 +1,55 @@
+package io.appwish.voteservice.dto.reply;
+
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.VoteType;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Represents data to return for many items has voted query. Contains only the items user has voted on.
+ * <p>
+ * Converted to protobuf in {@link io.appwish.voteservice.service.GrpcServiceImpl}, entry by entry.
+ */
+public class HasVotedManyReply {
+
+  private Map<VoteSelector, VoteType> votes;
+
+  public HasVotedManyReply(final Map<VoteSelector, VoteType> votes) {
+    this.votes = votes;
+  }
+
+  public HasVotedManyReply() {
+  }
+
+  public Map<VoteSelector, VoteType> getVotes() {
+    return votes;
+  }
+
+  public void setVotes(final Map<VoteSelector, VoteType> votes) {
+    this.votes = votes;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    HasVotedManyReply that = (HasVotedManyReply) o;
+    return Objects.equals(votes, that.votes);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(votes);
+  }
+
+  @Override
+  public String toString() {
+    return "HasVotedManyReply{" +
+        "votes=" + votes +
+        '}';
+  }
+}
@@ -0,0 +1,56 @@
+package io.appwish.voteservice.dto.reply;
+
+import com.google.protobuf.Timestamp;
+import io.appwish.voteservice.dto.Score;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Represents data to return for score history query. Scores of votes cast in each bucket are keyed by the start of the bucket, in the order of
+ * time. Buckets without votes are left out.
+ * <p>
+ * Converted to protobuf in {@link io.appwish.voteservice.service.GrpcServiceImpl}, entry by entry.
+ */
+public class ScoreHistoryReply {
+
+  private Map<Timestamp, Score> buckets;
+
+  public ScoreHistoryReply(final Map<Timestamp, Score> buckets) {
+    this.buckets = buckets;
+  }
+
+  public ScoreHistoryReply() {
+  }
+
+  public Map<Timestamp, Score> getBuckets() {
+    return buckets;
+  }
+
+  public void setBuckets(final Map<Timestamp, Score> buckets) {
+    this.buckets = buckets;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ScoreHistoryReply that = (ScoreHistoryReply) o;
+    return Objects.equals(buckets, that.buckets);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(buckets);
+  }
+
+  @Override
+  public String toString() {
+    return "ScoreHistoryReply{" +
+        "buckets=" + buckets +
+        '}';
+  }
+}
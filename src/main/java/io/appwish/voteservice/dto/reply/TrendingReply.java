@@ -0,0 +1,54 @@
+package io.appwish.voteservice.dto.reply;
+
+import io.appwish.voteservice.dto.query.VoteSelector;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Represents data to return for trending items query. Time-decayed scores are kept in the order of the ranking.
+ * <p>
+ * Converted to protobuf in {@link io.appwish.voteservice.service.GrpcServiceImpl}, entry by entry.
+ */
+public class TrendingReply {
+
+  private Map<VoteSelector, Double> scores;
+
+  public TrendingReply(final Map<VoteSelector, Double> scores) {
+    this.scores = scores;
+  }
+
+  public TrendingReply() {
+  }
+
+  public Map<VoteSelector, Double> getScores() {
+    return scores;
+  }
+
+  public void setScores(final Map<VoteSelector, Double> scores) {
+    this.scores = scores;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TrendingReply that = (TrendingReply) o;
+    return Objects.equals(scores, that.scores);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(scores);
+  }
+
+  @Override
+  public String toString() {
+    return "TrendingReply{" +
+        "scores=" + scores +
+        '}';
+  }
+}
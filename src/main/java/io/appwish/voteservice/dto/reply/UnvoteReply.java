@@ -1,22 +1,14 @@
 package io.appwish.voteservice.dto.reply;
 
-import io.appwish.grpc.UnvoteReplyProto;
 import java.util.Objects;
-import net.badata.protobuf.converter.annotation.ProtoClass;
-import net.badata.protobuf.converter.annotation.ProtoField;
 
 /**
  * Represents data to return for delete vote query.
  * <p>
- * {@link ProtoClass} and {@link ProtoField} annotations are used by {@link net.badata.protobuf.converter.Converter} to convert back/forth between
- * protobuf data transfer objects and model objects.
- * <p>
- * The converter requires a POJO with getters, setters and a default constructor.
+ * Converted to and from protobuf by {@link io.appwish.voteservice.dto.converter.ProtoMapper}.
  */
-@ProtoClass(UnvoteReplyProto.class)
 public class UnvoteReply {
 
-  @ProtoField
   private boolean deleted;
 
   public UnvoteReply(final boolean deleted) {
@@ -0,0 +1,55 @@
+package io.appwish.voteservice.dto.reply;
+
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Represents data to return for many items score query. Scores are kept in the order of the queried selectors.
+ * <p>
+ * Converted to protobuf in {@link io.appwish.voteservice.service.GrpcServiceImpl}, entry by entry.
+ */
+public class VoteScoresReply {
+
+  private Map<VoteSelector, Score> scores;
+
+  public VoteScoresReply(final Map<VoteSelector, Score> scores) {
+    this.scores = scores;
+  }
+
+  public VoteScoresReply() {
+  }
+
+  public Map<VoteSelector, Score> getScores() {
+    return scores;
+  }
+
+  public void setScores(final Map<VoteSelector, Score> scores) {
+    this.scores = scores;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    VoteScoresReply that = (VoteScoresReply) o;
+    return Objects.equals(scores, that.scores);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(scores);
+  }
+
+  @Override
+  public String toString() {
+    return "VoteScoresReply{" +
+        "scores=" + scores +
+        '}';
+  }
+}
@@ -0,0 +1,36 @@
+package io.appwish.voteservice.dto.type;
+
+/**
+ * Represents sizes of the time buckets score history is returned in.
+ * <p>
+ * Codes are used to pass the granularity on the event bus, so they must never change.
+ */
+public enum Granularity {
+  HOUR(0),
+  DAY(1);
+
+  private static final Granularity[] BY_CODE = new Granularity[values().length];
+
+  static {
+    for (final Granularity granularity : values()) {
+      BY_CODE[granularity.code] = granularity;
+    }
+  }
+
+  private final short code;
+
+  Granularity(final int code) {
+    this.code = (short) code;
+  }
+
+  public short code() {
+    return code;
+  }
+
+  public static Granularity fromCode(final int code) {
+    if (code < 0 || code >= BY_CODE.length) {
+      throw new IllegalArgumentException("Unknown granularity code: " + code);
+    }
+    return BY_CODE[code];
+  }
+}
@@ -2,8 +2,35 @@ package io.appwish.voteservice.dto.type;
 
 /**
  * Represents available types of items to vote on.
+ * <p>
+ * Codes are used to store the type in the database, so they must never change.
  */
 public enum ItemType {
-  COMMENT,
-  WISH
+  COMMENT(1),
+  WISH(0);
+
+  private static final ItemType[] BY_CODE = new ItemType[values().length];
+
+  static {
+    for (final ItemType type : values()) {
+      BY_CODE[type.code] = type;
+    }
+  }
+
+  private final short code;
+
+  ItemType(final int code) {
+    this.code = (short) code;
+  }
+
+  public short code() {
+    return code;
+  }
+
+  public static ItemType fromCode(final int code) {
+    if (code < 0 || code >= BY_CODE.length) {
+      throw new IllegalArgumentException("Unknown item type code: " + code);
+    }
+    return BY_CODE[code];
+  }
 }
@@ -0,0 +1,38 @@
+package io.appwish.voteservice.dto.type;
+
+/**
+ * Represents orders in which items can be ranked by their scores.
+ * <p>
+ * Codes are used to pass the order on the event bus, so they must never change.
+ */
+public enum ScoreOrder {
+  // Up votes minus down votes
+  SCORE(0),
+  // Wilson score lower bound of the share of up votes
+  CONFIDENCE(1);
+
+  private static final ScoreOrder[] BY_CODE = new ScoreOrder[values().length];
+
+  static {
+    for (final ScoreOrder order : values()) {
+      BY_CODE[order.code] = order;
+    }
+  }
+
+  private final short code;
+
+  ScoreOrder(final int code) {
+    this.code = (short) code;
+  }
+
+  public short code() {
+    return code;
+  }
+
+  public static ScoreOrder fromCode(final int code) {
+    if (code < 0 || code >= BY_CODE.length) {
+      throw new IllegalArgumentException("Unknown score order code: " + code);
+    }
+    return BY_CODE[code];
+  }
+}
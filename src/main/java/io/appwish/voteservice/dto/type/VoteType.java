@@ -2,8 +2,35 @@ package io.appwish.voteservice.dto.type;
 
 /**
  * Represents available types of votes.
+ * <p>
+ * Codes are used to store the type in the database, so they must never change.
  */
 public enum VoteType {
-  UP,
-  DOWN
+  UP(0),
+  DOWN(1);
+
+  private static final VoteType[] BY_CODE = new VoteType[values().length];
+
+  static {
+    for (final VoteType type : values()) {
+      BY_CODE[type.code] = type;
+    }
+  }
+
+  private final short code;
+
+  VoteType(final int code) {
+    this.code = (short) code;
+  }
+
+  public short code() {
+    return code;
+  }
+
+  public static VoteType fromCode(final int code) {
+    if (code < 0 || code >= BY_CODE.length) {
+      throw new IllegalArgumentException("Unknown vote type code: " + code);
+    }
+    return BY_CODE[code];
+  }
 }
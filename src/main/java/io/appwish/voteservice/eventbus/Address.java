@@ -8,7 +8,14 @@ public enum Address {
   UPDATE_VOTE,
   UNVOTE,
   HAS_VOTED,
-  VOTE_SCORE;
+  HAS_VOTED_MANY,
+  VOTE_SCORE,
+  VOTE_SCORES,
+  TOP_ITEMS,
+  TRENDING,
+  SCORE_HISTORY,
+  // Published with the new score of an item after a committed write changed it
+  SCORE_CHANGED;
 
   public String get() {
     return name();
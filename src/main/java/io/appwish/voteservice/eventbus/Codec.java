@@ -4,22 +4,38 @@ package io.appwish.voteservice.eventbus;
 import io.appwish.voteservice.dto.Score;
 import io.appwish.voteservice.dto.Vote;
 import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
+import io.appwish.voteservice.dto.query.TrendingQuery;
 import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.query.VoteSelectors;
+import io.appwish.voteservice.dto.reply.HasVotedManyReply;
+import io.appwish.voteservice.dto.reply.ScoreHistoryReply;
+import io.appwish.voteservice.dto.reply.TrendingReply;
+import io.appwish.voteservice.dto.reply.VoteScoresReply;
 import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.eventbus.MessageCodec;
 
 /**
- * These codecs can be used to enable passing custom Java objects on the local event bus.
+ * These codecs can be used to enable passing custom Java objects on the event bus.
  * <p>
- * To enable T type to be passed via the event bus, just create a new {@link LocalReferenceCodec}.
+ * To enable T type to be passed via the event bus, just create a new {@link LocalReferenceCodec} with a {@link WireFormat} of the type.
  * <p>
  * It's not enough to add the codec here - you need to register them on the event bus using {@link EventBus#registerCodec(MessageCodec)}.
  */
 public enum Codec {
-  VOTE(new LocalReferenceCodec<>(Vote.class)),
-  VOTE_INPUT(new LocalReferenceCodec<>(VoteInput.class)),
-  VOTE_SELECTOR(new LocalReferenceCodec<>(VoteSelector.class)),
-  SCORE(new LocalReferenceCodec<>(Score.class));
+  VOTE(new LocalReferenceCodec<>(Vote.class, WireFormats.VOTE)),
+  VOTE_INPUT(new LocalReferenceCodec<>(VoteInput.class, WireFormats.VOTE_INPUT)),
+  VOTE_SELECTOR(new LocalReferenceCodec<>(VoteSelector.class, WireFormats.VOTE_SELECTOR)),
+  VOTE_SELECTORS(new LocalReferenceCodec<>(VoteSelectors.class, WireFormats.VOTE_SELECTORS)),
+  TOP_ITEMS_QUERY(new LocalReferenceCodec<>(TopItemsQuery.class, WireFormats.TOP_ITEMS_QUERY)),
+  TRENDING_QUERY(new LocalReferenceCodec<>(TrendingQuery.class, WireFormats.TRENDING_QUERY)),
+  SCORE_HISTORY_QUERY(new LocalReferenceCodec<>(ScoreHistoryQuery.class, WireFormats.SCORE_HISTORY_QUERY)),
+  SCORE(new LocalReferenceCodec<>(Score.class, WireFormats.SCORE)),
+  VOTE_SCORES_REPLY(new LocalReferenceCodec<>(VoteScoresReply.class, WireFormats.VOTE_SCORES_REPLY)),
+  TRENDING_REPLY(new LocalReferenceCodec<>(TrendingReply.class, WireFormats.TRENDING_REPLY)),
+  SCORE_HISTORY_REPLY(new LocalReferenceCodec<>(ScoreHistoryReply.class, WireFormats.SCORE_HISTORY_REPLY)),
+  HAS_VOTED_MANY_REPLY(new LocalReferenceCodec<>(HasVotedManyReply.class, WireFormats.HAS_VOTED_MANY_REPLY));
 
   private final LocalReferenceCodec codec;
 
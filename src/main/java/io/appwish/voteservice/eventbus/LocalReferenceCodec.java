@@ -11,24 +11,26 @@ import io.vertx.core.eventbus.MessageCodec;
  * The {@link LocalReferenceCodec} transfer method is invoked during local event bus message exchange and just returns the object reference to avoid
  * any serialization.
  * <p>
- * You should use this class only to pass messages on a single JVM / locally.
+ * Messages sent to other nodes of a clustered event bus are serialized with given {@link WireFormat}.
  */
 public final class LocalReferenceCodec<T> implements MessageCodec<T, T> {
 
   private final Class<T> targetClass;
+  private final WireFormat<T> wireFormat;
 
-  LocalReferenceCodec(final Class<T> targetClass) {
+  LocalReferenceCodec(final Class<T> targetClass, final WireFormat<T> wireFormat) {
     this.targetClass = targetClass;
+    this.wireFormat = wireFormat;
   }
 
   @Override
   public void encodeToWire(final Buffer buffer, final T t) {
-    throw new UnsupportedOperationException();
+    wireFormat.write(buffer, t);
   }
 
   @Override
   public T decodeFromWire(final int pos, final Buffer buffer) {
-    throw new UnsupportedOperationException();
+    return wireFormat.read(buffer, new WireFormat.Cursor(pos));
   }
 
   @Override
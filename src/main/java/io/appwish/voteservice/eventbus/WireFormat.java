@@ -0,0 +1,37 @@
+package io.appwish.voteservice.eventbus;
+
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Binary layout of a type sent over the clustered event bus.
+ */
+public interface WireFormat<T> {
+
+  /**
+   * Appends given value to the buffer.
+   */
+  void write(final Buffer buffer, final T value);
+
+  /**
+   * Reads a value starting at given position of the buffer.
+   */
+  T read(final Buffer buffer, final Cursor cursor);
+
+  /**
+   * Position of the next byte to read.
+   */
+  final class Cursor {
+
+    private int position;
+
+    Cursor(final int position) {
+      this.position = position;
+    }
+
+    int advance(final int bytes) {
+      final int current = position;
+      position += bytes;
+      return current;
+    }
+  }
+}
@@ -0,0 +1,299 @@
+package io.appwish.voteservice.eventbus;
+
+import static java.util.Objects.isNull;
+
+import com.google.protobuf.Timestamp;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
+import io.appwish.voteservice.dto.query.TrendingQuery;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.query.VoteSelectors;
+import io.appwish.voteservice.dto.reply.HasVotedManyReply;
+import io.appwish.voteservice.dto.reply.ScoreHistoryReply;
+import io.appwish.voteservice.dto.reply.TrendingReply;
+import io.appwish.voteservice.dto.reply.VoteScoresReply;
+import io.appwish.voteservice.dto.type.Granularity;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.dto.type.ScoreOrder;
+import io.appwish.voteservice.dto.type.VoteType;
+import io.vertx.core.buffer.Buffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed binary layouts of the types passed on the event bus. Types are written as their codes and strings as their length followed by UTF-8 bytes.
+ * Nullable timestamps are written as a presence byte followed by seconds and nanos.
+ */
+final class WireFormats {
+
+  private static final int NULL_LENGTH = -1;
+
+  static final WireFormat<Score> SCORE = new WireFormat<Score>() {
+    @Override
+    public void write(final Buffer buffer, final Score value) {
+      buffer.appendLong(value.getUp()).appendLong(value.getDown()).appendLong(value.getVersion());
+    }
+
+    @Override
+    public Score read(final Buffer buffer, final WireFormat.Cursor cursor) {
+      return new Score(buffer.getLong(cursor.advance(Long.BYTES)), buffer.getLong(cursor.advance(Long.BYTES)),
+          buffer.getLong(cursor.advance(Long.BYTES)));
+    }
+  };
+
+  static final WireFormat<VoteSelector> VOTE_SELECTOR = new WireFormat<VoteSelector>() {
+    @Override
+    public void write(final Buffer buffer, final VoteSelector value) {
+      buffer.appendLong(value.getItemId()).appendShort(value.getItemType().code());
+    }
+
+    @Override
+    public VoteSelector read(final Buffer buffer, final WireFormat.Cursor cursor) {
+      return new VoteSelector(buffer.getLong(cursor.advance(Long.BYTES)), ItemType.fromCode(buffer.getShort(cursor.advance(Short.BYTES))));
+    }
+  };
+
+  static final WireFormat<VoteInput> VOTE_INPUT = new WireFormat<VoteInput>() {
+    @Override
+    public void write(final Buffer buffer, final VoteInput value) {
+      buffer.appendLong(value.getItemId()).appendShort(value.getItemType().code()).appendShort(value.getVoteType().code());
+    }
+
+    @Override
+    public VoteInput read(final Buffer buffer, final WireFormat.Cursor cursor) {
+      return new VoteInput(
+          buffer.getLong(cursor.advance(Long.BYTES)),
+          ItemType.fromCode(buffer.getShort(cursor.advance(Short.BYTES))),
+          VoteType.fromCode(buffer.getShort(cursor.advance(Short.BYTES))));
+    }
+  };
+
+  static final WireFormat<Vote> VOTE = new WireFormat<Vote>() {
+    @Override
+    public void write(final Buffer buffer, final Vote value) {
+      buffer.appendLong(value.getId()).appendLong(value.getItemId())
+          .appendShort(value.getItemType().code()).appendShort(value.getVoteType().code());
+      writeString(buffer, value.getUserId());
+      writeTimestamp(buffer, value.getCreatedAt());
+    }
+
+    @Override
+    public Vote read(final Buffer buffer, final WireFormat.Cursor cursor) {
+      final long id = buffer.getLong(cursor.advance(Long.BYTES));
+      final long itemId = buffer.getLong(cursor.advance(Long.BYTES));
+      final ItemType itemType = ItemType.fromCode(buffer.getShort(cursor.advance(Short.BYTES)));
+      final VoteType voteType = VoteType.fromCode(buffer.getShort(cursor.advance(Short.BYTES)));
+      final String userId = readString(buffer, cursor);
+      final Timestamp createdAt = readTimestamp(buffer, cursor);
+      return new Vote(id, userId, itemId, itemType, voteType, createdAt);
+    }
+  };
+
+  static final WireFormat<VoteSelectors> VOTE_SELECTORS = new WireFormat<VoteSelectors>() {
+    @Override
+    public void write(final Buffer buffer, final VoteSelectors value) {
+      buffer.appendInt(value.getSelectors().size());
+      value.getSelectors().forEach(selector -> VOTE_SELECTOR.write(buffer, selector));
+    }
+
+    @Override
+    public VoteSelectors read(final Buffer buffer, final WireFormat.Cursor cursor) {
+      final int size = buffer.getInt(cursor.advance(Integer.BYTES));
+      final List<VoteSelector> selectors = new ArrayList<>(size);
+
+      for (int i = 0; i < size; i++) {
+        selectors.add(VOTE_SELECTOR.read(buffer, cursor));
+      }
+
+      return new VoteSelectors(selectors);
+    }
+  };
+
+  static final WireFormat<TopItemsQuery> TOP_ITEMS_QUERY = new WireFormat<TopItemsQuery>() {
+    @Override
+    public void write(final Buffer buffer, final TopItemsQuery value) {
+      buffer.appendShort(value.getItemType().code()).appendInt(value.getLimit()).appendInt(value.getOffset()).appendShort(value.getOrder().code());
+    }
+
+    @Override
+    public TopItemsQuery read(final Buffer buffer, final WireFormat.Cursor cursor) {
+      return new TopItemsQuery(
+          ItemType.fromCode(buffer.getShort(cursor.advance(Short.BYTES))),
+          buffer.getInt(cursor.advance(Integer.BYTES)),
+          buffer.getInt(cursor.advance(Integer.BYTES)),
+          ScoreOrder.fromCode(buffer.getShort(cursor.advance(Short.BYTES))));
+    }
+  };
+
+  static final WireFormat<TrendingQuery> TRENDING_QUERY = new WireFormat<TrendingQuery>() {
+    @Override
+    public void write(final Buffer buffer, final TrendingQuery value) {
+      buffer.appendShort(value.getItemType().code()).appendInt(value.getLimit());
+    }
+
+    @Override
+    public TrendingQuery read(final Buffer buffer, final WireFormat.Cursor cursor) {
+      return new TrendingQuery(ItemType.fromCode(buffer.getShort(cursor.advance(Short.BYTES))), buffer.getInt(cursor.advance(Integer.BYTES)));
+    }
+  };
+
+  static final WireFormat<ScoreHistoryQuery> SCORE_HISTORY_QUERY = new WireFormat<ScoreHistoryQuery>() {
+    @Override
+    public void write(final Buffer buffer, final ScoreHistoryQuery value) {
+      VOTE_SELECTOR.write(buffer, value.getSelector());
+      writeTimestamp(buffer, value.getFrom());
+      writeTimestamp(buffer, value.getTo());
+      buffer.appendShort(value.getGranularity().code());
+    }
+
+    @Override
+    public ScoreHistoryQuery read(final Buffer buffer, final WireFormat.Cursor cursor) {
+      return new ScoreHistoryQuery(
+          VOTE_SELECTOR.read(buffer, cursor),
+          readTimestamp(buffer, cursor),
+          readTimestamp(buffer, cursor),
+          Granularity.fromCode(buffer.getShort(cursor.advance(Short.BYTES))));
+    }
+  };
+
+  static final WireFormat<VoteScoresReply> VOTE_SCORES_REPLY = new WireFormat<VoteScoresReply>() {
+    @Override
+    public void write(final Buffer buffer, final VoteScoresReply value) {
+      buffer.appendInt(value.getScores().size());
+      value.getScores().forEach((selector, score) -> {
+        VOTE_SELECTOR.write(buffer, selector);
+        SCORE.write(buffer, score);
+      });
+    }
+
+    @Override
+    public VoteScoresReply read(final Buffer buffer, final WireFormat.Cursor cursor) {
+      final int size = buffer.getInt(cursor.advance(Integer.BYTES));
+      final Map<VoteSelector, Score> scores = new LinkedHashMap<>();
+
+      for (int i = 0; i < size; i++) {
+        scores.put(VOTE_SELECTOR.read(buffer, cursor), SCORE.read(buffer, cursor));
+      }
+
+      return new VoteScoresReply(scores);
+    }
+  };
+
+  static final WireFormat<TrendingReply> TRENDING_REPLY = new WireFormat<TrendingReply>() {
+    @Override
+    public void write(final Buffer buffer, final TrendingReply value) {
+      buffer.appendInt(value.getScores().size());
+      value.getScores().forEach((selector, score) -> {
+        VOTE_SELECTOR.write(buffer, selector);
+        buffer.appendDouble(score);
+      });
+    }
+
+    @Override
+    public TrendingReply read(final Buffer buffer, final WireFormat.Cursor cursor) {
+      final int size = buffer.getInt(cursor.advance(Integer.BYTES));
+      final Map<VoteSelector, Double> scores = new LinkedHashMap<>();
+
+      for (int i = 0; i < size; i++) {
+        scores.put(VOTE_SELECTOR.read(buffer, cursor), buffer.getDouble(cursor.advance(Double.BYTES)));
+      }
+
+      return new TrendingReply(scores);
+    }
+  };
+
+  static final WireFormat<ScoreHistoryReply> SCORE_HISTORY_REPLY = new WireFormat<ScoreHistoryReply>() {
+    @Override
+    public void write(final Buffer buffer, final ScoreHistoryReply value) {
+      buffer.appendInt(value.getBuckets().size());
+      value.getBuckets().forEach((start, score) -> {
+        writeTimestamp(buffer, start);
+        SCORE.write(buffer, score);
+      });
+    }
+
+    @Override
+    public ScoreHistoryReply read(final Buffer buffer, final WireFormat.Cursor cursor) {
+      final int size = buffer.getInt(cursor.advance(Integer.BYTES));
+      final Map<Timestamp, Score> buckets = new LinkedHashMap<>();
+
+      for (int i = 0; i < size; i++) {
+        buckets.put(readTimestamp(buffer, cursor), SCORE.read(buffer, cursor));
+      }
+
+      return new ScoreHistoryReply(buckets);
+    }
+  };
+
+  static final WireFormat<HasVotedManyReply> HAS_VOTED_MANY_REPLY = new WireFormat<HasVotedManyReply>() {
+    @Override
+    public void write(final Buffer buffer, final HasVotedManyReply value) {
+      buffer.appendInt(value.getVotes().size());
+      value.getVotes().forEach((selector, voteType) -> {
+        VOTE_SELECTOR.write(buffer, selector);
+        buffer.appendShort(voteType.code());
+      });
+    }
+
+    @Override
+    public HasVotedManyReply read(final Buffer buffer, final WireFormat.Cursor cursor) {
+      final int size = buffer.getInt(cursor.advance(Integer.BYTES));
+      final Map<VoteSelector, VoteType> votes = new LinkedHashMap<>();
+
+      for (int i = 0; i < size; i++) {
+        votes.put(VOTE_SELECTOR.read(buffer, cursor), VoteType.fromCode(buffer.getShort(cursor.advance(Short.BYTES))));
+      }
+
+      return new HasVotedManyReply(votes);
+    }
+  };
+
+  private WireFormats() {
+  }
+
+  private static void writeString(final Buffer buffer, final String value) {
+    if (isNull(value)) {
+      buffer.appendInt(NULL_LENGTH);
+      return;
+    }
+
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    buffer.appendInt(bytes.length).appendBytes(bytes);
+  }
+
+  private static void writeTimestamp(final Buffer buffer, final Timestamp value) {
+    if (isNull(value)) {
+      buffer.appendByte((byte) 0);
+    } else {
+      buffer.appendByte((byte) 1).appendLong(value.getSeconds()).appendInt(value.getNanos());
+    }
+  }
+
+  private static Timestamp readTimestamp(final Buffer buffer, final WireFormat.Cursor cursor) {
+    if (buffer.getByte(cursor.advance(Byte.BYTES)) == 0) {
+      return null;
+    }
+
+    return Timestamp.newBuilder()
+        .setSeconds(buffer.getLong(cursor.advance(Long.BYTES)))
+        .setNanos(buffer.getInt(cursor.advance(Integer.BYTES)))
+        .build();
+  }
+
+  private static String readString(final Buffer buffer, final WireFormat.Cursor cursor) {
+    final int length = buffer.getInt(cursor.advance(Integer.BYTES));
+
+    if (length == NULL_LENGTH) {
+      return null;
+    }
+
+    final int start = cursor.advance(length);
+    return buffer.getString(start, start + length, StandardCharsets.UTF_8.name());
+  }
+}
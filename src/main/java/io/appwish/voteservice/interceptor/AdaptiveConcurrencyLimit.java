@@ -0,0 +1,86 @@
+package io.appwish.voteservice.interceptor;
+
+/**
+ * Concurrency limit adapting to observed latency, based on the gradient between the long-term average latency and the latency of each call.
+ * <p>
+ * While calls are as fast as usual the limit grows by a small queue allowance, so that it keeps probing for more capacity. Once calls get slower the
+ * limit shrinks proportionally, down to half per call, so that fewer calls wait on a saturated database. Dropped calls (cancelled or timed out)
+ * shrink the limit multiplicatively regardless of their latency.
+ */
+public class AdaptiveConcurrencyLimit {
+
+  // Latency below this multiple of the long-term average isn't considered a slowdown
+  private static final double TOLERANCE = 1.5;
+  private static final double SMOOTHING = 0.2;
+  private static final double BACKOFF_RATIO = 0.9;
+  private static final int LONG_WINDOW = 600;
+
+  private final int minLimit;
+  private final int maxLimit;
+
+  private double limit;
+  private double longRttNanos;
+  private int inFlight;
+
+  public AdaptiveConcurrencyLimit(final int initialLimit, final int minLimit, final int maxLimit) {
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+  }
+
+  /**
+   * Reserves a slot for a call. Returns false if the limit has been reached and the call should be rejected.
+   */
+  public synchronized boolean tryAcquire() {
+    if (inFlight >= (int) limit) {
+      return false;
+    }
+
+    inFlight++;
+    return true;
+  }
+
+  /**
+   * Releases the slot of a completed call and adapts the limit to its latency.
+   */
+  public synchronized void release(final long rttNanos, final boolean dropped) {
+    final int used = inFlight;
+    inFlight--;
+
+    if (dropped) {
+      limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+      return;
+    }
+
+    if (longRttNanos == 0) {
+      longRttNanos = rttNanos;
+    } else {
+      longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+    }
+
+    // Once latency recovers, the average shouldn't keep the limit down for a whole window
+    if (longRttNanos > 2 * rttNanos) {
+      longRttNanos *= 0.95;
+    }
+
+    final double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / Math.max(1, rttNanos)));
+    final double queueSize = Math.sqrt(limit);
+    double newLimit = limit * gradient + queueSize;
+
+    // Calls which didn't use most of the limit say nothing about whether a higher one would be sustainable
+    if (newLimit > limit && used < limit / 2) {
+      return;
+    }
+
+    newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+    limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+  }
+
+  public synchronized int limit() {
+    return (int) limit;
+  }
+
+  public synchronized int inFlight() {
+    return inFlight;
+  }
+}
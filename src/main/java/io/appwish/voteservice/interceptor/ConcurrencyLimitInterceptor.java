@@ -0,0 +1,90 @@
+package io.appwish.voteservice.interceptor;
+
+import io.appwish.grpc.VoteServiceGrpc;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Intercepts gRPC requests and rejects them with RESOURCE_EXHAUSTED once too many are in progress, instead of letting them queue up behind a slow
+ * database.
+ * <p>
+ * Writes and reads have separate limits, so that a burst of one can't starve the other. Streaming calls aren't limited.
+ */
+public class ConcurrencyLimitInterceptor implements ServerInterceptor {
+
+  private static final Set<String> WRITE_METHODS = new HashSet<>(Arrays.asList(
+      VoteServiceGrpc.getVoteMethod().getFullMethodName(), VoteServiceGrpc.getUnvoteMethod().getFullMethodName()));
+  private static final Set<Status.Code> DROPPED = new HashSet<>(Arrays.asList(
+      Status.Code.CANCELLED, Status.Code.DEADLINE_EXCEEDED, Status.Code.RESOURCE_EXHAUSTED, Status.Code.UNAVAILABLE));
+
+  private final AdaptiveConcurrencyLimit readLimit;
+  private final AdaptiveConcurrencyLimit writeLimit;
+  private final AtomicLong rejected = new AtomicLong();
+
+  public ConcurrencyLimitInterceptor(final AdaptiveConcurrencyLimit readLimit, final AdaptiveConcurrencyLimit writeLimit) {
+    this.readLimit = readLimit;
+    this.writeLimit = writeLimit;
+  }
+
+  @Override
+  public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+      final ServerCall<ReqT, RespT> call,
+      final Metadata headers,
+      final ServerCallHandler<ReqT, RespT> next
+  ) {
+    // Streams stay open for as long as the client watches, so they'd hold a slot indefinitely and skew the latency the limits adapt to
+    if (call.getMethodDescriptor().getType() != MethodDescriptor.MethodType.UNARY) {
+      return next.startCall(call, headers);
+    }
+
+    final AdaptiveConcurrencyLimit limit = WRITE_METHODS.contains(call.getMethodDescriptor().getFullMethodName()) ? writeLimit : readLimit;
+
+    if (!limit.tryAcquire()) {
+      rejected.incrementAndGet();
+      call.close(Status.RESOURCE_EXHAUSTED.withDescription("Too many concurrent requests, retry later"), new Metadata());
+      return new ServerCall.Listener<ReqT>() {
+      };
+    }
+
+    final long start = System.nanoTime();
+    final AtomicBoolean released = new AtomicBoolean();
+
+    final ServerCall<ReqT, RespT> limitedCall = new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(call) {
+      @Override
+      public void close(final Status status, final Metadata trailers) {
+        if (released.compareAndSet(false, true)) {
+          limit.release(System.nanoTime() - start, DROPPED.contains(status.getCode()));
+        }
+        super.close(status, trailers);
+      }
+    };
+
+    return new ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT>(next.startCall(limitedCall, headers)) {
+      @Override
+      public void onCancel() {
+        if (released.compareAndSet(false, true)) {
+          limit.release(System.nanoTime() - start, true);
+        }
+        super.onCancel();
+      }
+    };
+  }
+
+  /**
+   * Returns how many requests have been rejected.
+   */
+  public long rejected() {
+    return rejected.get();
+  }
+}
@@ -0,0 +1,54 @@
+package io.appwish.voteservice.interceptor;
+
+import io.appwish.voteservice.metrics.LatencyHistogram;
+import io.appwish.voteservice.metrics.Metrics;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Intercepts gRPC requests and records their latency and status code per method.
+ * <p>
+ * Calls cancelled by the client are recorded as CANCELLED at the time of cancellation.
+ */
+public class MetricsInterceptor implements ServerInterceptor {
+
+  @Override
+  public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+      final ServerCall<ReqT, RespT> call,
+      final Metadata headers,
+      final ServerCallHandler<ReqT, RespT> next
+  ) {
+    final String method = call.getMethodDescriptor().getFullMethodName();
+    final LatencyHistogram latency = Metrics.RPC_LATENCY.labels(method);
+    final long start = System.nanoTime();
+    final AtomicBoolean recorded = new AtomicBoolean();
+
+    final ServerCall<ReqT, RespT> meteredCall = new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(call) {
+      @Override
+      public void close(final Status status, final Metadata trailers) {
+        if (recorded.compareAndSet(false, true)) {
+          latency.record(System.nanoTime() - start);
+          Metrics.RPC_HANDLED.labels(method, status.getCode().name()).increment();
+        }
+        super.close(status, trailers);
+      }
+    };
+
+    return new ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT>(next.startCall(meteredCall, headers)) {
+      @Override
+      public void onCancel() {
+        if (recorded.compareAndSet(false, true)) {
+          latency.record(System.nanoTime() - start);
+          Metrics.RPC_HANDLED.labels(method, Status.Code.CANCELLED.name()).increment();
+        }
+        super.onCancel();
+      }
+    };
+  }
+}
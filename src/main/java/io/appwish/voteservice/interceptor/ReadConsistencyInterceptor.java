@@ -0,0 +1,30 @@
+package io.appwish.voteservice.interceptor;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+/**
+ * Intercepts gRPC requests and puts into current context whether reads should see the caller's own writes.
+ * <p>
+ * Reads are served by a replica by default, which may lag behind the writes.
+ */
+public class ReadConsistencyInterceptor implements ServerInterceptor {
+
+  public static final String READ_YOUR_WRITES = "readYourWrites";
+  public static final Context.Key<Boolean> READ_YOUR_WRITES_CONTEXT = Context.keyWithDefault(READ_YOUR_WRITES, false);
+
+  @Override
+  public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+      final ServerCall<ReqT, RespT> call,
+      final Metadata headers,
+      final ServerCallHandler<ReqT, RespT> next
+  ) {
+    final String readYourWrites = headers.get(Metadata.Key.of(READ_YOUR_WRITES, Metadata.ASCII_STRING_MARSHALLER));
+    final Context context = Context.current().withValue(READ_YOUR_WRITES_CONTEXT, Boolean.parseBoolean(readYourWrites));
+    return Contexts.interceptCall(context, call, headers, next);
+  }
+}
@@ -0,0 +1,50 @@
+package io.appwish.voteservice.metrics;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Family of counters sharing a name, one for each combination of values of their two labels.
+ */
+public class Counters {
+
+  private final String name;
+  private final String help;
+  private final String firstLabel;
+  private final String secondLabel;
+  private final Map<String, Map<String, LongAdder>> counters = new ConcurrentHashMap<>();
+
+  public Counters(final String name, final String help, final String firstLabel, final String secondLabel) {
+    this.name = name;
+    this.help = help;
+    this.firstLabel = firstLabel;
+    this.secondLabel = secondLabel;
+  }
+
+  /**
+   * Returns the counter for given label values. Callers on the hot path should pass constant values, e.g. enum names, to avoid allocating.
+   */
+  public LongAdder labels(final String first, final String second) {
+    Map<String, LongAdder> byFirst = counters.get(first);
+
+    if (isNull(byFirst)) {
+      byFirst = counters.computeIfAbsent(first, key -> new ConcurrentHashMap<>());
+    }
+
+    final LongAdder counter = byFirst.get(second);
+    return nonNull(counter) ? counter : byFirst.computeIfAbsent(second, key -> new LongAdder());
+  }
+
+  void write(final StringBuilder out) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(" counter\n");
+    new TreeMap<>(counters).forEach((first, byFirst) -> new TreeMap<>(byFirst).forEach((second, counter) -> out.append(name)
+        .append('{').append(Metrics.label(firstLabel, first)).append(',').append(Metrics.label(secondLabel, second)).append("} ")
+        .append(counter.sum()).append('\n')));
+  }
+}
@@ -0,0 +1,134 @@
+package io.appwish.voteservice.metrics;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram with fixed buckets from 16 microseconds up to about 33 seconds.
+ * <p>
+ * Like an HDR histogram with three significant binary digits, every power of two is split into eight linear sub-buckets, so every recorded latency
+ * is within 12.5% of its bucket's upper bound. Recording only increments atomic counters, so it's lock-free and doesn't allocate.
+ */
+public class LatencyHistogram {
+
+  private static final int MIN_EXPONENT = 4;
+  private static final int MAX_EXPONENT = 25;
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // The first bucket counts everything up to 2^MIN_EXPONENT microseconds, every power of two above it has its sub-buckets
+  static final int BUCKETS = 1 + (MAX_EXPONENT - MIN_EXPONENT) * SUB_BUCKETS;
+  private static final long[] UPPER_BOUND_MICROS = new long[BUCKETS];
+  private static final String[] UPPER_BOUNDS = new String[BUCKETS];
+
+  static {
+    UPPER_BOUND_MICROS[0] = 1L << MIN_EXPONENT;
+
+    for (int i = 1; i < BUCKETS; i++) {
+      final int exponent = MIN_EXPONENT + (i - 1) / SUB_BUCKETS;
+      UPPER_BOUND_MICROS[i] = (1L << exponent) + ((i - 1) % SUB_BUCKETS + 1) * (1L << (exponent - SUB_BUCKET_BITS));
+    }
+
+    for (int i = 0; i < BUCKETS; i++) {
+      UPPER_BOUNDS[i] = BigDecimal.valueOf(UPPER_BOUND_MICROS[i], 6).stripTrailingZeros().toPlainString();
+    }
+  }
+
+  // The last bucket counts latencies above the upper bound of all the others
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS + 1);
+  private final AtomicLong sumNanos = new AtomicLong();
+
+  public void record(final long nanos) {
+    final long positive = Math.max(0, nanos);
+    counts.incrementAndGet(bucket(positive / 1000));
+    sumNanos.addAndGet(positive);
+  }
+
+  /**
+   * Returns how many latencies have been recorded.
+   */
+  public long count() {
+    long count = 0;
+
+    for (int i = 0; i <= BUCKETS; i++) {
+      count += counts.get(i);
+    }
+
+    return count;
+  }
+
+  /**
+   * Returns the upper bound of the bucket containing given quantile of recorded latencies in nanoseconds, or zero if nothing has been recorded.
+   * Returns Long.MAX_VALUE if the quantile falls above the upper bound of all buckets.
+   */
+  public long quantileNanos(final double quantile) {
+    final long count = count();
+
+    if (count == 0) {
+      return 0;
+    }
+
+    final long rank = Math.max(1, (long) Math.ceil(quantile * count));
+    long cumulative = 0;
+
+    for (int i = 0; i < BUCKETS; i++) {
+      cumulative += counts.get(i);
+
+      if (cumulative >= rank) {
+        return UPPER_BOUND_MICROS[i] * 1000;
+      }
+    }
+
+    return Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns the sum of recorded latencies in nanoseconds.
+   */
+  public long sumNanos() {
+    return sumNanos.get();
+  }
+
+  /**
+   * Returns how many latencies have been recorded in given bucket.
+   */
+  long bucketCount(final int bucket) {
+    return counts.get(bucket);
+  }
+
+  /**
+   * Returns index of the bucket counting given latency. Upper bounds of buckets are inclusive, so latencies are counted from one above a bound.
+   */
+  static int bucket(final long micros) {
+    if (micros <= 1L << MIN_EXPONENT) {
+      return 0;
+    }
+
+    final long above = micros - 1;
+    final int exponent = 63 - Long.numberOfLeadingZeros(above);
+
+    if (exponent >= MAX_EXPONENT) {
+      return BUCKETS;
+    }
+
+    final int subBucket = (int) (above >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return 1 + (exponent - MIN_EXPONENT) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Appends the histogram in Prometheus text format. Labels are given as rendered pairs, e.g. {@code method="Vote"}.
+   */
+  void write(final StringBuilder out, final String name, final String labels) {
+    long cumulative = 0;
+
+    for (int i = 0; i < BUCKETS; i++) {
+      cumulative += counts.get(i);
+      out.append(name).append("_bucket{").append(labels).append(",le=\"").append(UPPER_BOUNDS[i]).append("\"} ").append(cumulative).append('\n');
+    }
+
+    cumulative += counts.get(BUCKETS);
+    out.append(name).append("_bucket{").append(labels).append(",le=\"+Inf\"} ").append(cumulative).append('\n');
+    out.append(name).append("_sum{").append(labels).append("} ").append(sumNanos.get() / 1e9).append('\n');
+    out.append(name).append("_count{").append(labels).append("} ").append(cumulative).append('\n');
+  }
+}
@@ -0,0 +1,38 @@
+package io.appwish.voteservice.metrics;
+
+import static java.util.Objects.nonNull;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Family of latency histograms sharing a name, one for each value of their label.
+ */
+public class LatencyHistograms {
+
+  private final String name;
+  private final String help;
+  private final String label;
+  private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+  public LatencyHistograms(final String name, final String help, final String label) {
+    this.name = name;
+    this.help = help;
+    this.label = label;
+  }
+
+  /**
+   * Returns the histogram for given label value. Callers on the hot path should pass constant values, e.g. enum names, to avoid allocating.
+   */
+  public LatencyHistogram labels(final String value) {
+    final LatencyHistogram histogram = histograms.get(value);
+    return nonNull(histogram) ? histogram : histograms.computeIfAbsent(value, key -> new LatencyHistogram());
+  }
+
+  void write(final StringBuilder out) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(" histogram\n");
+    new TreeMap<>(histograms).forEach((value, histogram) -> histogram.write(out, name, Metrics.label(label, value)));
+  }
+}
@@ -0,0 +1,99 @@
+package io.appwish.voteservice.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics of the service, shared by all verticle instances and rendered in Prometheus text format by {@link #scrape()}.
+ * <p>
+ * Latencies and counters are recorded on the hot path. Other values are sampled from their sources only when scraped.
+ */
+public final class Metrics {
+
+  public static final LatencyHistograms RPC_LATENCY = new LatencyHistograms(
+      "grpc_server_handling_seconds", "Time from receiving a gRPC call until closing it.", "method");
+  public static final Counters RPC_HANDLED = new Counters(
+      "grpc_server_handled_total", "gRPC calls closed, by status code.", "method", "code");
+  public static final LatencyHistograms EVENT_BUS_LATENCY = new LatencyHistograms(
+      "eventbus_request_seconds", "Round trip time of event bus requests, as seen by the sender.", "address");
+  public static final LatencyHistograms EVENT_BUS_CONSUMER_LATENCY = new LatencyHistograms(
+      "eventbus_consumer_seconds", "Time from receiving an event bus request until replying to it.", "address");
+  public static final LatencyHistograms QUERY_LATENCY = new LatencyHistograms(
+      "postgres_query_seconds", "Time from sending a query on an acquired connection until its result.", "query");
+  public static final LatencyHistograms POOL_WAIT_LATENCY = new LatencyHistograms(
+      "postgres_pool_wait_seconds", "Time from requesting a connection from a pool until acquiring it.", "pool");
+  public static final Counters DEADLINE_EXPIRED = new Counters(
+      "deadline_expired_total", "Operations skipped because their deadline expired before they were executed, by where they were skipped.",
+      "operation", "stage");
+  public static final PoolUsage PRIMARY_POOL = new PoolUsage(POOL_WAIT_LATENCY.labels("primary"));
+  public static final PoolUsage READ_POOL = new PoolUsage(POOL_WAIT_LATENCY.labels("read"));
+
+  private static final Map<String, Sampled> SAMPLED = new ConcurrentSkipListMap<>();
+
+  private Metrics() {
+  }
+
+  /**
+   * Registers a counter read from given source when scraped. Registering the same name again replaces the source.
+   */
+  public static void counter(final String name, final String help, final LongSupplier source) {
+    SAMPLED.put(name, new Sampled(help, "counter", source));
+  }
+
+  /**
+   * Registers a gauge read from given source when scraped. Registering the same name again replaces the source.
+   */
+  public static void gauge(final String name, final String help, final LongSupplier source) {
+    SAMPLED.put(name, new Sampled(help, "gauge", source));
+  }
+
+  /**
+   * Renders all metrics in Prometheus text format.
+   */
+  public static String scrape() {
+    final StringBuilder out = new StringBuilder(16 * 1024);
+
+    RPC_LATENCY.write(out);
+    RPC_HANDLED.write(out);
+    EVENT_BUS_LATENCY.write(out);
+    EVENT_BUS_CONSUMER_LATENCY.write(out);
+    QUERY_LATENCY.write(out);
+    POOL_WAIT_LATENCY.write(out);
+    DEADLINE_EXPIRED.write(out);
+
+    out.append("# HELP postgres_pool_connections_in_use Connections acquired and not released yet, summed over the pools of all instances.\n");
+    out.append("# TYPE postgres_pool_connections_in_use gauge\n");
+    out.append("postgres_pool_connections_in_use{pool=\"primary\"} ").append(PRIMARY_POOL.inUse()).append('\n');
+    out.append("postgres_pool_connections_in_use{pool=\"read\"} ").append(READ_POOL.inUse()).append('\n');
+    out.append("# HELP postgres_pool_waiting Connections requested and not acquired yet, summed over the pools of all instances.\n");
+    out.append("# TYPE postgres_pool_waiting gauge\n");
+    out.append("postgres_pool_waiting{pool=\"primary\"} ").append(PRIMARY_POOL.waiting()).append('\n');
+    out.append("postgres_pool_waiting{pool=\"read\"} ").append(READ_POOL.waiting()).append('\n');
+
+    SAMPLED.forEach((name, sampled) -> {
+      out.append("# HELP ").append(name).append(' ').append(sampled.help).append('\n');
+      out.append("# TYPE ").append(name).append(' ').append(sampled.type).append('\n');
+      out.append(name).append(' ').append(sampled.source.getAsLong()).append('\n');
+    });
+
+    return out.toString();
+  }
+
+  static String label(final String name, final String value) {
+    return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + '"';
+  }
+
+  private static final class Sampled {
+
+    private final String help;
+    private final String type;
+    private final LongSupplier source;
+
+    private Sampled(final String help, final String type, final LongSupplier source) {
+      this.help = help;
+      this.type = type;
+      this.source = source;
+    }
+  }
+}
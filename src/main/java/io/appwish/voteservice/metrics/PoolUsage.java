@@ -0,0 +1,58 @@
+package io.appwish.voteservice.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection usage of the pools of one role (e.g. all write pools), summed over the pools of all verticle instances.
+ * <p>
+ * The pg client doesn't expose the state of its pools, so connections are counted as they are requested from the pools, acquired and released.
+ * The time spent waiting for a connection is recorded separately from the time of the queries executed on it.
+ */
+public class PoolUsage {
+
+  private final LatencyHistogram waitLatency;
+  private final AtomicInteger waiting = new AtomicInteger();
+  private final AtomicInteger inUse = new AtomicInteger();
+
+  public PoolUsage(final LatencyHistogram waitLatency) {
+    this.waitLatency = waitLatency;
+  }
+
+  public void requested() {
+    waiting.incrementAndGet();
+  }
+
+  /**
+   * Counts a requested connection as acquired after waiting for it for given time.
+   */
+  public void acquired(final long waitNanos) {
+    waiting.decrementAndGet();
+    inUse.incrementAndGet();
+    waitLatency.record(waitNanos);
+  }
+
+  /**
+   * Stops counting a requested connection which couldn't be acquired, e.g. because the wait queue of the pool was full.
+   */
+  public void notAcquired() {
+    waiting.decrementAndGet();
+  }
+
+  public void released() {
+    inUse.decrementAndGet();
+  }
+
+  /**
+   * Returns how many connections have been acquired and not released yet.
+   */
+  public int inUse() {
+    return inUse.get();
+  }
+
+  /**
+   * Returns how many connections have been requested and not acquired yet.
+   */
+  public int waiting() {
+    return waiting.get();
+  }
+}
@@ -0,0 +1,55 @@
+package io.appwish.voteservice.repository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time after which the caller is no longer interested in the result of an operation. Work which hasn't started before the deadline is
+ * skipped instead of executed.
+ * <p>
+ * Deadlines are measured with {@link System#nanoTime()}, so they only make sense within one JVM. They cross the event bus as the remaining
+ * timeout.
+ */
+public final class Deadline {
+
+  /**
+   * Deadline which never expires.
+   */
+  public static final Deadline NONE = new Deadline(0);
+
+  private final long expiresAtNanos;
+
+  private Deadline(final long expiresAtNanos) {
+    this.expiresAtNanos = expiresAtNanos;
+  }
+
+  /**
+   * Creates a deadline expiring after given timeout from now.
+   */
+  public static Deadline after(final long timeout, final TimeUnit unit) {
+    return new Deadline(System.nanoTime() + unit.toNanos(timeout));
+  }
+
+  public boolean isSet() {
+    return this != NONE;
+  }
+
+  public boolean isExpired() {
+    return isSet() && System.nanoTime() - expiresAtNanos >= 0;
+  }
+
+  /**
+   * Returns how much time is left until the deadline, zero if it has already expired.
+   */
+  public long remaining(final TimeUnit unit) {
+    if (!isSet()) {
+      return Long.MAX_VALUE;
+    }
+
+    return unit.convert(Math.max(0, expiresAtNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    return isSet() ? "Deadline{remainingMillis=" + remaining(TimeUnit.MILLISECONDS) + '}' : "Deadline{none}";
+  }
+}
@@ -0,0 +1,11 @@
+package io.appwish.voteservice.repository;
+
+/**
+ * Signals that an operation has been skipped, because its deadline expired before it could be executed.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+  public DeadlineExceededException(final String operation) {
+    super("Deadline expired before executing " + operation);
+  }
+}
@@ -0,0 +1,103 @@
+package io.appwish.voteservice.repository;
+
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Change of the vote counters of an item made by a committed write. Changes are relative, so they can be applied in any order.
+ * <p>
+ * A write changes a single vote, so the change also carries the creation time of that vote. Vote type changes keep the creation time.
+ * <p>
+ * Changes made by the repository also carry the counters of the item after the write and their version, so the current score is known without
+ * reading it back and scores of the same item can be ordered.
+ */
+public final class ScoreChange {
+
+  private final VoteSelector selector;
+  private final long up;
+  private final long down;
+  private final LocalDateTime createdAt;
+  private final Score score;
+
+  public ScoreChange(final VoteSelector selector, final long up, final long down, final LocalDateTime createdAt) {
+    this(selector, up, down, createdAt, null);
+  }
+
+  public ScoreChange(final VoteSelector selector, final long up, final long down, final LocalDateTime createdAt, final Score score) {
+    this.selector = selector;
+    this.up = up;
+    this.down = down;
+    this.createdAt = createdAt;
+    this.score = score;
+  }
+
+  public VoteSelector getSelector() {
+    return selector;
+  }
+
+  /**
+   * Returns how much the count of up votes has changed.
+   */
+  public long getUp() {
+    return up;
+  }
+
+  /**
+   * Returns how much the count of down votes has changed.
+   */
+  public long getDown() {
+    return down;
+  }
+
+  /**
+   * Returns when the changed vote was created.
+   */
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  /**
+   * Returns the counters of the item after the change or null if they aren't known.
+   */
+  public Score getScore() {
+    return score;
+  }
+
+  public boolean isEmpty() {
+    return up == 0 && down == 0;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ScoreChange that = (ScoreChange) o;
+    return up == that.up &&
+        down == that.down &&
+        Objects.equals(selector, that.selector) &&
+        Objects.equals(createdAt, that.createdAt) &&
+        Objects.equals(score, that.score);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(selector, up, down, createdAt, score);
+  }
+
+  @Override
+  public String toString() {
+    return "ScoreChange{" +
+        "selector=" + selector +
+        ", up=" + up +
+        ", down=" + down +
+        ", createdAt=" + createdAt +
+        ", score=" + score +
+        '}';
+  }
+}
@@ -1,38 +1,192 @@
 package io.appwish.voteservice.repository;
 
+import com.google.protobuf.Timestamp;
 import io.appwish.voteservice.dto.Score;
 import io.appwish.voteservice.dto.Vote;
 import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
+import io.appwish.voteservice.dto.query.TrendingQuery;
 import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.VoteType;
 import io.vertx.core.Future;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for interaction with vote persistence layer
+ * <p>
+ * Reads may be served by a replica lagging behind the writes, unless readYourWrites is requested.
+ * <p>
+ * Operations not started before their {@link Deadline} fail with {@link DeadlineExceededException} without being executed. Writes still running
+ * when it expires are aborted by Postgres, reads once the statement timeout of the connection passes.
  */
 public interface VoteRepository {
 
   /**
    * Persists user's vote in the database.
    */
-  Future<Vote> vote(final VoteInput input, final String userId);
+  default Future<Vote> vote(final VoteInput input, final String userId) {
+    return vote(input, userId, Deadline.NONE);
+  }
+
+  /**
+   * Persists user's vote in the database, unless the deadline expires first.
+   */
+  Future<Vote> vote(final VoteInput input, final String userId, final Deadline deadline);
+
+  /**
+   * Persists user's vote in the database or changes the type of the vote if user has already voted on given item.
+   */
+  default Future<Vote> upsertVote(final VoteInput input, final String userId) {
+    return upsertVote(input, userId, Deadline.NONE);
+  }
+
+  /**
+   * Persists user's vote in the database or changes the type of the vote if user has already voted on given item, unless the deadline expires
+   * first.
+   */
+  Future<Vote> upsertVote(final VoteInput input, final String userId, final Deadline deadline);
 
   /**
    * Updates user's vote in the database.
    */
-  Future<Vote> updateVote(final VoteInput input, final String userId);
+  default Future<Vote> updateVote(final VoteInput input, final String userId) {
+    return updateVote(input, userId, Deadline.NONE);
+  }
+
+  /**
+   * Updates user's vote in the database, unless the deadline expires first.
+   */
+  Future<Vote> updateVote(final VoteInput input, final String userId, final Deadline deadline);
 
   /**
    * Removes users vote from the database.
    */
-  Future<Boolean> unvote(final VoteSelector selector, final String userId);
+  default Future<Boolean> unvote(final VoteSelector selector, final String userId) {
+    return unvote(selector, userId, Deadline.NONE);
+  }
+
+  /**
+   * Removes users vote from the database, unless the deadline expires first.
+   */
+  Future<Boolean> unvote(final VoteSelector selector, final String userId, final Deadline deadline);
 
   /**
    * Checks if user has already voted on given item.
    */
-  Future<Boolean> hasVoted(final VoteSelector selector, final String userId);
+  default Future<Boolean> hasVoted(final VoteSelector selector, final String userId) {
+    return hasVoted(selector, userId, false);
+  }
+
+  /**
+   * Checks if user has already voted on given item. Sees all committed writes if readYourWrites is set.
+   */
+  default Future<Boolean> hasVoted(final VoteSelector selector, final String userId, final boolean readYourWrites) {
+    return hasVoted(selector, userId, readYourWrites, Deadline.NONE);
+  }
+
+  /**
+   * Checks if user has already voted on given item, unless the deadline expires first. Sees all committed writes if readYourWrites is set.
+   */
+  Future<Boolean> hasVoted(final VoteSelector selector, final String userId, final boolean readYourWrites, final Deadline deadline);
+
+  /**
+   * Returns types of user's votes on given items. Items user hasn't voted on are not present in the result.
+   */
+  default Future<Map<VoteSelector, VoteType>> userVotes(final List<VoteSelector> selectors, final String userId) {
+    return userVotes(selectors, userId, false);
+  }
+
+  /**
+   * Returns types of user's votes on given items. Sees all committed writes if readYourWrites is set.
+   */
+  default Future<Map<VoteSelector, VoteType>> userVotes(final List<VoteSelector> selectors, final String userId, final boolean readYourWrites) {
+    return userVotes(selectors, userId, readYourWrites, Deadline.NONE);
+  }
+
+  /**
+   * Returns types of user's votes on given items, unless the deadline expires first. Sees all committed writes if readYourWrites is set.
+   */
+  Future<Map<VoteSelector, VoteType>> userVotes(final List<VoteSelector> selectors, final String userId, final boolean readYourWrites,
+      final Deadline deadline);
 
   /**
    * Returns the score of given item.
    */
-  Future<Score> voteScore(final VoteSelector selector);
+  default Future<Score> voteScore(final VoteSelector selector) {
+    return voteScore(selector, false);
+  }
+
+  /**
+   * Returns the score of given item. Sees all committed writes if readYourWrites is set.
+   */
+  default Future<Score> voteScore(final VoteSelector selector, final boolean readYourWrites) {
+    return voteScore(selector, readYourWrites, Deadline.NONE);
+  }
+
+  /**
+   * Returns the score of given item, unless the deadline expires first. Sees all committed writes if readYourWrites is set.
+   */
+  Future<Score> voteScore(final VoteSelector selector, final boolean readYourWrites, final Deadline deadline);
+
+  /**
+   * Returns the scores of given items in the order of given selectors. Items nobody has voted on have zero scores.
+   */
+  default Future<Map<VoteSelector, Score>> voteScores(final List<VoteSelector> selectors) {
+    return voteScores(selectors, false);
+  }
+
+  /**
+   * Returns the scores of given items in the order of given selectors. Sees all committed writes if readYourWrites is set.
+   */
+  default Future<Map<VoteSelector, Score>> voteScores(final List<VoteSelector> selectors, final boolean readYourWrites) {
+    return voteScores(selectors, readYourWrites, Deadline.NONE);
+  }
+
+  /**
+   * Returns the scores of given items in the order of given selectors, unless the deadline expires first. Sees all committed writes if
+   * readYourWrites is set.
+   */
+  Future<Map<VoteSelector, Score>> voteScores(final List<VoteSelector> selectors, final boolean readYourWrites, final Deadline deadline);
+
+  /**
+   * Returns a page of the items of given type with the highest scores, in the order of their scores. Ties are ordered by item id.
+   */
+  default Future<Map<VoteSelector, Score>> topItems(final TopItemsQuery query) {
+    return topItems(query, Deadline.NONE);
+  }
+
+  /**
+   * Returns a page of the items of given type with the highest scores or confidences, in that order, unless the deadline expires first. Ties are
+   * ordered by item id.
+   */
+  Future<Map<VoteSelector, Score>> topItems(final TopItemsQuery query, final Deadline deadline);
+
+  /**
+   * Returns the items of given type with the highest time-decayed scores, in the order of their scores.
+   */
+  default Future<Map<VoteSelector, Double>> trending(final TrendingQuery query) {
+    return trending(query, Deadline.NONE);
+  }
+
+  /**
+   * Returns the items of given type with the highest time-decayed scores, in the order of their scores, unless the deadline expires first. Ties
+   * are ordered by item id.
+   */
+  Future<Map<VoteSelector, Double>> trending(final TrendingQuery query, final Deadline deadline);
+
+  /**
+   * Returns the scores of votes cast on given item in each bucket of the queried range, keyed by the start of the bucket in the order of time.
+   * Buckets without votes are left out.
+   */
+  default Future<Map<Timestamp, Score>> scoreHistory(final ScoreHistoryQuery query) {
+    return scoreHistory(query, Deadline.NONE);
+  }
+
+  /**
+   * Returns the scores of votes cast on given item in each bucket of the queried range, keyed by the start of the bucket in the order of time,
+   * unless the deadline expires first. Buckets without votes are left out.
+   */
+  Future<Map<Timestamp, Score>> scoreHistory(final ScoreHistoryQuery query, final Deadline deadline);
 }
@@ -0,0 +1,179 @@
+package io.appwish.voteservice.repository.impl;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.protobuf.Timestamp;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
+import io.appwish.voteservice.dto.query.TrendingQuery;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.VoteType;
+import io.appwish.voteservice.repository.Deadline;
+import io.appwish.voteservice.repository.VoteRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches item scores in front of another repository.
+ * <p>
+ * Entries are evicted by frequency and recency (W-TinyLFU), so items read often stay cached while one-off reads don't push them out. Writes going
+ * through this repository invalidate the score of the item they modify. A read racing with a write may still cache the score from before the write,
+ * and writes made by other instances aren't seen at all, so entries also expire after given time to bound how stale a score can get.
+ * <p>
+ * Reads asking to see their own writes bypass the cache.
+ * <p>
+ * Repositories of all verticle instances should share one cache, so that a write through any of them invalidates the score for all of them.
+ */
+public class CachingVoteRepository implements VoteRepository {
+
+  private final VoteRepository delegate;
+  private final Cache<VoteSelector, Score> scores;
+
+  public CachingVoteRepository(final VoteRepository delegate, final Cache<VoteSelector, Score> scores) {
+    this.delegate = delegate;
+    this.scores = scores;
+  }
+
+  /**
+   * Creates a score cache to be shared by caching repositories.
+   */
+  public static Cache<VoteSelector, Score> scoreCache(final long maximumSize, final Duration expireAfterWrite) {
+    return Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWrite)
+        // Maintenance is cheap, so it's done on the calling thread instead of the common pool
+        .executor(Runnable::run)
+        .recordStats()
+        .build();
+  }
+
+  @Override
+  public Future<Vote> vote(final VoteInput input, final String userId, final Deadline deadline) {
+    return invalidating(selector(input), delegate.vote(input, userId, deadline));
+  }
+
+  @Override
+  public Future<Vote> upsertVote(final VoteInput input, final String userId, final Deadline deadline) {
+    return invalidating(selector(input), delegate.upsertVote(input, userId, deadline));
+  }
+
+  @Override
+  public Future<Vote> updateVote(final VoteInput input, final String userId, final Deadline deadline) {
+    return invalidating(selector(input), delegate.updateVote(input, userId, deadline));
+  }
+
+  @Override
+  public Future<Boolean> unvote(final VoteSelector selector, final String userId, final Deadline deadline) {
+    return invalidating(selector, delegate.unvote(selector, userId, deadline));
+  }
+
+  @Override
+  public Future<Boolean> hasVoted(final VoteSelector selector, final String userId, final boolean readYourWrites,
+      final Deadline deadline) {
+    return delegate.hasVoted(selector, userId, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, VoteType>> userVotes(final List<VoteSelector> selectors, final String userId, final boolean readYourWrites,
+      final Deadline deadline) {
+    return delegate.userVotes(selectors, userId, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Score> voteScore(final VoteSelector selector, final boolean readYourWrites, final Deadline deadline) {
+    if (readYourWrites) {
+      return delegate.voteScore(selector, true, deadline);
+    }
+
+    final Score cached = scores.getIfPresent(selector);
+
+    if (nonNull(cached)) {
+      return Future.succeededFuture(cached);
+    }
+
+    return delegate.voteScore(selector, false, deadline).map(score -> {
+      scores.put(selector, score);
+      return score;
+    });
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Score>> voteScores(final List<VoteSelector> selectors, final boolean readYourWrites,
+      final Deadline deadline) {
+    if (readYourWrites) {
+      return delegate.voteScores(selectors, true, deadline);
+    }
+
+    final Map<VoteSelector, Score> result = new LinkedHashMap<>();
+    final List<VoteSelector> missing = new ArrayList<>();
+
+    for (final VoteSelector selector : selectors) {
+      final Score cached = scores.getIfPresent(selector);
+      result.put(selector, cached);
+
+      if (isNull(cached)) {
+        missing.add(selector);
+      }
+    }
+
+    if (missing.isEmpty()) {
+      return Future.succeededFuture(result);
+    }
+
+    return delegate.voteScores(missing, false, deadline).map(loaded -> {
+      scores.putAll(loaded);
+      result.putAll(loaded);
+      return result;
+    });
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Score>> topItems(final TopItemsQuery query, final Deadline deadline) {
+    return delegate.topItems(query, deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Double>> trending(final TrendingQuery query, final Deadline deadline) {
+    return delegate.trending(query, deadline);
+  }
+
+  @Override
+  public Future<Map<Timestamp, Score>> scoreHistory(final ScoreHistoryQuery query, final Deadline deadline) {
+    return delegate.scoreHistory(query, deadline);
+  }
+
+  /**
+   * Returns hit, miss and eviction counts of the score cache.
+   */
+  public CacheStats stats() {
+    return scores.stats();
+  }
+
+  private <T> Future<T> invalidating(final VoteSelector selector, final Future<T> write) {
+    final Promise<T> promise = Promise.promise();
+
+    write.setHandler(event -> {
+      // Even a failed write might have been committed
+      scores.invalidate(selector);
+      promise.handle(event);
+    });
+
+    return promise.future();
+  }
+
+  private static VoteSelector selector(final VoteInput input) {
+    return new VoteSelector(input.getItemId(), input.getItemType());
+  }
+}
@@ -0,0 +1,264 @@
+package io.appwish.voteservice.repository.impl;
+
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.metrics.Metrics;
+import io.appwish.voteservice.repository.Deadline;
+import io.appwish.voteservice.repository.DeadlineExceededException;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.pgclient.PgPool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.Tuple;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Groups write queries arriving within a short window and executes them in a single transaction.
+ * <p>
+ * Consecutive queries of the same kind are sent as one prepared batch, so a burst of votes costs a single connection checkout and a single commit.
+ * Only one group is committed at a time and writes arriving meanwhile form the next groups, each of at most the maximum group size. Every write
+ * future completes only after its group has been committed.
+ * <p>
+ * Writes of a group are ordered by the item they modify, keeping the order of writes to the same item, so that concurrent groups of other
+ * committers lock counters of the items in the same order instead of deadlocking.
+ * <p>
+ * If a group fails, its writes are retried one by one in order, so a single failing write doesn't fail the writes it was grouped with.
+ * <p>
+ * Writes whose deadline expired while they were waiting are failed with {@link DeadlineExceededException} instead of being executed. A group is
+ * aborted by Postgres once the latest deadline of its writes expires, and then its writes are retried one by one with their own deadlines.
+ */
+public class GroupCommitter {
+
+  private final Vertx vertx;
+  private final MeteredPool client;
+  private final long windowMillis;
+  private final int maxGroupSize;
+
+  private List<Write> pending = new ArrayList<>();
+  private boolean committing;
+  private long timerId = -1;
+
+  public GroupCommitter(final Vertx vertx, final PgPool client, final long windowMillis, final int maxGroupSize) {
+    this(vertx, client, windowMillis, maxGroupSize, new StatementStatistics());
+  }
+
+  public GroupCommitter(final Vertx vertx, final PgPool client, final long windowMillis, final int maxGroupSize,
+      final StatementStatistics statistics) {
+    this.vertx = vertx;
+    this.client = new MeteredPool(client, Metrics.PRIMARY_POOL, statistics);
+    this.windowMillis = windowMillis;
+    this.maxGroupSize = maxGroupSize;
+  }
+
+  /**
+   * Schedules the query modifying given item to be executed with the next group.
+   */
+  public Future<RowSet<Row>> execute(final Query query, final VoteSelector item, final Tuple tuple) {
+    return execute(query, item, tuple, Deadline.NONE);
+  }
+
+  /**
+   * Schedules the query modifying given item to be executed with the next group, unless the deadline expires first. Writes of a group are
+   * ordered by their items.
+   */
+  public Future<RowSet<Row>> execute(final Query query, final VoteSelector item, final Tuple tuple, final Deadline deadline) {
+    final Write write = new Write(query, item, tuple, deadline);
+    final boolean full;
+
+    synchronized (this) {
+      pending.add(write);
+      full = pending.size() >= maxGroupSize;
+
+      if (!full && !committing && timerId == -1) {
+        timerId = vertx.setTimer(windowMillis, id -> {
+          synchronized (this) {
+            timerId = -1;
+          }
+          commit();
+        });
+      }
+    }
+
+    if (full) {
+      commit();
+    }
+
+    return write.promise.future();
+  }
+
+  private void commit() {
+    final List<Write> waiting;
+
+    synchronized (this) {
+      if (committing || pending.isEmpty()) {
+        return;
+      }
+
+      if (timerId != -1) {
+        vertx.cancelTimer(timerId);
+        timerId = -1;
+      }
+
+      if (pending.size() <= maxGroupSize) {
+        waiting = pending;
+        pending = new ArrayList<>();
+      } else {
+        // The rest is committed with the next group
+        final List<Write> taken = pending.subList(0, maxGroupSize);
+        waiting = new ArrayList<>(taken);
+        taken.clear();
+      }
+
+      committing = true;
+    }
+
+    final List<Write> group = new ArrayList<>(waiting.size());
+
+    for (final Write write : waiting) {
+      if (write.deadline.isExpired()) {
+        write.promise.fail(new DeadlineExceededException(write.query.name()));
+      } else {
+        group.add(write);
+      }
+    }
+
+    if (group.isEmpty()) {
+      committed();
+      return;
+    }
+
+    // The sort is stable, so writes to the same item stay in order
+    group.sort(Comparator.comparingLong((Write write) -> write.item.getItemId()).thenComparingInt(write -> write.item.getItemType().code()));
+
+    // A write without a deadline never expires, so neither does its group
+    final Deadline latest = Collections.max(group, Comparator.comparingLong((Write write) -> write.deadline.remaining(TimeUnit.NANOSECONDS)))
+        .deadline;
+
+    client.begin(latest, begin -> {
+      if (begin.failed()) {
+        group.forEach(write -> write.promise.fail(begin.cause()));
+        committed();
+        return;
+      }
+
+      final MeteredTransaction transaction = begin.result();
+
+      executeRuns(transaction, group, 0, run -> {
+        if (run.failed()) {
+          transaction.rollback();
+          retryOneByOne(group, run.cause());
+          return;
+        }
+
+        transaction.commit(commit -> {
+          if (commit.succeeded()) {
+            group.forEach(write -> write.promise.complete(write.result));
+            committed();
+          } else {
+            retryOneByOne(group, commit.cause());
+          }
+        });
+      });
+    });
+  }
+
+  private void executeRuns(final MeteredTransaction transaction, final List<Write> group, final int from,
+      final Handler<AsyncResult<Void>> handler) {
+    if (from == group.size()) {
+      handler.handle(Future.succeededFuture());
+      return;
+    }
+
+    int to = from + 1;
+    while (to < group.size() && group.get(to).query == group.get(from).query) {
+      to++;
+    }
+
+    final List<Write> run = group.subList(from, to);
+    final List<Tuple> tuples = run.stream().map(write -> write.tuple).collect(Collectors.toList());
+    final int next = to;
+
+    transaction.preparedBatch(run.get(0).query, tuples, event -> {
+      if (event.failed()) {
+        handler.handle(Future.failedFuture(event.cause()));
+        return;
+      }
+
+      RowSet<Row> result = event.result();
+      for (final Write write : run) {
+        write.result = result;
+        result = result.next();
+      }
+
+      executeRuns(transaction, group, next, handler);
+    });
+  }
+
+  private void retryOneByOne(final List<Write> group, final Throwable cause) {
+    if (group.size() == 1) {
+      group.get(0).promise.fail(cause);
+      committed();
+    } else {
+      retry(group.iterator());
+    }
+  }
+
+  private void retry(final Iterator<Write> writes) {
+    if (!writes.hasNext()) {
+      committed();
+      return;
+    }
+
+    // Writes are retried in order, as later writes may depend on the earlier ones
+    final Write write = writes.next();
+
+    if (write.deadline.isExpired()) {
+      write.promise.fail(new DeadlineExceededException(write.query.name()));
+      retry(writes);
+      return;
+    }
+
+    client.preparedQuery(write.query, write.tuple, write.deadline, event -> {
+      if (event.succeeded()) {
+        write.promise.complete(event.result());
+      } else {
+        write.promise.fail(event.cause());
+      }
+      retry(writes);
+    });
+  }
+
+  private void committed() {
+    synchronized (this) {
+      committing = false;
+    }
+    // Writes which arrived during the commit have already waited long enough
+    commit();
+  }
+
+  private static final class Write {
+
+    private final Query query;
+    private final VoteSelector item;
+    private final Tuple tuple;
+    private final Deadline deadline;
+    private final Promise<RowSet<Row>> promise = Promise.promise();
+    private RowSet<Row> result;
+
+    private Write(final Query query, final VoteSelector item, final Tuple tuple, final Deadline deadline) {
+      this.query = query;
+      this.item = item;
+      this.tuple = tuple;
+      this.deadline = deadline;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package io.appwish.voteservice.repository.impl;
+
+import static java.util.Objects.isNull;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Executes asynchronous operations of the same key one after another, in the order they were submitted. Operations of different keys run in
+ * parallel.
+ * <p>
+ * Only the last submitted operation of each key is tracked. Every operation waits for its predecessor to complete, no thread is ever blocked.
+ */
+public class KeyedSerializer<K> {
+
+  private final Map<K, Future<Void>> tails = new ConcurrentHashMap<>();
+
+  /**
+   * Executes the operation once all operations of given key submitted before have completed.
+   */
+  public <T> Future<T> execute(final K key, final Supplier<Future<T>> operation) {
+    final Promise<T> promise = Promise.promise();
+    final Promise<Void> done = Promise.promise();
+    final Future<Void> tail = done.future();
+    final Future<Void> previous = tails.put(key, tail);
+    final Context context = Vertx.currentContext();
+
+    final Runnable run = () -> started(operation).setHandler(event -> {
+      // The result is handed over before the next operation starts, so callers see results in execution order
+      try {
+        promise.handle(event);
+      } finally {
+        // Nothing is waiting for this operation unless a later one has replaced it
+        tails.remove(key, tail);
+        done.complete();
+      }
+    });
+
+    if (isNull(previous)) {
+      run.run();
+    } else {
+      // The predecessor completes on its own context, so the operation is moved back to the context it was submitted on
+      previous.setHandler(completed -> {
+        if (isNull(context)) {
+          run.run();
+        } else {
+          context.runOnContext(ignored -> run.run());
+        }
+      });
+    }
+
+    return promise.future();
+  }
+
+  /**
+   * Starts the operation. An operation throwing instead of returning a failed future completes like a failed one, so later operations of its key
+   * don't wait for it forever.
+   */
+  private static <T> Future<T> started(final Supplier<Future<T>> operation) {
+    try {
+      return operation.get();
+    } catch (final RuntimeException e) {
+      return Future.failedFuture(e);
+    }
+  }
+
+  /**
+   * Returns the number of keys with an operation in progress.
+   */
+  public int size() {
+    return tails.size();
+  }
+}
@@ -0,0 +1,133 @@
+package io.appwish.voteservice.repository.impl;
+
+import io.appwish.voteservice.metrics.PoolUsage;
+import io.appwish.voteservice.repository.Deadline;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.pgclient.PgPool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes queries on connections acquired from a pool, recording {@link StatementStatistics} of each {@link Query} and, separately, how long
+ * and how many of them are waiting for a connection and how many connections are in use.
+ * <p>
+ * Statements executed with a {@link Deadline} run in a transaction whose statement timeout is the remaining time, so Postgres aborts them once the
+ * deadline expires instead of finishing work nobody waits for.
+ */
+class MeteredPool {
+
+  private final PgPool pool;
+  private final PoolUsage usage;
+  private final StatementStatistics statistics;
+
+  MeteredPool(final PgPool pool, final PoolUsage usage, final StatementStatistics statistics) {
+    this.pool = pool;
+    this.usage = usage;
+    this.statistics = statistics;
+  }
+
+  void preparedQuery(final Query query, final Tuple tuple, final Handler<AsyncResult<RowSet<Row>>> handler) {
+    connection(acquire -> {
+      if (acquire.failed()) {
+        handler.handle(Future.failedFuture(acquire.cause()));
+        return;
+      }
+
+      final SqlConnection connection = acquire.result();
+      final long start = System.nanoTime();
+
+      connection.preparedQuery(query.sql(), tuple, event -> {
+        connection.close();
+        usage.released();
+        statistics.record(query, tuple, System.nanoTime() - start, event.succeeded() ? event.result().rowCount() : 0, event.failed());
+        handler.handle(event);
+      });
+    });
+  }
+
+  /**
+   * Executes the query, aborting it once the deadline expires. Queries without a deadline are executed without a transaction.
+   */
+  void preparedQuery(final Query query, final Tuple tuple, final Deadline deadline, final Handler<AsyncResult<RowSet<Row>>> handler) {
+    if (!deadline.isSet()) {
+      preparedQuery(query, tuple, handler);
+      return;
+    }
+
+    begin(deadline, begin -> {
+      if (begin.failed()) {
+        handler.handle(Future.failedFuture(begin.cause()));
+        return;
+      }
+
+      final MeteredTransaction transaction = begin.result();
+
+      transaction.preparedQuery(query, tuple, event -> {
+        if (event.failed()) {
+          transaction.rollback();
+          handler.handle(event);
+          return;
+        }
+
+        transaction.commit(commit -> handler.handle(commit.succeeded() ? event : Future.failedFuture(commit.cause())));
+      });
+    });
+  }
+
+  /**
+   * Begins a transaction whose statements are aborted by Postgres once the deadline expires. Transactions without a deadline keep the statement
+   * timeout of the connection.
+   */
+  void begin(final Deadline deadline, final Handler<AsyncResult<MeteredTransaction>> handler) {
+    if (!deadline.isSet()) {
+      begin(handler);
+      return;
+    }
+
+    begin(begin -> {
+      if (begin.failed()) {
+        handler.handle(begin);
+        return;
+      }
+
+      final MeteredTransaction transaction = begin.result();
+      // Zero would disable the timeout, so an already expired deadline gets the shortest one
+      final long timeoutMillis = Math.max(1, deadline.remaining(TimeUnit.MILLISECONDS));
+
+      transaction.preparedQuery(Query.SET_STATEMENT_TIMEOUT, Tuple.of(String.valueOf(timeoutMillis)), set -> {
+        if (set.succeeded()) {
+          handler.handle(Future.succeededFuture(transaction));
+        } else {
+          transaction.rollback();
+          handler.handle(Future.failedFuture(set.cause()));
+        }
+      });
+    });
+  }
+
+  /**
+   * Begins a transaction on a connection which is released once the transaction commits or rolls back.
+   */
+  void begin(final Handler<AsyncResult<MeteredTransaction>> handler) {
+    connection(acquire -> handler.handle(acquire.map(connection -> new MeteredTransaction(connection, usage, statistics))));
+  }
+
+  private void connection(final Handler<AsyncResult<SqlConnection>> handler) {
+    final long start = System.nanoTime();
+    usage.requested();
+
+    pool.getConnection(event -> {
+      if (event.succeeded()) {
+        usage.acquired(System.nanoTime() - start);
+      } else {
+        usage.notAcquired();
+      }
+      handler.handle(event);
+    });
+  }
+}
@@ -0,0 +1,80 @@
+package io.appwish.voteservice.repository.impl;
+
+import io.appwish.voteservice.metrics.PoolUsage;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Transaction;
+import io.vertx.sqlclient.Tuple;
+import java.util.List;
+
+/**
+ * Transaction begun by {@link MeteredPool} on a connection of its own. The connection is released to the pool once the transaction commits or
+ * rolls back.
+ */
+class MeteredTransaction {
+
+  private final SqlConnection connection;
+  private final Transaction transaction;
+  private final PoolUsage usage;
+  private final StatementStatistics statistics;
+
+  MeteredTransaction(final SqlConnection connection, final PoolUsage usage, final StatementStatistics statistics) {
+    this.connection = connection;
+    this.transaction = connection.begin();
+    this.usage = usage;
+    this.statistics = statistics;
+  }
+
+  void preparedQuery(final Query query, final Tuple tuple, final Handler<AsyncResult<RowSet<Row>>> handler) {
+    final long start = System.nanoTime();
+
+    transaction.preparedQuery(query.sql(), tuple, event -> {
+      statistics.record(query, tuple, System.nanoTime() - start, event.succeeded() ? event.result().rowCount() : 0, event.failed());
+      handler.handle(event);
+    });
+  }
+
+  /**
+   * Executes a batch. The whole batch is recorded as one execution.
+   */
+  void preparedBatch(final Query query, final List<Tuple> tuples, final Handler<AsyncResult<RowSet<Row>>> handler) {
+    final long start = System.nanoTime();
+
+    transaction.preparedBatch(query.sql(), tuples, event -> {
+      long rows = 0;
+
+      for (RowSet<Row> result = event.succeeded() ? event.result() : null; result != null; result = result.next()) {
+        rows += result.rowCount();
+      }
+
+      statistics.record(query, tuples, System.nanoTime() - start, rows, event.failed());
+      handler.handle(event);
+    });
+  }
+
+  /**
+   * Executes SQL which isn't one of the {@link Query}s, without recording it.
+   */
+  void query(final String sql, final Handler<AsyncResult<RowSet<Row>>> handler) {
+    transaction.query(sql, handler);
+  }
+
+  void commit(final Handler<AsyncResult<Void>> handler) {
+    transaction.commit(event -> {
+      release();
+      handler.handle(event);
+    });
+  }
+
+  void rollback() {
+    transaction.rollback(event -> release());
+  }
+
+  private void release() {
+    connection.close();
+    usage.released();
+  }
+}
@@ -0,0 +1,100 @@
+package io.appwish.voteservice.repository.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.sqlclient.SqlClient;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Prepares the Postgres schema required by {@link PostgresVoteRepository}.
+ * <p>
+ * Statements are executed one by one in the given order, so a statement can rely on everything created before it.
+ */
+public final class PostgresSchema {
+
+  private static final String INDEX_NAME_COLUMN = "indexname";
+
+  private static final List<Query> STATEMENTS = Arrays.asList(
+      Query.CREATE_VOTE_TABLE,
+      Query.CREATE_USERS_DICT_TABLE,
+      Query.CREATE_VOTE_SCORES_TABLE,
+      Query.CREATE_VOTE_ROLLUPS_HOURLY_TABLE,
+      Query.CREATE_VOTE_ROLLUPS_DAILY_TABLE,
+      Query.CREATE_WILSON_LOWER_BOUND_FUNCTION,
+      // Counters get their confidence and version first, as the compact schema migration maintains them when removing votes
+      Query.MIGRATE_TO_VOTE_SCORES_CONFIDENCE,
+      Query.MIGRATE_TO_VOTE_SCORES_VERSION,
+      Query.MIGRATE_TO_COMPACT_SCHEMA,
+      Query.BACKFILL_VOTE_SCORES,
+      Query.BACKFILL_VOTE_ROLLUPS,
+      Query.DEDUPLICATE_VOTES,
+      Query.CREATE_VOTES_USER_ITEM_INDEX,
+      Query.DROP_VOTES_USER_ITEM_LEGACY_INDEX,
+      Query.CREATE_VOTES_ITEM_INDEX,
+      Query.CREATE_VOTE_SCORES_CONFIDENCE_INDEX);
+
+  // Without these, reads and writes of single votes scan the whole votes table
+  private static final List<String> REQUIRED_INDEXES = Arrays.asList(
+      "votes_user_item_covering_idx",
+      "votes_item_vote_type_idx",
+      "vote_scores_pkey",
+      "vote_scores_confidence_idx",
+      "vote_rollups_hourly_pkey",
+      "vote_rollups_daily_pkey",
+      "users_dict_external_id_key");
+
+  private PostgresSchema() {
+  }
+
+  /**
+   * Creates missing tables, migrates tables created by older versions and backfills derived data. Safe to run on every start.
+   * <p>
+   * Fails if any of the indexes the queries rely on is missing afterwards.
+   */
+  public static Future<Void> prepare(final SqlClient client) {
+    final Promise<Void> promise = Promise.promise();
+    execute(client, STATEMENTS.iterator(), promise);
+    return promise.future().compose(prepared -> verifyIndexes(client));
+  }
+
+  private static Future<Void> verifyIndexes(final SqlClient client) {
+    final Promise<Void> promise = Promise.promise();
+
+    client.query(Query.FIND_INDEXES.sql(), event -> {
+      if (event.failed()) {
+        promise.fail(event.cause());
+        return;
+      }
+
+      final Set<String> missing = new HashSet<>(REQUIRED_INDEXES);
+      event.result().forEach(row -> missing.remove(row.getString(INDEX_NAME_COLUMN)));
+
+      if (missing.isEmpty()) {
+        promise.complete();
+      } else {
+        promise.fail(new IllegalStateException("Missing indexes: " + missing));
+      }
+    });
+
+    return promise.future();
+  }
+
+  private static void execute(final SqlClient client, final Iterator<Query> statements, final Promise<Void> promise) {
+    if (!statements.hasNext()) {
+      promise.complete();
+      return;
+    }
+
+    client.query(statements.next().sql(), event -> {
+      if (event.succeeded()) {
+        execute(client, statements, promise);
+      } else {
+        promise.fail(event.cause());
+      }
+    });
+  }
+}
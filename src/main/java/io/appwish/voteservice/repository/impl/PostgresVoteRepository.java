@@ -1,99 +1,382 @@
 package io.appwish.voteservice.repository.impl;
 
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
 import com.google.protobuf.Timestamp;
 import io.appwish.voteservice.dto.Score;
 import io.appwish.voteservice.dto.Vote;
 import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
+import io.appwish.voteservice.dto.query.TrendingQuery;
 import io.appwish.voteservice.dto.query.VoteSelector;
-import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.dto.type.Granularity;
+import io.appwish.voteservice.dto.type.ScoreOrder;
 import io.appwish.voteservice.dto.type.VoteType;
+import io.appwish.voteservice.metrics.Metrics;
+import io.appwish.voteservice.repository.Deadline;
+import io.appwish.voteservice.repository.DeadlineExceededException;
+import io.appwish.voteservice.repository.ScoreChange;
 import io.appwish.voteservice.repository.VoteRepository;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.pgclient.PgPool;
 import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
 import io.vertx.sqlclient.Tuple;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Enables storing votes in PostgreSQL
+ * <p>
+ * Writes go to the primary. Reads go to a separate pool, which may be connected to a read replica, so that heavy read traffic can't starve writes.
+ * <p>
+ * Deadlines are checked before each round trip to the database. Operations which expired before they could execute are counted per operation,
+ * both by the repository and in {@link Metrics#DEADLINE_EXPIRED}.
+ * <p>
+ * Every committed write changing the counters of an item is reported to the score change handlers, before the write's future completes.
  */
 public class PostgresVoteRepository implements VoteRepository {
 
-  private static final String ID_COLUMN = "id";
-  private static final String USER_ID_COLUMN = "user_id";
-  private static final String ITEM_ID_COLUMN = "item_id";
-  private static final String ITEM_TYPE_COLUMN = "item_type";
-  private static final String CREATED_AT_COLUMN = "created_at";
-  private static final String VOTE_TYPE_COLUMN = "vote_type";
-  private static final String SCORE = "score";
-  private static final String UP = "UP";
-  private static final String DOWN = "DOWN";
+  private static final int USER_KEYS_CACHE_SIZE = 10_000;
+  private static final String DATABASE_STAGE = "database";
 
-  private final PgPool client;
+  private final MeteredPool client;
+  private final MeteredPool readClient;
+  private final GroupCommitter groupCommitter;
+  private final UserKeys userKeys;
+  private final StatementStatistics statistics;
+  private final SingleFlight<VoteSelector, Score> scoreReads;
+  private final Map<String, LongAdder> expired = new ConcurrentHashMap<>();
+  private final List<Handler<ScoreChange>> scoreChangeHandlers = new CopyOnWriteArrayList<>();
 
   public PostgresVoteRepository(final PgPool client) {
-    this.client = client;
+    this(client, null);
+  }
+
+  /**
+   * Creates a repository executing write queries through given {@link GroupCommitter}. Without the committer each write is executed on its own.
+   */
+  public PostgresVoteRepository(final PgPool client, final GroupCommitter groupCommitter) {
+    this(client, client, groupCommitter);
+  }
+
+  /**
+   * Creates a repository executing reads which don't have to see their own writes on readClient and everything else on client.
+   */
+  public PostgresVoteRepository(final PgPool client, final PgPool readClient, final GroupCommitter groupCommitter) {
+    this(client, readClient, groupCommitter, new StatementStatistics());
+  }
+
+  /**
+   * Creates a repository recording execution of its queries in given statistics.
+   */
+  public PostgresVoteRepository(final PgPool client, final PgPool readClient, final GroupCommitter groupCommitter,
+      final StatementStatistics statistics) {
+    this(client, readClient, groupCommitter, statistics, new SingleFlight<>());
+  }
+
+  /**
+   * Creates a repository collapsing concurrent reads of the same score with given {@link SingleFlight}.
+   */
+  public PostgresVoteRepository(final PgPool client, final PgPool readClient, final GroupCommitter groupCommitter,
+      final StatementStatistics statistics, final SingleFlight<VoteSelector, Score> scoreReads) {
+    this.client = new MeteredPool(client, Metrics.PRIMARY_POOL, statistics);
+    // Without a separate read pool all queries share the primary pool, so they're counted towards its usage
+    this.readClient = readClient == client ? this.client : new MeteredPool(readClient, Metrics.READ_POOL, statistics);
+    this.groupCommitter = groupCommitter;
+    this.statistics = statistics;
+    this.scoreReads = scoreReads;
+    // Keys are created on the primary and a replica may not know a new key yet, so they're always looked up on the primary
+    this.userKeys = new UserKeys(client, USER_KEYS_CACHE_SIZE, statistics);
   }
 
   @Override
-  public Future<Vote> vote(final VoteInput input, final String userId) {
-    final Promise<Vote> promise = Promise.promise();
+  public Future<Vote> vote(final VoteInput input, final String userId, final Deadline deadline) {
+    if (deadline.isExpired()) {
+      return expired("vote");
+    }
 
-    client.preparedQuery(Query.VOTE.sql(),
-        Tuple.of(userId, input.getItemId(), input.getItemType().toString(), input.getVoteType().toString(), LocalDateTime.now()),
-        event -> {
-          if (event.succeeded()) {
-            if (event.result().iterator().hasNext()) {
-              final Row row = event.result().iterator().next();
-              promise.complete(voteFromRow(row));
+    return userKeys.findOrCreate(userId).compose(userKey -> {
+      if (deadline.isExpired()) {
+        return expired("vote");
+      }
+
+      final Promise<Vote> promise = Promise.promise();
+
+      write("vote", Query.VOTE, new VoteSelector(input.getItemId(), input.getItemType()),
+          Tuple.of(userKey, input.getItemId(), input.getItemType().code(), input.getVoteType().code(), RowDecoder.now()), deadline,
+          event -> {
+            if (event.succeeded()) {
+              if (event.result().iterator().hasNext()) {
+                final Row row = event.result().iterator().next();
+                scoreChanged(RowDecoder.voteScoreChange(row));
+                promise.complete(RowDecoder.vote(row, userId));
+              } else {
+                promise.fail(new AssertionError("Adding a vote should always succeed"));
+              }
             } else {
-              promise.fail(new AssertionError("Adding a vote should always succeed"));
+              promise.fail(event.cause());
             }
-          } else {
-            promise.fail(event.cause());
-          }
-        });
+          });
 
-    return promise.future();
+      return promise.future();
+    });
   }
 
   @Override
-  public Future<Vote> updateVote(final VoteInput input, final String userId) {
+  public Future<Vote> upsertVote(final VoteInput input, final String userId, final Deadline deadline) {
+    if (deadline.isExpired()) {
+      return expired("upsertVote");
+    }
+
+    return userKeys.findOrCreate(userId).compose(userKey -> {
+      final VoteSelector item = new VoteSelector(input.getItemId(), input.getItemType());
+      final Tuple tuple = Tuple.of(userKey, input.getItemId(), input.getItemType().code(), input.getVoteType().code(), RowDecoder.now());
+
+      return upsert(item, tuple, userId, deadline).compose(vote -> {
+        if (nonNull(vote)) {
+          return Future.succeededFuture(vote);
+        }
+
+        // The same vote was inserted by a concurrent statement committed after this one started. Such a vote is neither updated with the same
+        // vote type nor visible to the statement, but the next statement sees it.
+        return upsert(item, tuple, userId, deadline).compose(retried -> nonNull(retried)
+            ? Future.succeededFuture(retried)
+            : Future.failedFuture(new AssertionError("Upserting a vote should always return the vote")));
+      });
+    });
+  }
+
+  /**
+   * Upserts a vote, completing with null if the statement didn't see the vote it conflicted with.
+   */
+  private Future<Vote> upsert(final VoteSelector item, final Tuple tuple, final String userId, final Deadline deadline) {
+    if (deadline.isExpired()) {
+      return expired("upsertVote");
+    }
+
     final Promise<Vote> promise = Promise.promise();
 
-    client.preparedQuery(Query.UPDATE_VOTE.sql(),
-        Tuple.of(input.getVoteType().toString(), input.getItemId(), input.getItemType().toString(), userId),
-        event -> {
-          if (event.succeeded()) {
-            if (event.result().iterator().hasNext()) {
-              final Row row = event.result().iterator().next();
-              promise.complete(voteFromRow(row));
+    write("upsertVote", Query.UPSERT_VOTE, item, tuple, deadline, event -> {
+      if (event.succeeded()) {
+        if (event.result().iterator().hasNext()) {
+          final Row row = event.result().iterator().next();
+          scoreChanged(RowDecoder.voteScoreChange(row));
+          promise.complete(RowDecoder.vote(row, userId));
+        } else {
+          promise.complete(null);
+        }
+      } else {
+        promise.fail(event.cause());
+      }
+    });
+
+    return promise.future();
+  }
+
+  @Override
+  public Future<Vote> updateVote(final VoteInput input, final String userId, final Deadline deadline) {
+    if (deadline.isExpired()) {
+      return expired("updateVote");
+    }
+
+    return userKeys.find(userId).compose(userKey -> {
+      if (isNull(userKey)) {
+        // User has never voted, so there's no vote to update
+        return Future.succeededFuture(null);
+      }
+
+      if (deadline.isExpired()) {
+        return expired("updateVote");
+      }
+
+      final Promise<Vote> promise = Promise.promise();
+
+      write("updateVote", Query.UPDATE_VOTE, new VoteSelector(input.getItemId(), input.getItemType()),
+          Tuple.of(input.getVoteType().code(), input.getItemId(), input.getItemType().code(), userKey), deadline,
+          event -> {
+            if (event.succeeded()) {
+              if (event.result().iterator().hasNext()) {
+                final Row row = event.result().iterator().next();
+                scoreChanged(RowDecoder.voteScoreChange(row));
+                promise.complete(RowDecoder.vote(row, userId));
+              } else {
+                // Vote to update has not been found
+                promise.complete(null);
+              }
             } else {
-              // Vote to update has not been found
-              promise.complete(null);
+              promise.fail(event.cause());
             }
+          });
+
+      return promise.future();
+    });
+  }
+
+  @Override
+  public Future<Boolean> unvote(final VoteSelector query, final String userId, final Deadline deadline) {
+    if (deadline.isExpired()) {
+      return expired("unvote");
+    }
+
+    return userKeys.find(userId).compose(userKey -> {
+      if (isNull(userKey)) {
+        return Future.succeededFuture(false);
+      }
+
+      if (deadline.isExpired()) {
+        return expired("unvote");
+      }
+
+      final Promise<Boolean> promise = Promise.promise();
+
+      write("unvote", Query.UNVOTE, query, Tuple.of(query.getItemId(), query.getItemType().code(), userKey), deadline, event -> {
+        if (event.succeeded()) {
+          if (event.result().rowCount() == 1) {
+            scoreChanged(RowDecoder.unvoteScoreChange(event.result().iterator().next(), query));
+            promise.complete(true);
           } else {
-            promise.fail(event.cause());
+            promise.complete(false);
           }
-        });
+        } else {
+          promise.fail(event.cause());
+        }
+      });
 
-    return promise.future();
+      return promise.future();
+    });
+  }
+
+  @Override
+  public Future<Boolean> hasVoted(final VoteSelector selector, final String userId, final boolean readYourWrites, final Deadline deadline) {
+    if (deadline.isExpired()) {
+      return expired("hasVoted");
+    }
+
+    return userKeys.find(userId).compose(userKey -> {
+      if (isNull(userKey)) {
+        return Future.succeededFuture(false);
+      }
+
+      if (deadline.isExpired()) {
+        return expired("hasVoted");
+      }
+
+      final Promise<Boolean> promise = Promise.promise();
 
+      reader(readYourWrites).preparedQuery(Query.HAS_VOTED, Tuple.of(userKey, selector.getItemId(), selector.getItemType().code()), event -> {
+        if (event.succeeded()) {
+          if (event.result().iterator().hasNext()) {
+            // TODO think of returning vote_type, too
+            final Row row = event.result().iterator().next();
+            promise.complete(true);
+          } else {
+            promise.complete(false);
+          }
+        } else {
+          promise.fail(event.cause());
+        }
+      });
+
+      return promise.future();
+    });
   }
 
   @Override
-  public Future<Boolean> unvote(final VoteSelector query, final String userId) {
-    final Promise<Boolean> promise = Promise.promise();
+  public Future<Map<VoteSelector, VoteType>> userVotes(final List<VoteSelector> selectors, final String userId, final boolean readYourWrites,
+      final Deadline deadline) {
+    final Map<VoteSelector, VoteType> votes = new HashMap<>();
 
-    client.preparedQuery(Query.UNVOTE.sql(), Tuple.of(query.getItemId(), query.getItemType().toString(), userId), event -> {
-      if (event.succeeded()) {
-        if (event.result().rowCount() == 1) {
-          promise.complete(true);
+    if (selectors.isEmpty()) {
+      return Future.succeededFuture(votes);
+    }
+
+    if (deadline.isExpired()) {
+      return expired("userVotes");
+    }
+
+    final Long[] itemIds = new Long[selectors.size()];
+    final Short[] itemTypes = new Short[selectors.size()];
+
+    for (int i = 0; i < selectors.size(); i++) {
+      itemIds[i] = selectors.get(i).getItemId();
+      itemTypes[i] = selectors.get(i).getItemType().code();
+    }
+
+    return userKeys.find(userId).compose(userKey -> {
+      if (isNull(userKey)) {
+        return Future.succeededFuture(votes);
+      }
+
+      if (deadline.isExpired()) {
+        return expired("userVotes");
+      }
+
+      final Promise<Map<VoteSelector, VoteType>> promise = Promise.promise();
+
+      reader(readYourWrites).preparedQuery(Query.HAS_VOTED_MANY, Tuple.of(userKey, itemIds, itemTypes), event -> {
+        if (event.succeeded()) {
+          for (Row row : event.result()) {
+            votes.put(RowDecoder.itemSelector(row), RowDecoder.itemVoteType(row));
+          }
+
+          promise.complete(votes);
         } else {
-          promise.complete(false);
+          promise.fail(event.cause());
+        }
+      });
+
+      return promise.future();
+    });
+  }
+
+  @Override
+  public Future<Score> voteScore(final VoteSelector selector, final boolean readYourWrites, final Deadline deadline) {
+    if (deadline.isExpired()) {
+      return expired("voteScore");
+    }
+
+    // A read in flight may have started before the caller's write, so reads of own writes can't join it
+    if (readYourWrites) {
+      return queryScore(selector, client);
+    }
+
+    return scoreReads.execute(selector, () -> queryScore(selector, readClient));
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Score>> topItems(final TopItemsQuery query, final Deadline deadline) {
+    if (deadline.isExpired()) {
+      return expired("topItems");
+    }
+
+    final Promise<Map<VoteSelector, Score>> promise = Promise.promise();
+
+    // Postgres expects bigint limit and offset
+    final Tuple tuple = Tuple.of(query.getItemType().code(), (long) query.getLimit(), (long) query.getOffset());
+
+    final Query top = query.getOrder() == ScoreOrder.CONFIDENCE ? Query.GET_TOP_CONFIDENCE : Query.GET_TOP_SCORES;
+
+    readClient.preparedQuery(top, tuple, event -> {
+      if (event.succeeded()) {
+        final Map<VoteSelector, Score> scores = new LinkedHashMap<>();
+
+        for (Row row : event.result()) {
+          scores.put(RowDecoder.itemSelector(row), RowDecoder.itemScore(row));
         }
+
+        promise.complete(scores);
       } else {
         promise.fail(event.cause());
       }
@@ -102,19 +385,40 @@ public class PostgresVoteRepository implements VoteRepository {
     return promise.future();
   }
 
+  /**
+   * Decayed scores aren't stored, summing them would mean reading all votes of the item type, so they're only served from a
+   * {@link TrendingRanking}.
+   */
   @Override
-  public Future<Boolean> hasVoted(final VoteSelector selector, final String userId) {
-    final Promise<Boolean> promise = Promise.promise();
+  public Future<Map<VoteSelector, Double>> trending(final TrendingQuery query, final Deadline deadline) {
+    return Future.failedFuture("Trending items are only ranked in memory, which isn't enabled");
+  }
 
-    client.preparedQuery(Query.HAS_VOTED.sql(), Tuple.of(userId, selector.getItemId(), selector.getItemType().toString()), event -> {
+  /**
+   * Reads hourly buckets, or daily buckets merged with the hourly buckets not compacted yet. Hourly buckets are only kept until they're compacted,
+   * so hourly history of older ranges is incomplete.
+   */
+  @Override
+  public Future<Map<Timestamp, Score>> scoreHistory(final ScoreHistoryQuery query, final Deadline deadline) {
+    if (deadline.isExpired()) {
+      return expired("scoreHistory");
+    }
+
+    final Promise<Map<Timestamp, Score>> promise = Promise.promise();
+    final Tuple tuple = Tuple.of(query.getSelector().getItemId(), query.getSelector().getItemType().code(),
+        RowDecoder.localDateTime(query.getFrom()), RowDecoder.localDateTime(query.getTo()));
+
+    final Query history = query.getGranularity() == Granularity.DAY ? Query.GET_DAILY_HISTORY : Query.GET_HOURLY_HISTORY;
+
+    readClient.preparedQuery(history, tuple, event -> {
       if (event.succeeded()) {
-        if (event.result().iterator().hasNext()) {
-          // TODO think of returning vote_type, too
-          final Row row = event.result().iterator().next();
-          promise.complete(true);
-        } else {
-          promise.complete(false);
+        final Map<Timestamp, Score> buckets = new LinkedHashMap<>();
+
+        for (Row row : event.result()) {
+          buckets.put(RowDecoder.historyBucket(row), RowDecoder.historyScore(row));
         }
+
+        promise.complete(buckets);
       } else {
         promise.fail(event.cause());
       }
@@ -123,29 +427,84 @@ public class PostgresVoteRepository implements VoteRepository {
     return promise.future();
   }
 
+  /**
+   * Registers a handler called with the change of counters made by each committed write. Handlers are called on the context completing the write,
+   * so they should be thread-safe and quick.
+   */
+  public void addScoreChangeHandler(final Handler<ScoreChange> handler) {
+    scoreChangeHandlers.add(handler);
+  }
+
+  /**
+   * Returns execution statistics of queries executed by this repository, or by all repositories sharing its statistics.
+   */
+  public Map<Query, StatementStatistics.Summary> statementStatistics() {
+    return statistics.summary();
+  }
+
+  /**
+   * Returns how many operations of each kind have been skipped, because their deadline expired before they could be executed.
+   */
+  public Map<String, Long> expiredBeforeExecution() {
+    final Map<String, Long> counts = new TreeMap<>();
+    expired.forEach((operation, count) -> counts.put(operation, count.sum()));
+    return counts;
+  }
+
   @Override
-  public Future<Score> voteScore(final VoteSelector selector) {
-    final Promise<Score> promise = Promise.promise();
+  public Future<Map<VoteSelector, Score>> voteScores(final List<VoteSelector> selectors, final boolean readYourWrites,
+      final Deadline deadline) {
+    final Map<VoteSelector, Score> scores = new LinkedHashMap<>();
 
-    client.preparedQuery(Query.GET_SCORE.sql(), Tuple.of(selector.getItemId(), selector.getItemType().toString()), event -> {
-      if (event.succeeded()) {
-        long up = 0;
-        long down = 0;
+    for (final VoteSelector selector : selectors) {
+      scores.put(selector, new Score(0, 0));
+    }
+
+    if (scores.isEmpty()) {
+      return Future.succeededFuture(scores);
+    }
 
+    if (deadline.isExpired()) {
+      return expired("voteScores");
+    }
+
+    final Promise<Map<VoteSelector, Score>> promise = Promise.promise();
+    final Long[] itemIds = new Long[scores.size()];
+    final Short[] itemTypes = new Short[scores.size()];
+    int i = 0;
+
+    for (final VoteSelector selector : scores.keySet()) {
+      itemIds[i] = selector.getItemId();
+      itemTypes[i] = selector.getItemType().code();
+      i++;
+    }
+
+    reader(readYourWrites).preparedQuery(Query.GET_SCORES, Tuple.of(itemIds, itemTypes), event -> {
+      if (event.succeeded()) {
         for (Row row : event.result()) {
-          final String voteType = row.getString(VOTE_TYPE_COLUMN);
-
-          switch (voteType) {
-            case UP:
-              up = row.getLong(SCORE);
-              break;
-            case DOWN:
-              down = row.getLong(SCORE);
-              break;
-          }
+          scores.put(RowDecoder.itemSelector(row), RowDecoder.versionedItemScore(row));
         }
 
-        promise.complete(new Score(up, down));
+        promise.complete(scores);
+      } else {
+        promise.fail(event.cause());
+      }
+    });
+
+    return promise.future();
+  }
+
+  private Future<Score> queryScore(final VoteSelector selector, final MeteredPool reader) {
+    final Promise<Score> promise = Promise.promise();
+
+    reader.preparedQuery(Query.GET_SCORE, Tuple.of(selector.getItemId(), selector.getItemType().code()), event -> {
+      if (event.succeeded()) {
+        if (event.result().iterator().hasNext()) {
+          promise.complete(RowDecoder.score(event.result().iterator().next()));
+        } else {
+          // Nobody has voted on the item yet
+          promise.complete(new Score(0, 0));
+        }
       } else {
         promise.fail(event.cause());
       }
@@ -154,15 +513,38 @@ public class PostgresVoteRepository implements VoteRepository {
     return promise.future();
   }
 
-  private Vote voteFromRow(final Row row) {
-    final LocalDateTime createdAt = row.getLocalDateTime(CREATED_AT_COLUMN);
-    return new Vote(
-        row.getLong(ID_COLUMN),
-        row.getString(USER_ID_COLUMN),
-        row.getLong(ITEM_ID_COLUMN),
-        ItemType.valueOf(row.getString(ITEM_TYPE_COLUMN)),
-        VoteType.valueOf(row.getString(VOTE_TYPE_COLUMN)),
-        Timestamp.newBuilder().setNanos(createdAt.toInstant(ZoneOffset.UTC).getNano())
-            .setSeconds(createdAt.toInstant(ZoneOffset.UTC).getEpochSecond()).build());
+  private MeteredPool reader(final boolean readYourWrites) {
+    return readYourWrites ? client : readClient;
+  }
+
+  private void write(final String operation, final Query query, final VoteSelector item, final Tuple tuple, final Deadline deadline,
+      final Handler<AsyncResult<RowSet<Row>>> handler) {
+    if (isNull(groupCommitter)) {
+      client.preparedQuery(query, tuple, deadline, handler);
+    } else {
+      groupCommitter.execute(query, item, tuple, deadline).setHandler(event -> {
+        // The write may have expired while waiting for its group
+        if (event.failed() && event.cause() instanceof DeadlineExceededException) {
+          countExpired(operation);
+        }
+        handler.handle(event);
+      });
+    }
+  }
+
+  private void scoreChanged(final ScoreChange change) {
+    if (!change.isEmpty()) {
+      scoreChangeHandlers.forEach(handler -> handler.handle(change));
+    }
+  }
+
+  private <T> Future<T> expired(final String operation) {
+    countExpired(operation);
+    return Future.failedFuture(new DeadlineExceededException(operation));
+  }
+
+  private void countExpired(final String operation) {
+    expired.computeIfAbsent(operation, key -> new LongAdder()).increment();
+    Metrics.DEADLINE_EXPIRED.labels(operation, DATABASE_STAGE).increment();
   }
 }
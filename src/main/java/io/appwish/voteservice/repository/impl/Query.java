@@ -4,32 +4,295 @@ package io.appwish.voteservice.repository.impl;
  * Contains queries to execute on Postgres.
  * <p>
  * I'm not sure what's the best practice for storing String SQLs, so for now it'll stay here.
+ * <p>
+ * Every query modifying votes also maintains the per-item counters in vote_scores within the same statement. To do so, the modifying query exposes
+ * a deltas CTE with (item_id, item_type, up, down) columns which is folded into vote_scores by {@link Fragment#COUNTERS}. The deltas are returned
+ * after the vote columns, followed by the new counters of the item, so that in-process indexes and watchers of scores can be updated without
+ * reading the scores back.
+ * <p>
+ * The deltas also carry the creation time of the changed vote, so the same fragment adds them to the hourly bucket of vote_rollups_hourly the vote
+ * was created in. Buckets count the votes standing now by the time they were cast, and a removed or changed vote is taken back from the bucket it
+ * was added to. Hourly buckets past their retention are moved into vote_rollups_daily by {@link #COMPACT_HOURLY_ROLLUPS}.
+ * <p>
+ * Along with the counters, vote_scores stores their confidence, the Wilson score lower bound computed by the wilson_lower_bound function. It's
+ * recomputed from the new counters on every write, so items can be read in the order of their confidence straight from an index.
+ * <p>
+ * Every write to the counters of an item also increments their version, which is returned with the counters. Committed counters of an item are
+ * ordered by their versions, even when they are published out of order.
+ * <p>
+ * Item and vote types are stored as smallint codes of {@link io.appwish.voteservice.dto.type.ItemType} and
+ * {@link io.appwish.voteservice.dto.type.VoteType}. Users are stored as integer keys of users_dict rows.
  */
 public enum Query {
   VOTE(
-      "INSERT INTO votes ("
+      "WITH inserted AS ("
+          + "INSERT INTO votes ("
+          + "user_id, "
+          + "item_id, "
+          + "item_type, "
+          + "vote_type, "
+          + "created_at) "
+          + "VALUES ($1, $2, $3, $4, $5) "
+          + "RETURNING *), "
+          + "deltas AS ("
+          + "SELECT item_id, item_type, " + Fragment.UP_DELTA + " AS up, " + Fragment.DOWN_DELTA + " AS down, created_at FROM inserted), "
+          + Fragment.COUNTERS
+          // Columns are listed explicitly, as migrated tables have them in a different physical order
+          + "SELECT i.id, i.user_id, i.item_id, i.item_type, i.vote_type, i.created_at, d.up, d.down, s.up, s.down, s.version "
+          + "FROM inserted i, deltas d, scores s"),
+  UPSERT_VOTE(
+      "WITH upserted AS ("
+          + "INSERT INTO votes AS v ("
           + "user_id, "
           + "item_id, "
           + "item_type, "
           + "vote_type, "
           + "created_at) "
           + "VALUES ($1, $2, $3, $4, $5) "
-          + "RETURNING *"),
-  UNVOTE("DELETE FROM votes WHERE item_id=$1 AND item_type=$2 AND user_id=$3"),
+          + "ON CONFLICT (user_id, item_id, item_type) DO UPDATE SET vote_type=EXCLUDED.vote_type "
+          + "WHERE v.vote_type IS DISTINCT FROM EXCLUDED.vote_type "
+          + "RETURNING v.*, (v.xmax = 0) AS inserted), "
+          // There are only two vote types, so an updated vote always had the opposite type before
+          + "deltas AS ("
+          + "SELECT item_id, item_type, "
+          + Fragment.UP_DELTA + " - CASE WHEN NOT inserted AND vote_type=" + Fragment.DOWN + " THEN 1 ELSE 0 END AS up, "
+          + Fragment.DOWN_DELTA + " - CASE WHEN NOT inserted AND vote_type=" + Fragment.UP + " THEN 1 ELSE 0 END AS down, "
+          + "created_at FROM upserted), "
+          + Fragment.COUNTERS
+          + "SELECT u.id, u.user_id, u.item_id, u.item_type, u.vote_type, u.created_at, d.up, d.down, s.up, s.down, s.version "
+          + "FROM upserted u, deltas d, scores s "
+          // Voting again with the same vote type doesn't modify anything, so the current vote and counters are returned as they are. A vote
+          // inserted by a concurrent statement which committed after this one started isn't visible here, so nothing is returned and the caller
+          // has to retry.
+          + "UNION ALL "
+          + "SELECT v.id, v.user_id, v.item_id, v.item_type, v.vote_type, v.created_at, 0, 0, s.up, s.down, s.version FROM votes v "
+          + "JOIN vote_scores s ON s.item_id=v.item_id AND s.item_type=v.item_type "
+          + "WHERE v.user_id=$1 AND v.item_id=$2 AND v.item_type=$3 AND NOT EXISTS (SELECT 1 FROM upserted)"),
+  UNVOTE(
+      "WITH deleted AS ("
+          + "DELETE FROM votes WHERE item_id=$1 AND item_type=$2 AND user_id=$3 "
+          + "RETURNING item_id, item_type, vote_type, created_at), "
+          + "deltas AS ("
+          + "SELECT item_id, item_type, -" + Fragment.UP_DELTA + " AS up, -" + Fragment.DOWN_DELTA + " AS down, created_at FROM deleted), "
+          + Fragment.COUNTERS
+          + "SELECT d.item_id, d.up, d.down, d.created_at, s.up, s.down, s.version FROM deltas d, scores s"),
   UPDATE_VOTE(
-      "UPDATE votes SET "
+      "WITH previous AS ("
+          + "SELECT id, vote_type FROM votes WHERE item_id=$2 AND item_type=$3 AND user_id=$4 FOR UPDATE), "
+          + "updated AS ("
+          + "UPDATE votes SET "
           + "vote_type=$1 "
-          + "WHERE item_id=$2 AND item_type=$3 AND user_id=$4 RETURNING *"),
+          + "FROM previous WHERE votes.id=previous.id "
+          + "RETURNING votes.*, previous.vote_type AS previous_vote_type), "
+          + "deltas AS ("
+          + "SELECT item_id, item_type, "
+          + Fragment.UP_DELTA + " - CASE WHEN previous_vote_type=" + Fragment.UP + " THEN 1 ELSE 0 END AS up, "
+          + Fragment.DOWN_DELTA + " - CASE WHEN previous_vote_type=" + Fragment.DOWN + " THEN 1 ELSE 0 END AS down, "
+          + "created_at FROM updated), "
+          + Fragment.COUNTERS
+          + "SELECT u.id, u.user_id, u.item_id, u.item_type, u.vote_type, u.created_at, d.up, d.down, s.up, s.down, s.version "
+          + "FROM updated u, deltas d, scores s"),
+  // Columns are ordered from the widest to the narrowest to avoid alignment padding
   CREATE_VOTE_TABLE(
       "CREATE TABLE IF NOT EXISTS votes("
           + "id serial PRIMARY KEY, "
-          + "user_id varchar(50), "
-          + "item_id serial, "
-          + "item_type varchar(255), "
-          + "vote_type varchar(255), "
-          + "created_at timestamp);"),
+          + "user_id integer NOT NULL, "
+          + "item_id bigint NOT NULL, "
+          + "created_at timestamp NOT NULL, "
+          + "item_type smallint NOT NULL, "
+          + "vote_type smallint NOT NULL);"),
+  CREATE_USERS_DICT_TABLE(
+      "CREATE TABLE IF NOT EXISTS users_dict("
+          + "id serial PRIMARY KEY, "
+          + "external_id varchar(50) NOT NULL UNIQUE);"),
+  CREATE_VOTE_SCORES_TABLE(
+      "CREATE TABLE IF NOT EXISTS vote_scores("
+          + "item_id bigint NOT NULL, "
+          + "up bigint NOT NULL DEFAULT 0, "
+          + "down bigint NOT NULL DEFAULT 0, "
+          + "version bigint NOT NULL DEFAULT 0, "
+          + "confidence double precision NOT NULL DEFAULT 0, "
+          + "item_type smallint NOT NULL, "
+          + "PRIMARY KEY (item_id, item_type));"),
+  CREATE_VOTE_ROLLUPS_HOURLY_TABLE(
+      "CREATE TABLE IF NOT EXISTS vote_rollups_hourly("
+          + "item_id bigint NOT NULL, "
+          + "bucket timestamp NOT NULL, "
+          + "up bigint NOT NULL, "
+          + "down bigint NOT NULL, "
+          + "item_type smallint NOT NULL, "
+          + "PRIMARY KEY (item_id, item_type, bucket));"),
+  CREATE_VOTE_ROLLUPS_DAILY_TABLE(
+      "CREATE TABLE IF NOT EXISTS vote_rollups_daily("
+          + "item_id bigint NOT NULL, "
+          + "bucket timestamp NOT NULL, "
+          + "up bigint NOT NULL, "
+          + "down bigint NOT NULL, "
+          + "item_type smallint NOT NULL, "
+          + "PRIMARY KEY (item_id, item_type, bucket));"),
+  // Migrates tables created before types and users were stored as integers. Rewrites the whole votes table, so it takes a while on big tables.
+  // Votes without a user can't be migrated, so they're removed and taken back from the counters, unless the counters are still to be backfilled.
+  // Rollups didn't exist before, they're backfilled from the migrated votes.
+  MIGRATE_TO_COMPACT_SCHEMA(
+      "DO $$ "
+          + "DECLARE removed bigint; "
+          + "BEGIN "
+          + "IF EXISTS (SELECT 1 FROM information_schema.columns "
+          + "WHERE table_name='vote_scores' AND column_name='item_type' AND data_type='character varying') THEN "
+          + "ALTER TABLE vote_scores ALTER COLUMN item_type TYPE smallint USING " + Fragment.ITEM_TYPE_CODE + "; "
+          + "END IF; "
+          + "IF EXISTS (SELECT 1 FROM information_schema.columns "
+          + "WHERE table_name='votes' AND column_name='item_type' AND data_type='character varying') THEN "
+          + "INSERT INTO users_dict (external_id) SELECT DISTINCT user_id FROM votes WHERE user_id IS NOT NULL "
+          + "ON CONFLICT (external_id) DO NOTHING; "
+          + "ALTER TABLE votes ADD COLUMN user_key integer; "
+          + "UPDATE votes SET user_key=users_dict.id FROM users_dict WHERE users_dict.external_id=votes.user_id; "
+          + "ALTER TABLE votes "
+          + "ALTER COLUMN item_id DROP DEFAULT, "
+          + "ALTER COLUMN item_id TYPE bigint, "
+          + "ALTER COLUMN item_type TYPE smallint USING " + Fragment.ITEM_TYPE_CODE + ", "
+          + "ALTER COLUMN vote_type TYPE smallint USING " + Fragment.VOTE_TYPE_CODE + "; "
+          + "WITH deleted AS ("
+          + "DELETE FROM votes WHERE user_key IS NULL "
+          + "RETURNING item_id, item_type, vote_type), "
+          + "deltas AS ("
+          + "SELECT item_id, item_type, -" + Fragment.UP_DELTA + " AS up, -" + Fragment.DOWN_DELTA + " AS down FROM deleted "
+          + "WHERE EXISTS (SELECT 1 FROM vote_scores)), "
+          + Fragment.SCORES + " "
+          + "SELECT count(*) INTO removed FROM deleted; "
+          + "ALTER TABLE votes DROP COLUMN user_id; "
+          + "ALTER TABLE votes RENAME COLUMN user_key TO user_id; "
+          + "ALTER TABLE votes "
+          + "ALTER COLUMN user_id SET NOT NULL, "
+          + "ALTER COLUMN created_at SET NOT NULL, "
+          + "ALTER COLUMN item_type SET NOT NULL, "
+          + "ALTER COLUMN vote_type SET NOT NULL; "
+          + "DROP SEQUENCE IF EXISTS votes_item_id_seq; "
+          + "END IF; "
+          + "END $$"),
+  // Same as Score.wilsonLowerBound, keep them in sync
+  CREATE_WILSON_LOWER_BOUND_FUNCTION(
+      "CREATE OR REPLACE FUNCTION wilson_lower_bound(up double precision, down double precision) RETURNS double precision AS $$ "
+          + "SELECT CASE WHEN up + down <= 0 THEN 0 ELSE "
+          + "(up / (up + down) + 1.96 * 1.96 / (2 * (up + down)) "
+          + "- 1.96 * sqrt((up / (up + down) * (down / (up + down)) + 1.96 * 1.96 / (4 * (up + down))) / (up + down))) "
+          + "/ (1 + 1.96 * 1.96 / (up + down)) END "
+          + "$$ LANGUAGE sql IMMUTABLE"),
+  // Adds the confidence to vote_scores created before it was stored. Rewrites the whole table, so it takes a while on big tables.
+  MIGRATE_TO_VOTE_SCORES_CONFIDENCE(
+      "DO $$ "
+          + "BEGIN "
+          + "IF NOT EXISTS (SELECT 1 FROM information_schema.columns "
+          + "WHERE table_name='vote_scores' AND column_name='confidence') THEN "
+          + "ALTER TABLE vote_scores ADD COLUMN confidence double precision NOT NULL DEFAULT 0; "
+          + "UPDATE vote_scores SET confidence=wilson_lower_bound(up, down); "
+          + "END IF; "
+          + "END $$"),
+  // Adds the version to vote_scores created before it was stored. Counters which haven't been written since then keep version zero.
+  MIGRATE_TO_VOTE_SCORES_VERSION("ALTER TABLE vote_scores ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0"),
+  BACKFILL_VOTE_SCORES(
+      "INSERT INTO vote_scores (item_id, item_type, up, down, confidence) "
+          + "SELECT item_id, item_type, up, down, wilson_lower_bound(up, down) FROM ("
+          + "SELECT item_id, item_type, "
+          + "count(*) FILTER (WHERE vote_type=" + Fragment.UP + ") AS up, "
+          + "count(*) FILTER (WHERE vote_type=" + Fragment.DOWN + ") AS down "
+          + "FROM votes "
+          + "WHERE NOT EXISTS (SELECT 1 FROM vote_scores) "
+          + "GROUP BY item_id, item_type) counted "
+          + "ON CONFLICT (item_id, item_type) DO NOTHING"),
+  // Only the hourly buckets are backfilled, the first compaction moves the old ones into daily buckets
+  BACKFILL_VOTE_ROLLUPS(
+      "INSERT INTO vote_rollups_hourly (item_id, item_type, bucket, up, down) "
+          + "SELECT item_id, item_type, date_trunc('hour', created_at), "
+          + "count(*) FILTER (WHERE vote_type=" + Fragment.UP + "), "
+          + "count(*) FILTER (WHERE vote_type=" + Fragment.DOWN + ") "
+          + "FROM votes "
+          + "WHERE NOT EXISTS (SELECT 1 FROM vote_rollups_hourly) AND NOT EXISTS (SELECT 1 FROM vote_rollups_daily) "
+          + "GROUP BY 1, 2, 3 "
+          + "ON CONFLICT (item_id, item_type, bucket) DO NOTHING"),
+  DEDUPLICATE_VOTES(
+      "WITH deleted AS ("
+          + "DELETE FROM votes a USING votes b "
+          + "WHERE a.user_id=b.user_id AND a.item_id=b.item_id AND a.item_type=b.item_type AND a.id < b.id "
+          + "RETURNING a.item_id, a.item_type, a.vote_type, a.created_at), "
+          + "deltas AS ("
+          + "SELECT item_id, item_type, -" + Fragment.UP_DELTA + " AS up, -" + Fragment.DOWN_DELTA + " AS down, created_at FROM deleted), "
+          + Fragment.COUNTERS
+          + "SELECT count(*) FROM deleted"),
+  // Covers HAS_VOTED, HAS_VOTED_MANY, UNVOTE and UPDATE_VOTE, so they don't have to visit the table to read the vote type
+  CREATE_VOTES_USER_ITEM_INDEX(
+      "CREATE UNIQUE INDEX IF NOT EXISTS votes_user_item_covering_idx ON votes (user_id, item_id, item_type) INCLUDE (vote_type)"),
+  // Superseded by votes_user_item_covering_idx
+  DROP_VOTES_USER_ITEM_LEGACY_INDEX("DROP INDEX IF EXISTS votes_user_item_idx"),
+  CREATE_VOTES_ITEM_INDEX("CREATE INDEX IF NOT EXISTS votes_item_vote_type_idx ON votes (item_id, item_type, vote_type)"),
+  // Covers GET_TOP_CONFIDENCE, so pages of items ordered by confidence are read from the index alone
+  CREATE_VOTE_SCORES_CONFIDENCE_INDEX(
+      "CREATE INDEX IF NOT EXISTS vote_scores_confidence_idx ON vote_scores (item_type, confidence DESC, item_id) INCLUDE (up, down)"),
+  // Limits statements of the current transaction to the given number of milliseconds. Unlike SET LOCAL it takes the value as a parameter.
+  SET_STATEMENT_TIMEOUT("SELECT set_config('statement_timeout', $1, true)"),
+  FIND_INDEXES("SELECT indexname FROM pg_indexes WHERE schemaname=current_schema()"),
+  FIND_USER_KEY("SELECT id FROM users_dict WHERE external_id=$1"),
+  // Returns nothing if the user already exists, including when it was inserted by a concurrent statement
+  CREATE_USER_KEY(
+      "INSERT INTO users_dict (external_id) VALUES ($1) "
+          + "ON CONFLICT (external_id) DO NOTHING "
+          + "RETURNING id"),
   HAS_VOTED("SELECT vote_type FROM votes WHERE user_id=$1 AND item_id=$2 AND item_type=$3"),
-  GET_SCORE("SELECT vote_type, count(*) AS score FROM votes WHERE item_id=$1 AND item_type=$2 GROUP BY vote_type");
+  HAS_VOTED_MANY(
+      "SELECT v.item_id, v.item_type, v.vote_type FROM votes v "
+          + "JOIN unnest($2::bigint[], $3::smallint[]) AS q(item_id, item_type) "
+          + "ON v.item_id=q.item_id AND v.item_type=q.item_type "
+          + "WHERE v.user_id=$1"),
+  GET_SCORE("SELECT up, down FROM vote_scores WHERE item_id=$1 AND item_type=$2"),
+  GET_SCORES(
+      "SELECT s.item_id, s.item_type, s.up, s.down, s.version FROM vote_scores s "
+          + "JOIN unnest($1::bigint[], $2::smallint[]) AS q(item_id, item_type) "
+          + "ON s.item_id=q.item_id AND s.item_type=q.item_type"),
+  // Sorts all scores of the item type, meant for when scores aren't ranked in memory
+  GET_TOP_SCORES(
+      "SELECT item_id, item_type, up, down FROM vote_scores WHERE item_type=$1 "
+          + "ORDER BY up - down DESC, item_id LIMIT $2 OFFSET $3"),
+  GET_TOP_CONFIDENCE(
+      "SELECT item_id, item_type, up, down FROM vote_scores WHERE item_type=$1 "
+          + "ORDER BY confidence DESC, item_id LIMIT $2 OFFSET $3"),
+  // Hourly buckets of an item starting in the given range. Buckets moved into daily buckets aren't returned.
+  GET_HOURLY_HISTORY(
+      "SELECT bucket, up, down FROM vote_rollups_hourly "
+          + "WHERE item_id=$1 AND item_type=$2 AND bucket >= date_trunc('hour', $3::timestamp) AND bucket < $4 AND (up <> 0 OR down <> 0) "
+          + "ORDER BY bucket"),
+  // Daily buckets of an item starting in the given range, including the hourly buckets which haven't been compacted yet
+  GET_DAILY_HISTORY(
+      "SELECT bucket, sum(up)::bigint, sum(down)::bigint FROM ("
+          + "SELECT bucket, up, down FROM vote_rollups_daily "
+          + "WHERE item_id=$1 AND item_type=$2 AND bucket >= date_trunc('day', $3::timestamp) AND bucket < $4 "
+          + "UNION ALL "
+          + "SELECT date_trunc('day', bucket), up, down FROM vote_rollups_hourly "
+          + "WHERE item_id=$1 AND item_type=$2 AND bucket >= date_trunc('day', $3::timestamp) AND bucket < $4) buckets "
+          + "GROUP BY bucket HAVING sum(up) <> 0 OR sum(down) <> 0 ORDER BY bucket"),
+  // Moves hourly buckets of days ending before the given time into daily buckets. Moved rows are locked by the delete, so concurrent compactions
+  // don't move a bucket twice, and a write to a moved bucket creates a new hourly bucket to be moved by the next compaction.
+  COMPACT_HOURLY_ROLLUPS(
+      "WITH moved AS ("
+          + "DELETE FROM vote_rollups_hourly WHERE bucket < date_trunc('day', $1::timestamp) "
+          + "RETURNING item_id, item_type, bucket, up, down), "
+          + "daily AS ("
+          + "INSERT INTO vote_rollups_daily AS d (item_id, item_type, bucket, up, down) "
+          + "SELECT item_id, item_type, date_trunc('day', bucket), sum(up), sum(down) FROM moved GROUP BY 1, 2, 3 "
+          + "ON CONFLICT (item_id, item_type, bucket) DO UPDATE SET up = d.up + EXCLUDED.up, down = d.down + EXCLUDED.down) "
+          + "SELECT count(*) FROM moved"),
+  // Pages through all scores in primary key order, starting after the given key
+  GET_SCORES_PAGE(
+      "SELECT item_id, item_type, up, down FROM vote_scores WHERE (item_id, item_type) > ($1, $2) "
+          + "ORDER BY item_id, item_type LIMIT $3"),
+  // Pages through items of a type in item id order, summing weights of their votes decayed from the given time with the given half-life in
+  // seconds. Exponents are bounded, as Postgres fails on underflow instead of rounding to zero.
+  GET_TRENDING_PAGE(
+      "SELECT item_id, "
+          + "sum(CASE WHEN vote_type=" + Fragment.UP + " THEN 1 ELSE -1 END "
+          + "* power(2::float8, greatest(extract(epoch FROM created_at - $3::timestamp)::float8 / $4::float8, -1000))), "
+          + "count(*) "
+          + "FROM votes WHERE item_type=$1 AND item_id > $2 "
+          + "GROUP BY item_id ORDER BY item_id LIMIT $5");
 
   private final String sql;
 
@@ -40,4 +303,32 @@ public enum Query {
   public String sql() {
     return sql;
   }
+
+  /**
+   * SQL fragments shared by several queries.
+   */
+  private static final class Fragment {
+
+    // Codes of VoteType.UP and VoteType.DOWN
+    private static final String UP = "0";
+    private static final String DOWN = "1";
+    private static final String VOTE_TYPE_CODE = "CASE vote_type WHEN 'UP' THEN 0 WHEN 'DOWN' THEN 1 END";
+    private static final String ITEM_TYPE_CODE = "CASE item_type WHEN 'WISH' THEN 0 WHEN 'COMMENT' THEN 1 END";
+
+    private static final String UP_DELTA = "(CASE WHEN vote_type=" + UP + " THEN 1 ELSE 0 END)";
+    private static final String DOWN_DELTA = "(CASE WHEN vote_type=" + DOWN + " THEN 1 ELSE 0 END)";
+    private static final String SCORES =
+        "scores AS ("
+            + "INSERT INTO vote_scores AS s (item_id, item_type, up, down, version, confidence) "
+            + "SELECT item_id, item_type, sum(up), sum(down), 1, wilson_lower_bound(sum(up), sum(down)) FROM deltas GROUP BY item_id, item_type "
+            + "ON CONFLICT (item_id, item_type) DO UPDATE SET up = s.up + EXCLUDED.up, down = s.down + EXCLUDED.down, version = s.version + 1, "
+            + "confidence = wilson_lower_bound(s.up + EXCLUDED.up, s.down + EXCLUDED.down) "
+            + "RETURNING s.item_id, s.item_type, s.up, s.down, s.version)";
+    private static final String HOURLY_ROLLUPS =
+        "hourly AS ("
+            + "INSERT INTO vote_rollups_hourly AS h (item_id, item_type, bucket, up, down) "
+            + "SELECT item_id, item_type, date_trunc('hour', created_at), sum(up), sum(down) FROM deltas GROUP BY 1, 2, 3 "
+            + "ON CONFLICT (item_id, item_type, bucket) DO UPDATE SET up = h.up + EXCLUDED.up, down = h.down + EXCLUDED.down)";
+    private static final String COUNTERS = SCORES + ", " + HOURLY_ROLLUPS + " ";
+  }
 }
@@ -0,0 +1,100 @@
+package io.appwish.voteservice.repository.impl;
+
+import com.google.protobuf.Timestamp;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
+import io.appwish.voteservice.dto.query.TrendingQuery;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.ScoreOrder;
+import io.appwish.voteservice.dto.type.VoteType;
+import io.appwish.voteservice.repository.Deadline;
+import io.appwish.voteservice.repository.VoteRepository;
+import io.vertx.core.Future;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves top items from an in-memory {@link ScoreRanking} and trending items from an in-memory {@link TrendingRanking} in front of another
+ * repository, which handles everything else.
+ * <p>
+ * The rankings aren't updated here. They should be registered as score change handlers of the {@link PostgresVoteRepository} executing the
+ * writes, so that they only see committed changes. Repositories of all verticle instances should share the rankings.
+ */
+public class RankingVoteRepository implements VoteRepository {
+
+  private final VoteRepository delegate;
+  private final ScoreRanking ranking;
+  private final TrendingRanking trending;
+
+  public RankingVoteRepository(final VoteRepository delegate, final ScoreRanking ranking, final TrendingRanking trending) {
+    this.delegate = delegate;
+    this.ranking = ranking;
+    this.trending = trending;
+  }
+
+  @Override
+  public Future<Vote> vote(final VoteInput input, final String userId, final Deadline deadline) {
+    return delegate.vote(input, userId, deadline);
+  }
+
+  @Override
+  public Future<Vote> upsertVote(final VoteInput input, final String userId, final Deadline deadline) {
+    return delegate.upsertVote(input, userId, deadline);
+  }
+
+  @Override
+  public Future<Vote> updateVote(final VoteInput input, final String userId, final Deadline deadline) {
+    return delegate.updateVote(input, userId, deadline);
+  }
+
+  @Override
+  public Future<Boolean> unvote(final VoteSelector selector, final String userId, final Deadline deadline) {
+    return delegate.unvote(selector, userId, deadline);
+  }
+
+  @Override
+  public Future<Boolean> hasVoted(final VoteSelector selector, final String userId, final boolean readYourWrites,
+      final Deadline deadline) {
+    return delegate.hasVoted(selector, userId, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, VoteType>> userVotes(final List<VoteSelector> selectors, final String userId, final boolean readYourWrites,
+      final Deadline deadline) {
+    return delegate.userVotes(selectors, userId, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Score> voteScore(final VoteSelector selector, final boolean readYourWrites, final Deadline deadline) {
+    return delegate.voteScore(selector, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Score>> voteScores(final List<VoteSelector> selectors, final boolean readYourWrites,
+      final Deadline deadline) {
+    return delegate.voteScores(selectors, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Score>> topItems(final TopItemsQuery query, final Deadline deadline) {
+    // Only scores are ranked in memory, pages ordered by confidence are read from the index on vote_scores
+    if (query.getOrder() == ScoreOrder.CONFIDENCE) {
+      return delegate.topItems(query, deadline);
+    }
+
+    return Future.succeededFuture(ranking.top(query.getItemType(), query.getLimit(), query.getOffset()));
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Double>> trending(final TrendingQuery query, final Deadline deadline) {
+    return Future.succeededFuture(trending.top(query.getItemType(), query.getLimit()));
+  }
+
+  @Override
+  public Future<Map<Timestamp, Score>> scoreHistory(final ScoreHistoryQuery query, final Deadline deadline) {
+    return delegate.scoreHistory(query, deadline);
+  }
+}
@@ -0,0 +1,42 @@
+package io.appwish.voteservice.repository.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.sqlclient.SqlClient;
+import io.vertx.sqlclient.Tuple;
+import java.time.Duration;
+
+/**
+ * Moves hourly vote rollups into daily ones once they're older than the retention of hourly buckets, so that the hourly table only grows with
+ * the number of items voted on within the retention.
+ * <p>
+ * Only whole days are moved, so hourly history is available for at least the retention. Compactions are safe to run concurrently, e.g. from
+ * several instances of the service.
+ */
+public class RollupCompactor {
+
+  private final SqlClient client;
+  private final Duration hourlyRetention;
+
+  public RollupCompactor(final SqlClient client, final Duration hourlyRetention) {
+    this.client = client;
+    this.hourlyRetention = hourlyRetention;
+  }
+
+  /**
+   * Moves the hourly buckets of days which ended before the retention, completing with the number of moved buckets.
+   */
+  public Future<Long> compact() {
+    final Promise<Long> promise = Promise.promise();
+
+    client.preparedQuery(Query.COMPACT_HOURLY_ROLLUPS.sql(), Tuple.of(RowDecoder.now().minus(hourlyRetention)), event -> {
+      if (event.succeeded()) {
+        promise.complete(event.result().iterator().next().getLong(0));
+      } else {
+        promise.fail(event.cause());
+      }
+    });
+
+    return promise.future();
+  }
+}
@@ -0,0 +1,163 @@
+package io.appwish.voteservice.repository.impl;
+
+import com.google.protobuf.Timestamp;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.dto.type.VoteType;
+import io.appwish.voteservice.repository.ScoreChange;
+import io.vertx.sqlclient.Row;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Decodes rows returned by {@link Query} entries.
+ * <p>
+ * Columns are read by position rather than by name, so the positions below have to follow the select lists of the queries.
+ */
+final class RowDecoder {
+
+  // VOTE, UPSERT_VOTE and UPDATE_VOTE: id, user_id, item_id, item_type, vote_type, created_at, up delta, down delta, up, down, version
+  private static final int VOTE_ID = 0;
+  private static final int VOTE_ITEM_ID = 2;
+  private static final int VOTE_ITEM_TYPE = 3;
+  private static final int VOTE_VOTE_TYPE = 4;
+  private static final int VOTE_CREATED_AT = 5;
+  private static final int VOTE_UP_DELTA = 6;
+  private static final int VOTE_DOWN_DELTA = 7;
+  private static final int VOTE_UP = 8;
+  private static final int VOTE_DOWN = 9;
+  private static final int VOTE_VERSION = 10;
+
+  // UNVOTE: item_id, up delta, down delta, created_at, up, down, version
+  private static final int UNVOTE_UP_DELTA = 1;
+  private static final int UNVOTE_DOWN_DELTA = 2;
+  private static final int UNVOTE_CREATED_AT = 3;
+  private static final int UNVOTE_UP = 4;
+  private static final int UNVOTE_DOWN = 5;
+  private static final int UNVOTE_VERSION = 6;
+
+  // GET_SCORE: up, down
+  private static final int SCORE_UP = 0;
+  private static final int SCORE_DOWN = 1;
+
+  // GET_SCORES, GET_TOP_SCORES, GET_SCORES_PAGE and HAS_VOTED_MANY: item_id, item_type, followed by up, down or by vote_type. GET_SCORES
+  // also returns the version after them.
+  private static final int ITEM_ID = 0;
+  private static final int ITEM_TYPE = 1;
+  private static final int ITEM_UP = 2;
+  private static final int ITEM_DOWN = 3;
+  private static final int ITEM_VERSION = 4;
+  private static final int ITEM_VOTE_TYPE = 2;
+
+  // GET_TRENDING_PAGE: item_id, decayed weight, number of votes
+  private static final int TRENDING_ITEM_ID = 0;
+  private static final int TRENDING_WEIGHT = 1;
+  private static final int TRENDING_VOTES = 2;
+
+  // GET_HOURLY_HISTORY and GET_DAILY_HISTORY: bucket, up, down
+  private static final int HISTORY_BUCKET = 0;
+  private static final int HISTORY_UP = 1;
+  private static final int HISTORY_DOWN = 2;
+
+  private RowDecoder() {
+  }
+
+  /**
+   * Decodes a vote row. The user id is taken from the caller, as rows only contain the user's key.
+   */
+  static Vote vote(final Row row, final String userId) {
+    return new Vote(
+        row.getLong(VOTE_ID),
+        userId,
+        row.getLong(VOTE_ITEM_ID),
+        ItemType.fromCode(row.getShort(VOTE_ITEM_TYPE)),
+        VoteType.fromCode(row.getShort(VOTE_VOTE_TYPE)),
+        timestamp(row.getLocalDateTime(VOTE_CREATED_AT)));
+  }
+
+  /**
+   * Decodes the change of the item's counters made by a vote row.
+   */
+  static ScoreChange voteScoreChange(final Row row) {
+    return new ScoreChange(
+        new VoteSelector(row.getLong(VOTE_ITEM_ID), ItemType.fromCode(row.getShort(VOTE_ITEM_TYPE))),
+        row.getLong(VOTE_UP_DELTA),
+        row.getLong(VOTE_DOWN_DELTA),
+        row.getLocalDateTime(VOTE_CREATED_AT),
+        new Score(row.getLong(VOTE_UP), row.getLong(VOTE_DOWN), row.getLong(VOTE_VERSION)));
+  }
+
+  /**
+   * Decodes the change of the item's counters made by an unvote row. The selector is taken from the caller, as rows only contain the item id.
+   */
+  static ScoreChange unvoteScoreChange(final Row row, final VoteSelector selector) {
+    return new ScoreChange(selector, row.getLong(UNVOTE_UP_DELTA), row.getLong(UNVOTE_DOWN_DELTA), row.getLocalDateTime(UNVOTE_CREATED_AT),
+        new Score(row.getLong(UNVOTE_UP), row.getLong(UNVOTE_DOWN), row.getLong(UNVOTE_VERSION)));
+  }
+
+  static Score score(final Row row) {
+    return new Score(row.getLong(SCORE_UP), row.getLong(SCORE_DOWN));
+  }
+
+  static VoteSelector itemSelector(final Row row) {
+    return new VoteSelector(row.getLong(ITEM_ID), ItemType.fromCode(row.getShort(ITEM_TYPE)));
+  }
+
+  static Score itemScore(final Row row) {
+    return new Score(row.getLong(ITEM_UP), row.getLong(ITEM_DOWN));
+  }
+
+  /**
+   * Decodes the score of a GET_SCORES row, which also carries the version of the counters.
+   */
+  static Score versionedItemScore(final Row row) {
+    return new Score(row.getLong(ITEM_UP), row.getLong(ITEM_DOWN), row.getLong(ITEM_VERSION));
+  }
+
+  static VoteType itemVoteType(final Row row) {
+    return VoteType.fromCode(row.getShort(ITEM_VOTE_TYPE));
+  }
+
+  static long trendingItemId(final Row row) {
+    return row.getLong(TRENDING_ITEM_ID);
+  }
+
+  static double trendingWeight(final Row row) {
+    return row.getDouble(TRENDING_WEIGHT);
+  }
+
+  static long trendingVotes(final Row row) {
+    return row.getLong(TRENDING_VOTES);
+  }
+
+  static Timestamp historyBucket(final Row row) {
+    return timestamp(row.getLocalDateTime(HISTORY_BUCKET));
+  }
+
+  static Score historyScore(final Row row) {
+    return new Score(row.getLong(HISTORY_UP), row.getLong(HISTORY_DOWN));
+  }
+
+  /**
+   * Returns the current time to store. Times are stored and compared in UTC, regardless of the zone of the JVM.
+   */
+  static LocalDateTime now() {
+    return LocalDateTime.now(ZoneOffset.UTC);
+  }
+
+  /**
+   * Converts a stored time, which is in UTC, to a timestamp.
+   */
+  static Timestamp timestamp(final LocalDateTime time) {
+    return Timestamp.newBuilder().setSeconds(time.toEpochSecond(ZoneOffset.UTC)).setNanos(time.getNano()).build();
+  }
+
+  /**
+   * Converts a timestamp to the time to store.
+   */
+  static LocalDateTime localDateTime(final Timestamp timestamp) {
+    return LocalDateTime.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos(), ZoneOffset.UTC);
+  }
+}
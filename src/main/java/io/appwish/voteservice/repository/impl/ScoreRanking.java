@@ -0,0 +1,153 @@
+package io.appwish.voteservice.repository.impl;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.repository.ScoreChange;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.SqlClient;
+import io.vertx.sqlclient.Tuple;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory ranking of item scores, kept up to date with the score changes of committed writes.
+ * <p>
+ * Items of each type are kept in a set ordered by score, so a page of the top items is read by walking the set up to the end of the page instead
+ * of sorting all items. A change moves one item within the set in O(log n). Reads don't lock, so a read concurrent with a change may miss the
+ * changed item. Items without any votes aren't kept.
+ * <p>
+ * Changes are relative and can be applied in any order. The ranking only sees writes made in this process, so it should be loaded from vote_scores
+ * before any writes are made, and writes of other processes sharing the database make it drift until it's loaded again on the next start.
+ */
+public class ScoreRanking {
+
+  private static final int LOAD_PAGE_SIZE = 10_000;
+
+  private final Map<ItemType, Ranking> rankings = new EnumMap<>(ItemType.class);
+
+  public ScoreRanking() {
+    for (final ItemType itemType : ItemType.values()) {
+      rankings.put(itemType, new Ranking());
+    }
+  }
+
+  /**
+   * Adds the counters of all items stored in vote_scores, reading them in pages ordered by primary key.
+   */
+  public Future<Void> load(final SqlClient client) {
+    final Promise<Void> promise = Promise.promise();
+    loadPage(client, Long.MIN_VALUE, Short.MIN_VALUE, promise);
+    return promise.future();
+  }
+
+  public void apply(final ScoreChange change) {
+    rankings.get(change.getSelector().getItemType()).add(change.getSelector().getItemId(), change.getUp(), change.getDown());
+  }
+
+  /**
+   * Returns given page of the items of given type with the highest scores, in the order of their scores. Ties are ordered by item id.
+   * <p>
+   * Skipping the offset takes time proportional to it, callers have to bound it.
+   */
+  public Map<VoteSelector, Score> top(final ItemType itemType, final int limit, final int offset) {
+    final Map<VoteSelector, Score> top = new LinkedHashMap<>();
+    final Iterator<Ranked> ranked = rankings.get(itemType).order.iterator();
+
+    for (int skipped = 0; skipped < offset && ranked.hasNext(); skipped++) {
+      ranked.next();
+    }
+
+    while (top.size() < limit && ranked.hasNext()) {
+      final Ranked item = ranked.next();
+      top.put(new VoteSelector(item.itemId, itemType), new Score(item.up, item.down));
+    }
+
+    return top;
+  }
+
+  /**
+   * Returns how many items of all types are ranked.
+   */
+  public int size() {
+    return rankings.values().stream().mapToInt(ranking -> ranking.order.size()).sum();
+  }
+
+  private void loadPage(final SqlClient client, final long afterItemId, final short afterItemType, final Promise<Void> promise) {
+    client.preparedQuery(Query.GET_SCORES_PAGE.sql(), Tuple.of(afterItemId, afterItemType, (long) LOAD_PAGE_SIZE), event -> {
+      if (event.failed()) {
+        promise.fail(event.cause());
+        return;
+      }
+
+      VoteSelector last = null;
+
+      for (Row row : event.result()) {
+        final Score score = RowDecoder.itemScore(row);
+        last = RowDecoder.itemSelector(row);
+        rankings.get(last.getItemType()).add(last.getItemId(), score.getUp(), score.getDown());
+      }
+
+      if (event.result().size() < LOAD_PAGE_SIZE) {
+        promise.complete();
+      } else {
+        loadPage(client, last.getItemId(), last.getItemType().code(), promise);
+      }
+    });
+  }
+
+  private static final class Ranking {
+
+    private final Map<Long, Ranked> items = new HashMap<>();
+    private final NavigableSet<Ranked> order = new ConcurrentSkipListSet<>();
+
+    private synchronized void add(final long itemId, final long up, final long down) {
+      final Ranked previous = items.get(itemId);
+      final long newUp = isNull(previous) ? up : previous.up + up;
+      final long newDown = isNull(previous) ? down : previous.down + down;
+
+      if (nonNull(previous)) {
+        order.remove(previous);
+      }
+
+      if (newUp == 0 && newDown == 0) {
+        items.remove(itemId);
+        return;
+      }
+
+      final Ranked next = new Ranked(itemId, newUp, newDown);
+      items.put(itemId, next);
+      order.add(next);
+    }
+  }
+
+  private static final class Ranked implements Comparable<Ranked> {
+
+    private final long itemId;
+    private final long up;
+    private final long down;
+
+    private Ranked(final long itemId, final long up, final long down) {
+      this.itemId = itemId;
+      this.up = up;
+      this.down = down;
+    }
+
+    @Override
+    public int compareTo(final Ranked other) {
+      // Higher scores first
+      final int byScore = Long.compare(other.up - other.down, up - down);
+      return byScore != 0 ? byScore : Long.compare(itemId, other.itemId);
+    }
+  }
+}
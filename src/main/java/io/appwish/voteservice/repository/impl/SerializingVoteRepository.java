@@ -0,0 +1,133 @@
+package io.appwish.voteservice.repository.impl;
+
+import com.google.protobuf.Timestamp;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
+import io.appwish.voteservice.dto.query.TrendingQuery;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.VoteType;
+import io.appwish.voteservice.repository.Deadline;
+import io.appwish.voteservice.repository.VoteRepository;
+import io.vertx.core.Future;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Orders writes of the same user on the same item, so that e.g. a double-click or a retry can't race with the original request. The writes are
+ * executed in the order they arrived and the last one wins.
+ * <p>
+ * Repositories of all verticle instances should share one {@link KeyedSerializer}, as requests of a user may be handled by any of them.
+ */
+public class SerializingVoteRepository implements VoteRepository {
+
+  private final VoteRepository delegate;
+  private final KeyedSerializer<UserItem> serializer;
+
+  public SerializingVoteRepository(final VoteRepository delegate, final KeyedSerializer<UserItem> serializer) {
+    this.delegate = delegate;
+    this.serializer = serializer;
+  }
+
+  @Override
+  public Future<Vote> vote(final VoteInput input, final String userId, final Deadline deadline) {
+    return serializer.execute(new UserItem(userId, input), () -> delegate.vote(input, userId, deadline));
+  }
+
+  @Override
+  public Future<Vote> upsertVote(final VoteInput input, final String userId, final Deadline deadline) {
+    return serializer.execute(new UserItem(userId, input), () -> delegate.upsertVote(input, userId, deadline));
+  }
+
+  @Override
+  public Future<Vote> updateVote(final VoteInput input, final String userId, final Deadline deadline) {
+    return serializer.execute(new UserItem(userId, input), () -> delegate.updateVote(input, userId, deadline));
+  }
+
+  @Override
+  public Future<Boolean> unvote(final VoteSelector selector, final String userId, final Deadline deadline) {
+    return serializer.execute(new UserItem(userId, selector), () -> delegate.unvote(selector, userId, deadline));
+  }
+
+  @Override
+  public Future<Boolean> hasVoted(final VoteSelector selector, final String userId, final boolean readYourWrites,
+      final Deadline deadline) {
+    return delegate.hasVoted(selector, userId, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, VoteType>> userVotes(final List<VoteSelector> selectors, final String userId, final boolean readYourWrites,
+      final Deadline deadline) {
+    return delegate.userVotes(selectors, userId, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Score> voteScore(final VoteSelector selector, final boolean readYourWrites, final Deadline deadline) {
+    return delegate.voteScore(selector, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Score>> voteScores(final List<VoteSelector> selectors, final boolean readYourWrites,
+      final Deadline deadline) {
+    return delegate.voteScores(selectors, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Score>> topItems(final TopItemsQuery query, final Deadline deadline) {
+    return delegate.topItems(query, deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Double>> trending(final TrendingQuery query, final Deadline deadline) {
+    return delegate.trending(query, deadline);
+  }
+
+  @Override
+  public Future<Map<Timestamp, Score>> scoreHistory(final ScoreHistoryQuery query, final Deadline deadline) {
+    return delegate.scoreHistory(query, deadline);
+  }
+
+  /**
+   * Identifies writes which have to be ordered.
+   */
+  public static final class UserItem {
+
+    private final String userId;
+    private final long itemId;
+    private final short itemType;
+
+    private UserItem(final String userId, final VoteInput input) {
+      this.userId = userId;
+      this.itemId = input.getItemId();
+      this.itemType = input.getItemType().code();
+    }
+
+    private UserItem(final String userId, final VoteSelector selector) {
+      this.userId = userId;
+      this.itemId = selector.getItemId();
+      this.itemType = selector.getItemType().code();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final UserItem userItem = (UserItem) o;
+      return itemId == userItem.itemId &&
+          itemType == userItem.itemType &&
+          Objects.equals(userId, userItem.userId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(userId, itemId, itemType);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package io.appwish.voteservice.repository.impl;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent identical queries into one.
+ * <p>
+ * While a query for a key is in flight, later requests for the same key wait for its result instead of executing the query again.
+ * <p>
+ * Repositories of all verticle instances should share one instance, so that identical queries are collapsed across all of them. Every request is
+ * completed on the context it was made on.
+ */
+public class SingleFlight<K, V> {
+
+  private final Map<K, List<Waiter<V>>> inFlight = new HashMap<>();
+  private final AtomicLong collapsed = new AtomicLong();
+
+  /**
+   * Returns the result of the query for given key, executing the query only if there's none in flight already.
+   */
+  public Future<V> execute(final K key, final Supplier<Future<V>> query) {
+    final Waiter<V> waiter = new Waiter<>(Vertx.currentContext());
+
+    synchronized (inFlight) {
+      final List<Waiter<V>> waiting = inFlight.get(key);
+
+      if (nonNull(waiting)) {
+        waiting.add(waiter);
+        collapsed.incrementAndGet();
+        return waiter.promise.future();
+      }
+
+      final List<Waiter<V>> first = new ArrayList<>();
+      first.add(waiter);
+      inFlight.put(key, first);
+    }
+
+    started(query).setHandler(event -> {
+      final List<Waiter<V>> waiting;
+
+      synchronized (inFlight) {
+        waiting = inFlight.remove(key);
+      }
+
+      waiting.forEach(request -> request.complete(event));
+    });
+
+    return waiter.promise.future();
+  }
+
+  /**
+   * Starts the query. A query throwing instead of returning a failed future fails all requests waiting for it, so none of them waits forever.
+   */
+  private Future<V> started(final Supplier<Future<V>> query) {
+    try {
+      return query.get();
+    } catch (final RuntimeException e) {
+      return Future.failedFuture(e);
+    }
+  }
+
+  /**
+   * Returns how many requests have been served by a query executed for another request.
+   */
+  public long collapsed() {
+    return collapsed.get();
+  }
+
+  private static final class Waiter<V> {
+
+    private final Promise<V> promise = Promise.promise();
+    private final Context context;
+
+    private Waiter(final Context context) {
+      this.context = context;
+    }
+
+    /**
+     * Completes the request. The query completes on the context of the request which started it, so others are moved back to their own context.
+     */
+    private void complete(final AsyncResult<V> result) {
+      if (isNull(context) || context == Vertx.currentContext()) {
+        promise.handle(result);
+      } else {
+        context.runOnContext(ignored -> promise.handle(result));
+      }
+    }
+  }
+}
@@ -0,0 +1,254 @@
+package io.appwish.voteservice.repository.impl;
+
+import io.appwish.voteservice.metrics.LatencyHistogram;
+import io.appwish.voteservice.metrics.LatencyHistograms;
+import io.appwish.voteservice.metrics.Metrics;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.sqlclient.Tuple;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks execution time, rows and errors of each {@link Query}, similar to pg_stat_statements but measured by the client, so times include
+ * waiting for a connection and the network round trip.
+ * <p>
+ * Queries slower than the threshold are logged with their parameters. Each query is logged at most once per interval, slow executions in between
+ * are only counted and reported with the next logged one.
+ * <p>
+ * Repositories of all verticle instances should share one instance, so that the statistics cover all of them.
+ */
+public class StatementStatistics {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StatementStatistics.class);
+
+  private final Map<Query, Statement> statements = new EnumMap<>(Query.class);
+  private final long slowThresholdNanos;
+  private final long slowLogIntervalNanos;
+
+  /**
+   * Creates statistics recording latencies in histograms of their own, without logging slow queries. Latencies recorded this way aren't exported
+   * with the metrics, pass {@link Metrics#QUERY_LATENCY} to the other constructor for that.
+   */
+  public StatementStatistics() {
+    // Shared histograms would mix latencies of other instances into quantiles summarized with this instance's maximum, rows and errors
+    this(new LatencyHistograms("statement_statistics_seconds", "Query latency recorded by a single instance of statistics.", "query"), 0, 0);
+  }
+
+  /**
+   * Creates statistics recording latencies in given histograms. Slow queries aren't logged with zero threshold.
+   */
+  public StatementStatistics(final LatencyHistograms latencies, final long slowThresholdMillis, final long slowLogIntervalMillis) {
+    this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    this.slowLogIntervalNanos = TimeUnit.MILLISECONDS.toNanos(slowLogIntervalMillis);
+
+    for (final Query query : Query.values()) {
+      statements.put(query, new Statement(latencies.labels(query.name())));
+    }
+  }
+
+  /**
+   * Records an execution of given query. Parameters are either a {@link Tuple} or a list of them for batches and are only used for logging.
+   */
+  void record(final Query query, final Object parameters, final long nanos, final long rows, final boolean failed) {
+    final Statement statement = statements.get(query);
+    statement.latency.record(nanos);
+    statement.maxNanos.accumulateAndGet(nanos, Math::max);
+    statement.rows.add(rows);
+
+    if (failed) {
+      statement.errors.increment();
+    }
+
+    if (slowThresholdNanos > 0 && nanos >= slowThresholdNanos) {
+      slow(query, statement, parameters, nanos);
+    }
+  }
+
+  /**
+   * Returns statistics of queries which have been executed at least once.
+   */
+  public Map<Query, Summary> summary() {
+    final Map<Query, Summary> summary = new EnumMap<>(Query.class);
+
+    statements.forEach((query, statement) -> {
+      final long calls = statement.latency.count();
+
+      if (calls > 0) {
+        final long maxNanos = statement.maxNanos.get();
+        summary.put(query, new Summary(
+            calls,
+            statement.errors.sum(),
+            statement.rows.sum(),
+            statement.latency.sumNanos(),
+            // Quantiles are upper bounds of histogram buckets, which may exceed the exact maximum
+            Math.min(statement.latency.quantileNanos(0.5), maxNanos),
+            Math.min(statement.latency.quantileNanos(0.99), maxNanos),
+            maxNanos));
+      }
+    });
+
+    return summary;
+  }
+
+  /**
+   * Returns how many slow queries have been logged.
+   */
+  public long slowQueriesLogged() {
+    return statements.values().stream().mapToLong(statement -> statement.slowLogged.sum()).sum();
+  }
+
+  /**
+   * Returns how many slow queries have only been counted, because the same query had been logged recently.
+   */
+  public long slowQueriesSuppressed() {
+    return statements.values().stream().mapToLong(statement -> statement.slowSuppressed.sum()).sum();
+  }
+
+  private void slow(final Query query, final Statement statement, final Object parameters, final long nanos) {
+    final long now = System.nanoTime();
+    final long next = statement.nextSlowLog.get();
+
+    if (now - next < 0 || !statement.nextSlowLog.compareAndSet(next, now + slowLogIntervalNanos)) {
+      statement.slowSuppressed.increment();
+      statement.suppressedSinceLog.increment();
+      return;
+    }
+
+    statement.slowLogged.increment();
+    LOG.warn("Slow query " + query + " took " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms with parameters " + render(parameters)
+        + " (" + statement.suppressedSinceLog.sumThenReset() + " more slow executions since the last one logged)");
+  }
+
+  private static String render(final Object parameters) {
+    if (parameters instanceof Tuple) {
+      final Tuple tuple = (Tuple) parameters;
+      final List<String> values = new ArrayList<>(tuple.size());
+
+      for (int i = 0; i < tuple.size(); i++) {
+        final Object value = tuple.getValue(i);
+        values.add(value instanceof Object[] ? Arrays.deepToString((Object[]) value) : Objects.toString(value));
+      }
+
+      return values.toString();
+    }
+
+    if (parameters instanceof List) {
+      final List<String> tuples = new ArrayList<>();
+      ((List<?>) parameters).forEach(tuple -> tuples.add(render(tuple)));
+      return tuples.toString();
+    }
+
+    return Objects.toString(parameters);
+  }
+
+  /**
+   * Statistics of one query at the time of reading them. Times are in milliseconds.
+   */
+  public static final class Summary {
+
+    private final long calls;
+    private final long errors;
+    private final long rows;
+    private final double totalMillis;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    private Summary(final long calls, final long errors, final long rows, final long totalNanos, final long p50Nanos, final long p99Nanos,
+        final long maxNanos) {
+      this.calls = calls;
+      this.errors = errors;
+      this.rows = rows;
+      this.totalMillis = millis(totalNanos);
+      this.p50Millis = millis(p50Nanos);
+      this.p99Millis = millis(p99Nanos);
+      this.maxMillis = millis(maxNanos);
+    }
+
+    public long getCalls() {
+      return calls;
+    }
+
+    public long getErrors() {
+      return errors;
+    }
+
+    public long getRows() {
+      return rows;
+    }
+
+    public double getTotalMillis() {
+      return totalMillis;
+    }
+
+    public double getMeanMillis() {
+      return totalMillis / calls;
+    }
+
+    public double getP50Millis() {
+      return p50Millis;
+    }
+
+    public double getP99Millis() {
+      return p99Millis;
+    }
+
+    public double getMaxMillis() {
+      return maxMillis;
+    }
+
+    public JsonObject toJson() {
+      return new JsonObject()
+          .put("calls", calls)
+          .put("errors", errors)
+          .put("rows", rows)
+          .put("totalMs", totalMillis)
+          .put("meanMs", getMeanMillis())
+          .put("p50Ms", p50Millis)
+          .put("p99Ms", p99Millis)
+          .put("maxMs", maxMillis);
+    }
+
+    @Override
+    public String toString() {
+      return "Summary{" +
+          "calls=" + calls +
+          ", errors=" + errors +
+          ", rows=" + rows +
+          ", totalMillis=" + totalMillis +
+          ", p50Millis=" + p50Millis +
+          ", p99Millis=" + p99Millis +
+          ", maxMillis=" + maxMillis +
+          '}';
+    }
+
+    private static double millis(final long nanos) {
+      return nanos / 1e6;
+    }
+  }
+
+  private static final class Statement {
+
+    private final LatencyHistogram latency;
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicLong nextSlowLog = new AtomicLong(System.nanoTime());
+    private final LongAdder slowLogged = new LongAdder();
+    private final LongAdder slowSuppressed = new LongAdder();
+    private final LongAdder suppressedSinceLog = new LongAdder();
+
+    private Statement(final LatencyHistogram latency) {
+      this.latency = latency;
+    }
+  }
+}
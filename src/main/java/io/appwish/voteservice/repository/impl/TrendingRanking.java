@@ -0,0 +1,230 @@
+package io.appwish.voteservice.repository.impl;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.repository.ScoreChange;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.SqlClient;
+import io.vertx.sqlclient.Tuple;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory ranking of items by exponentially decayed scores, kept up to date with the score changes of committed writes.
+ * <p>
+ * Every up vote adds and every down vote subtracts a weight which halves each half-life after the vote was created. Instead of decaying all
+ * weights as time passes, weights are kept relative to a fixed point in time, as 2^((created_at - landmark) / half-life). Decay multiplies all
+ * weights of a type by the same factor, so it never changes their order, and a vote changes a single weight in O(1) plus O(log n) to move the
+ * item within the order. The decayed score is only computed for the items being read.
+ * <p>
+ * Weights of new votes grow exponentially with the distance from the landmark, so once they would get too large, the landmark is moved forward
+ * and all weights of the type are scaled down. This happens once every 64 half-lives.
+ * <p>
+ * Changes can be applied in any order. Like {@link ScoreRanking}, it only sees writes made in this process, so it should be loaded before any
+ * writes are made. Creation times are compared with the local clock, which is also used for creation times of new votes.
+ */
+public class TrendingRanking {
+
+  private static final int LOAD_PAGE_SIZE = 10_000;
+  private static final int REBASE_EXPONENT = 64;
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final Map<ItemType, Ranking> rankings = new EnumMap<>(ItemType.class);
+
+  /**
+   * Creates a ranking decaying scores of each item type with its half-life. Every item type needs a half-life.
+   */
+  public TrendingRanking(final Map<ItemType, Duration> halfLives) {
+    final LocalDateTime landmark = RowDecoder.now();
+
+    for (final ItemType itemType : ItemType.values()) {
+      rankings.put(itemType, new Ranking(halfLives.get(itemType), landmark));
+    }
+  }
+
+  /**
+   * Sums decayed weights of all votes stored in the votes table, reading them in pages of items ordered by item id.
+   */
+  public Future<Void> load(final SqlClient client) {
+    final Promise<Void> promise = Promise.promise();
+    loadType(client, 0, promise);
+    return promise.future();
+  }
+
+  public void apply(final ScoreChange change) {
+    rankings.get(change.getSelector().getItemType())
+        .add(change.getSelector().getItemId(), change.getUp() - change.getDown(), change.getUp() + change.getDown(), change.getCreatedAt());
+  }
+
+  /**
+   * Returns items of given type with the highest decayed scores at the time of reading, in the order of their scores. Ties are ordered by item id.
+   */
+  public Map<VoteSelector, Double> top(final ItemType itemType, final int limit) {
+    final Map<VoteSelector, Double> top = new LinkedHashMap<>();
+    final Ranking ranking = rankings.get(itemType);
+    final State state = ranking.state;
+    final double decay = Math.pow(2, -ranking.exponent(state.landmark, RowDecoder.now()));
+    final Iterator<Hot> hot = state.order.iterator();
+
+    while (top.size() < limit && hot.hasNext()) {
+      final Hot item = hot.next();
+      top.put(new VoteSelector(item.itemId, itemType), item.weight * decay);
+    }
+
+    return top;
+  }
+
+  /**
+   * Returns how many items of all types are ranked.
+   */
+  public int size() {
+    return rankings.values().stream().mapToInt(ranking -> ranking.state.order.size()).sum();
+  }
+
+  private void loadType(final SqlClient client, final int typeIndex, final Promise<Void> promise) {
+    if (typeIndex == ItemType.values().length) {
+      promise.complete();
+      return;
+    }
+
+    final ItemType itemType = ItemType.values()[typeIndex];
+    final Promise<Void> loaded = Promise.promise();
+    loadPage(client, itemType, Long.MIN_VALUE, loaded);
+    loaded.future().setHandler(event -> {
+      if (event.succeeded()) {
+        loadType(client, typeIndex + 1, promise);
+      } else {
+        promise.fail(event.cause());
+      }
+    });
+  }
+
+  private void loadPage(final SqlClient client, final ItemType itemType, final long afterItemId, final Promise<Void> promise) {
+    final Ranking ranking = rankings.get(itemType);
+    final Tuple tuple = Tuple.of(itemType.code(), afterItemId, ranking.state.landmark, ranking.halfLifeSeconds, (long) LOAD_PAGE_SIZE);
+
+    client.preparedQuery(Query.GET_TRENDING_PAGE.sql(), tuple, event -> {
+      if (event.failed()) {
+        promise.fail(event.cause());
+        return;
+      }
+
+      long last = afterItemId;
+
+      for (Row row : event.result()) {
+        last = RowDecoder.trendingItemId(row);
+        ranking.addWeight(last, RowDecoder.trendingWeight(row), RowDecoder.trendingVotes(row));
+      }
+
+      if (event.result().size() < LOAD_PAGE_SIZE) {
+        promise.complete();
+      } else {
+        loadPage(client, itemType, last, promise);
+      }
+    });
+  }
+
+  private static final class Ranking {
+
+    private final double halfLifeSeconds;
+    private final Map<Long, Hot> items = new HashMap<>();
+    // Replaced as a whole when the landmark moves, so that reads never see weights relative to different landmarks
+    private volatile State state;
+
+    private Ranking(final Duration halfLife, final LocalDateTime landmark) {
+      this.halfLifeSeconds = halfLife.toNanos() / NANOS_PER_SECOND;
+      this.state = new State(landmark, new ConcurrentSkipListSet<>());
+    }
+
+    private synchronized void add(final long itemId, final long score, final long votes, final LocalDateTime createdAt) {
+      double exponent = exponent(state.landmark, createdAt);
+
+      if (exponent > REBASE_EXPONENT) {
+        rebase(createdAt);
+        exponent = 0;
+      }
+
+      addWeight(itemId, score * Math.pow(2, exponent), votes);
+    }
+
+    private synchronized void addWeight(final long itemId, final double weight, final long votes) {
+      final Hot previous = items.get(itemId);
+      final double newWeight = isNull(previous) ? weight : previous.weight + weight;
+      final long newVotes = isNull(previous) ? votes : previous.votes + votes;
+
+      if (nonNull(previous)) {
+        state.order.remove(previous);
+      }
+
+      // Weights of removed votes may not cancel out exactly, so items are removed by their number of votes
+      if (newVotes == 0) {
+        items.remove(itemId);
+        return;
+      }
+
+      final Hot next = new Hot(itemId, newWeight, newVotes);
+      items.put(itemId, next);
+      state.order.add(next);
+    }
+
+    private void rebase(final LocalDateTime landmark) {
+      final double scale = Math.pow(2, -exponent(state.landmark, landmark));
+      final NavigableSet<Hot> order = new ConcurrentSkipListSet<>();
+
+      items.replaceAll((itemId, hot) -> {
+        final Hot scaled = new Hot(itemId, hot.weight * scale, hot.votes);
+        order.add(scaled);
+        return scaled;
+      });
+
+      state = new State(landmark, order);
+    }
+
+    private double exponent(final LocalDateTime landmark, final LocalDateTime time) {
+      return Duration.between(landmark, time).toNanos() / NANOS_PER_SECOND / halfLifeSeconds;
+    }
+  }
+
+  private static final class State {
+
+    private final LocalDateTime landmark;
+    private final NavigableSet<Hot> order;
+
+    private State(final LocalDateTime landmark, final NavigableSet<Hot> order) {
+      this.landmark = landmark;
+      this.order = order;
+    }
+  }
+
+  private static final class Hot implements Comparable<Hot> {
+
+    private final long itemId;
+    private final double weight;
+    private final long votes;
+
+    private Hot(final long itemId, final double weight, final long votes) {
+      this.itemId = itemId;
+      this.weight = weight;
+      this.votes = votes;
+    }
+
+    @Override
+    public int compareTo(final Hot other) {
+      // Higher weights first
+      final int byWeight = Double.compare(other.weight, weight);
+      return byWeight != 0 ? byWeight : Long.compare(itemId, other.itemId);
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package io.appwish.voteservice.repository.impl;
+
+import static java.util.Objects.nonNull;
+
+import io.appwish.voteservice.metrics.Metrics;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.pgclient.PgPool;
+import io.vertx.sqlclient.Tuple;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Translates user ids to integer keys of users_dict rows, which are used to store users in the votes table.
+ * <p>
+ * User keys never change, so the most recently used ones are cached in-process to avoid the lookup query.
+ */
+public class UserKeys {
+
+  private static final String ID_COLUMN = "id";
+
+  private final MeteredPool client;
+  private final Map<String, Integer> cache;
+
+  public UserKeys(final PgPool client, final int cacheSize) {
+    this(client, cacheSize, new StatementStatistics());
+  }
+
+  public UserKeys(final PgPool client, final int cacheSize, final StatementStatistics statistics) {
+    this.client = new MeteredPool(client, Metrics.PRIMARY_POOL, statistics);
+    this.cache = new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, Integer> eldest) {
+        return size() > cacheSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the key of given user or null if the user hasn't been stored yet.
+   */
+  public Future<Integer> find(final String userId) {
+    return lookup(Query.FIND_USER_KEY, userId);
+  }
+
+  /**
+   * Returns the key of given user. Stores the user if needed.
+   * <p>
+   * Existing users are looked up first, as inserting them again would write to the table on every cache miss.
+   */
+  public Future<Integer> findOrCreate(final String userId) {
+    return find(userId)
+        .compose(found -> nonNull(found) ? Future.succeededFuture(found) : lookup(Query.CREATE_USER_KEY, userId))
+        // The user was stored by a concurrent statement, which the insert doesn't return
+        .compose(created -> nonNull(created) ? Future.succeededFuture(created) : find(userId));
+  }
+
+  private Future<Integer> lookup(final Query query, final String userId) {
+    final Integer cached;
+
+    synchronized (cache) {
+      cached = cache.get(userId);
+    }
+
+    if (nonNull(cached)) {
+      return Future.succeededFuture(cached);
+    }
+
+    final Promise<Integer> promise = Promise.promise();
+
+    client.preparedQuery(query, Tuple.of(userId), event -> {
+      if (event.succeeded()) {
+        if (event.result().iterator().hasNext()) {
+          final Integer key = event.result().iterator().next().getInteger(ID_COLUMN);
+
+          synchronized (cache) {
+            cache.put(userId, key);
+          }
+
+          promise.complete(key);
+        } else {
+          promise.complete(null);
+        }
+      } else {
+        promise.fail(event.cause());
+      }
+    });
+
+    return promise.future();
+  }
+}
@@ -2,15 +2,26 @@ package io.appwish.voteservice.service;
 
 import static java.util.Objects.isNull;
 
-import io.appwish.voteservice.dto.Vote;
 import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
+import io.appwish.voteservice.dto.query.TrendingQuery;
 import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.query.VoteSelectors;
+import io.appwish.voteservice.dto.reply.HasVotedManyReply;
+import io.appwish.voteservice.dto.reply.ScoreHistoryReply;
+import io.appwish.voteservice.dto.reply.TrendingReply;
+import io.appwish.voteservice.dto.reply.VoteScoresReply;
 import io.appwish.voteservice.eventbus.Address;
+import io.appwish.voteservice.metrics.LatencyHistogram;
+import io.appwish.voteservice.metrics.Metrics;
+import io.appwish.voteservice.repository.Deadline;
 import io.appwish.voteservice.repository.VoteRepository;
-import io.vertx.core.AsyncResult;
-import io.vertx.core.Handler;
+import io.vertx.core.Future;
 import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.eventbus.Message;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Exposes the vote repository on the event bus. Takes data from the vote repository and replies to requests on the event bus.
@@ -18,94 +29,75 @@ import io.vertx.core.eventbus.Message;
 public class DatabaseService {
 
   private static final String USER_ID = "userId";
+  private static final String READ_YOUR_WRITES = "readYourWrites";
+  private static final String TIMEOUT_MS = "timeoutMs";
 
   private final EventBus eventBus;
-  private final VoteRepository voteRepository;
+  private final VoteOperations voteOperations;
 
   public DatabaseService(final EventBus eventBus, final VoteRepository voteRepository) {
     this.eventBus = eventBus;
-    this.voteRepository = voteRepository;
+    this.voteOperations = new RepositoryVoteOperations(voteRepository);
   }
 
   public void registerEventBusEventHandlers() {
-    eventBus.<VoteInput>consumer(Address.VOTE.get())
-        .handler(event -> {
-          final String userId = event.headers().get(USER_ID);
-
-          if (isNull(userId)) {
-            event.fail(1, "User needs to be logged in to vote");
-            return;
-          }
-
-          final VoteSelector selector = new VoteSelector(event.body().getItemId(), event.body().getItemType());
-
-          voteRepository.hasVoted(selector, userId)
-              .onSuccess(voted -> {
-                if (!voted) {
-                  voteRepository.vote(event.body(), userId).setHandler(voteHandler(event));
-                } else {
-                  final VoteInput input = new VoteInput(event.body().getItemId(), event.body().getItemType(), event.body().getVoteType());
-                  // TODO create separate handler
-                  voteRepository.updateVote(input, userId).setHandler(voteHandler(event));
-                }
-              })
-              .onFailure(failure -> event.fail(1, failure.getMessage()));
-        });
-
-    eventBus.<VoteSelector>consumer(Address.UNVOTE.get())
-        .handler(event -> {
-          final String userId = event.headers().get(USER_ID);
-
-          if (isNull(userId)) {
-            event.fail(1, "User needs to be authenticated to unvote");
-            return;
-          }
-
-          voteRepository.unvote(event.body(), userId).setHandler(unvoteHandler(event));
-        });
-
-    eventBus.<VoteSelector>consumer(Address.HAS_VOTED.get())
-        .handler(event -> {
-          final String userId = event.headers().get(USER_ID);
-
-          if (isNull(userId)) {
-            event.fail(1, "To check if voted, user needs to be authenticated");
-            return;
-          }
-
-          // TODO create separate handler
-          voteRepository.hasVoted(
-              new VoteSelector(event.body().getItemId(), event.body().getItemType()), userId)
-              .onSuccess(event::reply)
-              .onFailure(f -> event.fail(1, f.getMessage()));
-        });
-
-    eventBus.<VoteSelector>consumer(Address.VOTE_SCORE.get())
-        .handler(event -> {
-          // TODO create separate handler
-          voteRepository.voteScore(event.body())
-              .onSuccess(event::reply)
-              .onFailure(f -> event.fail(1, f.getMessage()));
-        });
+    this.<VoteInput>consume(Address.VOTE, event -> voteOperations.vote(event.body(), userId(event), deadline(event)));
+
+    this.<VoteSelector>consume(Address.UNVOTE, event -> voteOperations.unvote(event.body(), userId(event), deadline(event)));
+
+    this.<VoteSelector>consume(Address.HAS_VOTED,
+        event -> voteOperations.hasVoted(event.body(), userId(event), readYourWrites(event), deadline(event)));
+
+    this.<VoteSelectors>consume(Address.HAS_VOTED_MANY,
+        event -> voteOperations.userVotes(event.body().getSelectors(), userId(event), readYourWrites(event), deadline(event))
+            .map(HasVotedManyReply::new));
+
+    this.<VoteSelector>consume(Address.VOTE_SCORE, event -> voteOperations.voteScore(event.body(), readYourWrites(event), deadline(event)));
+
+    this.<VoteSelectors>consume(Address.VOTE_SCORES,
+        event -> voteOperations.voteScores(event.body().getSelectors(), readYourWrites(event), deadline(event))
+            .map(VoteScoresReply::new));
+
+    this.<TopItemsQuery>consume(Address.TOP_ITEMS, event -> voteOperations.topItems(event.body(), deadline(event)).map(VoteScoresReply::new));
+
+    this.<TrendingQuery>consume(Address.TRENDING, event -> voteOperations.trending(event.body(), deadline(event)).map(TrendingReply::new));
+
+    this.<ScoreHistoryQuery>consume(Address.SCORE_HISTORY,
+        event -> voteOperations.scoreHistory(event.body(), deadline(event)).map(ScoreHistoryReply::new));
+  }
+
+  /**
+   * Registers a consumer replying with the result of given operation and recording how long it took.
+   */
+  private <T> void consume(final Address address, final Function<Message<T>, Future<?>> operation) {
+    final LatencyHistogram latency = Metrics.EVENT_BUS_CONSUMER_LATENCY.labels(address.name());
+
+    eventBus.<T>consumer(address.get()).handler(event -> {
+      final long start = System.nanoTime();
+
+      operation.apply(event).setHandler(query -> {
+        latency.record(System.nanoTime() - start);
+
+        if (query.succeeded()) {
+          event.reply(query.result());
+        } else {
+          event.fail(1, query.cause().getMessage());
+        }
+      });
+    });
+  }
+
+  private static String userId(final Message<?> event) {
+    return event.headers().get(USER_ID);
   }
 
-  private Handler<AsyncResult<Vote>> voteHandler(final Message<VoteInput> event) {
-    return query -> {
-      if (query.succeeded()) {
-        event.reply(query.result());
-      } else {
-        event.fail(1, query.cause().getMessage());
-      }
-    };
+  private static boolean readYourWrites(final Message<?> event) {
+    return Boolean.parseBoolean(event.headers().get(READ_YOUR_WRITES));
   }
 
-  private Handler<AsyncResult<Boolean>> unvoteHandler(final Message<VoteSelector> event) {
-    return query -> {
-      if (query.succeeded()) {
-        event.reply(query.result());
-      } else {
-        event.fail(1, query.cause().getMessage());
-      }
-    };
+  private static Deadline deadline(final Message<?> event) {
+    final String timeoutMs = event.headers().get(TIMEOUT_MS);
+    // Time spent in transit isn't accounted for, the sender stops waiting for the reply at the deadline anyway
+    return isNull(timeoutMs) ? Deadline.NONE : Deadline.after(Long.parseLong(timeoutMs), TimeUnit.MILLISECONDS);
   }
 }
@@ -0,0 +1,146 @@
+package io.appwish.voteservice.service;
+
+import static java.util.Objects.nonNull;
+
+import com.google.protobuf.Timestamp;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
+import io.appwish.voteservice.dto.query.TrendingQuery;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.query.VoteSelectors;
+import io.appwish.voteservice.dto.reply.HasVotedManyReply;
+import io.appwish.voteservice.dto.reply.ScoreHistoryReply;
+import io.appwish.voteservice.dto.reply.TrendingReply;
+import io.appwish.voteservice.dto.reply.VoteScoresReply;
+import io.appwish.voteservice.dto.type.VoteType;
+import io.appwish.voteservice.eventbus.Address;
+import io.appwish.voteservice.metrics.LatencyHistogram;
+import io.appwish.voteservice.metrics.Metrics;
+import io.appwish.voteservice.repository.Deadline;
+import io.appwish.voteservice.repository.DeadlineExceededException;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.EventBus;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends operations on the event bus to be executed by {@link DatabaseService}, possibly deployed in another verticle or JVM.
+ */
+public class EventBusVoteOperations implements VoteOperations {
+
+  private static final String USER_ID = "userId";
+  private static final String READ_YOUR_WRITES = "readYourWrites";
+  private static final String TIMEOUT_MS = "timeoutMs";
+  private static final String EVENT_BUS_STAGE = "eventbus";
+
+  private final EventBus eventBus;
+
+  public EventBusVoteOperations(final EventBus eventBus) {
+    this.eventBus = eventBus;
+  }
+
+  @Override
+  public Future<Vote> vote(final VoteInput input, final String userId, final Deadline deadline) {
+    return request("vote", Address.VOTE, input, userId, false, deadline);
+  }
+
+  @Override
+  public Future<Boolean> unvote(final VoteSelector selector, final String userId, final Deadline deadline) {
+    return request("unvote", Address.UNVOTE, selector, userId, false, deadline);
+  }
+
+  @Override
+  public Future<Boolean> hasVoted(final VoteSelector selector, final String userId, final boolean readYourWrites,
+      final Deadline deadline) {
+    return request("hasVoted", Address.HAS_VOTED, selector, userId, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, VoteType>> userVotes(final List<VoteSelector> selectors, final String userId, final boolean readYourWrites,
+      final Deadline deadline) {
+    return this.<HasVotedManyReply>request("userVotes", Address.HAS_VOTED_MANY, new VoteSelectors(selectors), userId, readYourWrites, deadline)
+        .map(HasVotedManyReply::getVotes);
+  }
+
+  @Override
+  public Future<Score> voteScore(final VoteSelector selector, final boolean readYourWrites, final Deadline deadline) {
+    return request("voteScore", Address.VOTE_SCORE, selector, null, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Score>> voteScores(final List<VoteSelector> selectors, final boolean readYourWrites, final Deadline deadline) {
+    return this.<VoteScoresReply>request("voteScores", Address.VOTE_SCORES, new VoteSelectors(selectors), null, readYourWrites, deadline)
+        .map(VoteScoresReply::getScores);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Score>> topItems(final TopItemsQuery query, final Deadline deadline) {
+    return this.<VoteScoresReply>request("topItems", Address.TOP_ITEMS, query, null, false, deadline)
+        .map(VoteScoresReply::getScores);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Double>> trending(final TrendingQuery query, final Deadline deadline) {
+    return this.<TrendingReply>request("trending", Address.TRENDING, query, null, false, deadline)
+        .map(TrendingReply::getScores);
+  }
+
+  @Override
+  public Future<Map<Timestamp, Score>> scoreHistory(final ScoreHistoryQuery query, final Deadline deadline) {
+    return this.<ScoreHistoryReply>request("scoreHistory", Address.SCORE_HISTORY, query, null, false, deadline)
+        .map(ScoreHistoryReply::getBuckets);
+  }
+
+  private <T> Future<T> request(final String operation, final Address address, final Object body, final String userId,
+      final boolean readYourWrites, final Deadline deadline) {
+    // The consumer would get a fresh deadline from the remaining time, so expired operations aren't sent at all
+    if (deadline.isExpired()) {
+      Metrics.DEADLINE_EXPIRED.labels(operation, EVENT_BUS_STAGE).increment();
+      return Future.failedFuture(new DeadlineExceededException(operation));
+    }
+
+    final Promise<T> promise = Promise.promise();
+    final LatencyHistogram latency = Metrics.EVENT_BUS_LATENCY.labels(address.name());
+    final long start = System.nanoTime();
+
+    eventBus.<T>request(address.get(), body, options(userId, readYourWrites, deadline), event -> {
+      latency.record(System.nanoTime() - start);
+
+      if (event.succeeded()) {
+        promise.complete(event.result().body());
+      } else {
+        promise.fail(event.cause());
+      }
+    });
+
+    return promise.future();
+  }
+
+  private static DeliveryOptions options(final String userId, final boolean readYourWrites,
+      final Deadline deadline) {
+    final DeliveryOptions options = new DeliveryOptions();
+
+    if (nonNull(userId)) {
+      options.addHeader(USER_ID, userId);
+    }
+
+    if (readYourWrites) {
+      options.addHeader(READ_YOUR_WRITES, Boolean.TRUE.toString());
+    }
+
+    if (deadline.isSet()) {
+      // The event bus doesn't accept a zero timeout, so a deadline expiring right now still waits a millisecond for the reply
+      final long timeoutMs = Math.max(1, deadline.remaining(TimeUnit.MILLISECONDS));
+      options.setSendTimeout(timeoutMs);
+      options.addHeader(TIMEOUT_MS, Long.toString(timeoutMs));
+    }
+
+    return options;
+  }
+}
@@ -1,40 +1,69 @@
 package io.appwish.voteservice.service;
 
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
+import io.appwish.grpc.HasVotedManyReplyProto;
 import io.appwish.grpc.HasVotedReplyProto;
+import io.appwish.grpc.ItemScoreProto;
+import io.appwish.grpc.ScoreBucketProto;
+import io.appwish.grpc.ScoreHistoryQueryProto;
+import io.appwish.grpc.ScoreHistoryReplyProto;
+import io.appwish.grpc.TopItemsQueryProto;
+import io.appwish.grpc.TrendingItemProto;
+import io.appwish.grpc.TrendingQueryProto;
+import io.appwish.grpc.TrendingReplyProto;
 import io.appwish.grpc.UnvoteReplyProto;
+import io.appwish.grpc.UserVoteProto;
 import io.appwish.grpc.VoteInputProto;
 import io.appwish.grpc.VoteReplyProto;
 import io.appwish.grpc.VoteScoreReplyProto;
+import io.appwish.grpc.VoteScoresReplyProto;
 import io.appwish.grpc.VoteSelectorProto;
+import io.appwish.grpc.VoteSelectorsProto;
 import io.appwish.grpc.VoteServiceGrpc;
 import io.appwish.voteservice.dto.Score;
-import io.appwish.voteservice.dto.Vote;
-import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.converter.ProtoMapper;
 import io.appwish.voteservice.dto.query.VoteSelector;
 import io.appwish.voteservice.dto.reply.UnvoteReply;
 import io.appwish.voteservice.dto.reply.VoteReply;
-import io.appwish.voteservice.eventbus.Address;
+import io.appwish.voteservice.dto.type.VoteType;
+import io.appwish.voteservice.interceptor.ReadConsistencyInterceptor;
 import io.appwish.voteservice.interceptor.UserContextInterceptor;
+import io.appwish.voteservice.repository.Deadline;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.stub.CallStreamObserver;
+import io.grpc.stub.StreamObserver;
 import io.vertx.core.Promise;
-import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.EventBus;
-import net.badata.protobuf.converter.Converter;
+import io.vertx.grpc.GrpcBidiExchange;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
- * Handles gRPC server request calls. Sends request on event bus to interact with vote data in the database.
+ * Handles gRPC server request calls. Executes the requests through {@link VoteOperations}, either on the event bus or directly on the repository.
+ * <p>
+ * Score watches are served by {@link ScoreWatchers}. Without them, watching scores isn't available.
  */
 public class GrpcServiceImpl extends VoteServiceGrpc.VoteServiceVertxImplBase {
 
-  private static final String USER_ID = "userId";
+  private final VoteOperations voteOperations;
+  private final ScoreWatchers scoreWatchers;
 
-  private final EventBus eventBus;
-  private final Converter converter;
+  public GrpcServiceImpl(final EventBus eventBus) {
+    this(new EventBusVoteOperations(eventBus));
+  }
+
+  public GrpcServiceImpl(final VoteOperations voteOperations) {
+    this(voteOperations, null);
+  }
 
-  public GrpcServiceImpl(final io.vertx.core.eventbus.EventBus eventBus2) {
-    this.eventBus = eventBus2;
-    this.converter = Converter.create();
+  public GrpcServiceImpl(final VoteOperations voteOperations, final ScoreWatchers scoreWatchers) {
+    this.voteOperations = voteOperations;
+    this.scoreWatchers = scoreWatchers;
   }
 
   /**
@@ -42,13 +71,10 @@ public class GrpcServiceImpl extends VoteServiceGrpc.VoteServiceVertxImplBase {
    */
   @Override
   public void vote(final VoteInputProto input, final Promise<VoteReplyProto> response) {
-    final String userId = UserContextInterceptor.USER_CONTEXT.get();
-    final DeliveryOptions options = isNull(userId) ? new DeliveryOptions() : new DeliveryOptions().addHeader(USER_ID, userId);
-
-    eventBus.<Vote>request(Address.VOTE.get(), converter.toDomain(VoteInput.class, input), options,
-        event -> {
+    voteOperations.vote(ProtoMapper.toDomain(input), UserContextInterceptor.USER_CONTEXT.get(), deadline())
+        .setHandler(event -> {
           if (event.succeeded()) {
-            response.complete(converter.toProtobuf(VoteReplyProto.class, new VoteReply(event.result().body())));
+            response.complete(ProtoMapper.toProtobuf(new VoteReply(event.result())));
           } else {
             response.fail(event.cause());
           }
@@ -60,13 +86,10 @@ public class GrpcServiceImpl extends VoteServiceGrpc.VoteServiceVertxImplBase {
    */
   @Override
   public void unvote(final VoteSelectorProto selector, final Promise<UnvoteReplyProto> response) {
-    final String userId = UserContextInterceptor.USER_CONTEXT.get();
-    final DeliveryOptions options = isNull(userId) ? new DeliveryOptions() : new DeliveryOptions().addHeader(USER_ID, userId);
-
-    eventBus.<Boolean>request(Address.UNVOTE.get(), converter.toDomain(VoteSelector.class, selector), options,
-        event -> {
+    voteOperations.unvote(ProtoMapper.toDomain(selector), UserContextInterceptor.USER_CONTEXT.get(), deadline())
+        .setHandler(event -> {
           if (event.succeeded()) {
-            response.complete(converter.toProtobuf(UnvoteReplyProto.class, new UnvoteReply(event.result().body())));
+            response.complete(ProtoMapper.toProtobuf(new UnvoteReply(event.result())));
           } else {
             response.fail(event.cause());
           }
@@ -78,13 +101,43 @@ public class GrpcServiceImpl extends VoteServiceGrpc.VoteServiceVertxImplBase {
    */
   @Override
   public void hasVoted(final VoteSelectorProto selector, final Promise<HasVotedReplyProto> response) {
-    final String userId = UserContextInterceptor.USER_CONTEXT.get();
-    final DeliveryOptions options = isNull(userId) ? new DeliveryOptions() : new DeliveryOptions().addHeader(USER_ID, userId);
+    voteOperations.hasVoted(ProtoMapper.toDomain(selector), UserContextInterceptor.USER_CONTEXT.get(), readYourWrites(), deadline())
+        .setHandler(event -> {
+          if (event.succeeded()) {
+            response.complete(HasVotedReplyProto.newBuilder().setVoted(event.result()).build());
+          } else {
+            response.fail(event.cause());
+          }
+        });
+  }
+
+  /**
+   * This method gets invoked when other service (app, microservice) invokes stub.hasVotedMany(...)
+   */
+  @Override
+  public void hasVotedMany(final VoteSelectorsProto selectors, final Promise<HasVotedManyReplyProto> response) {
+    final List<VoteSelector> query = selectors.getSelectorsList().stream()
+        .map(selector -> ProtoMapper.toDomain(selector))
+        .collect(Collectors.toList());
 
-    eventBus.<Boolean>request(Address.HAS_VOTED.get(), converter.toDomain(VoteSelector.class, selector), options,
-        event -> {
+    voteOperations.userVotes(query, UserContextInterceptor.USER_CONTEXT.get(), readYourWrites(), deadline())
+        .setHandler(event -> {
           if (event.succeeded()) {
-            response.complete(HasVotedReplyProto.newBuilder().setVoted(event.result().body()).build());
+            final Map<VoteSelector, VoteType> votes = event.result();
+            final HasVotedManyReplyProto.Builder reply = HasVotedManyReplyProto.newBuilder();
+
+            for (int i = 0; i < query.size(); i++) {
+              final VoteType voteType = votes.get(query.get(i));
+              final UserVoteProto.Builder vote = UserVoteProto.newBuilder().setSelector(selectors.getSelectors(i)).setVoted(nonNull(voteType));
+
+              if (nonNull(voteType)) {
+                vote.setVoteType(ProtoMapper.toProtobuf(voteType));
+              }
+
+              reply.addVotes(vote);
+            }
+
+            response.complete(reply.build());
           } else {
             response.fail(event.cause());
           }
@@ -96,13 +149,143 @@ public class GrpcServiceImpl extends VoteServiceGrpc.VoteServiceVertxImplBase {
    */
   @Override
   public void voteScore(final VoteSelectorProto selector, final Promise<VoteScoreReplyProto> response) {
-    eventBus.<Score>request(Address.VOTE_SCORE.get(), converter.toDomain(VoteSelector.class, selector),
-        event -> {
+    voteOperations.voteScore(ProtoMapper.toDomain(selector), readYourWrites(), deadline())
+        .setHandler(event -> {
+          if (event.succeeded()) {
+            response.complete(ProtoMapper.toProtobuf(event.result()));
+          } else {
+            response.fail(event.cause());
+          }
+        });
+  }
+
+  /**
+   * This method gets invoked when other service (app, microservice) invokes stub.voteScores(...)
+   */
+  @Override
+  public void voteScores(final VoteSelectorsProto selectors, final Promise<VoteScoresReplyProto> response) {
+    final List<VoteSelector> query = selectors.getSelectorsList().stream()
+        .map(selector -> ProtoMapper.toDomain(selector))
+        .collect(Collectors.toList());
+
+    voteOperations.voteScores(query, readYourWrites(), deadline())
+        .setHandler(event -> {
+          if (event.succeeded()) {
+            response.complete(scoresReply(event.result()));
+          } else {
+            response.fail(event.cause());
+          }
+        });
+  }
+
+  /**
+   * This method gets invoked when other service (app, microservice) invokes stub.topItems(...)
+   */
+  @Override
+  public void topItems(final TopItemsQueryProto query, final Promise<VoteScoresReplyProto> response) {
+    voteOperations.topItems(ProtoMapper.toDomain(query), deadline())
+        .setHandler(event -> {
+          if (event.succeeded()) {
+            response.complete(scoresReply(event.result()));
+          } else {
+            response.fail(event.cause());
+          }
+        });
+  }
+
+  /**
+   * This method gets invoked when other service (app, microservice) invokes stub.trending(...)
+   */
+  @Override
+  public void trending(final TrendingQueryProto query, final Promise<TrendingReplyProto> response) {
+    voteOperations.trending(ProtoMapper.toDomain(query), deadline())
+        .setHandler(event -> {
+          if (event.succeeded()) {
+            final TrendingReplyProto.Builder reply = TrendingReplyProto.newBuilder();
+            event.result().forEach((selector, score) -> reply.addItems(TrendingItemProto.newBuilder()
+                .setSelector(ProtoMapper.toProtobuf(selector))
+                .setScore(score)));
+            response.complete(reply.build());
+          } else {
+            response.fail(event.cause());
+          }
+        });
+  }
+
+  /**
+   * This method gets invoked when other service (app, microservice) invokes stub.scoreHistory(...)
+   */
+  @Override
+  public void scoreHistory(final ScoreHistoryQueryProto query, final Promise<ScoreHistoryReplyProto> response) {
+    voteOperations.scoreHistory(ProtoMapper.toDomain(query), deadline())
+        .setHandler(event -> {
           if (event.succeeded()) {
-            response.complete(converter.toProtobuf(VoteScoreReplyProto.class, event.result().body()));
+            final ScoreHistoryReplyProto.Builder reply = ScoreHistoryReplyProto.newBuilder();
+            event.result().forEach((start, score) -> reply.addBuckets(ScoreBucketProto.newBuilder()
+                .setStart(start)
+                .setScore(ProtoMapper.toProtobuf(score))));
+            response.complete(reply.build());
           } else {
             response.fail(event.cause());
           }
         });
   }
+
+  /**
+   * This method gets invoked when other service (app, microservice) invokes stub.watchScores(...)
+   */
+  @Override
+  public void watchScores(final GrpcBidiExchange<VoteSelectorProto, ItemScoreProto> exchange) {
+    if (isNull(scoreWatchers)) {
+      exchange.fail(Status.UNIMPLEMENTED.withDescription("Watching scores isn't enabled").asRuntimeException());
+      return;
+    }
+
+    // Scores aren't written while the client doesn't take them, the watch coalesces them meanwhile
+    final ScoreWatchers.Watch watch = scoreWatchers.watch(scores -> scores.forEach((selector, score) -> exchange.write(ItemScoreProto.newBuilder()
+        .setSelector(ProtoMapper.toProtobuf(selector))
+        .setScore(ProtoMapper.toProtobuf(score))
+        .build())), () -> isWritable(exchange));
+
+    exchange.handler(selector -> {
+      // Selectors may still arrive after the stream failed
+      if (!watch.isClosed() && !watch.add(ProtoMapper.toDomain(selector))) {
+        watch.close();
+        exchange.fail(Status.RESOURCE_EXHAUSTED.withDescription("Too many items watched in one stream").asRuntimeException());
+      }
+    });
+    exchange.endHandler(end -> {
+      watch.close();
+      exchange.end();
+    });
+    // Called when the client cancels the stream
+    exchange.exceptionHandler(error -> watch.close());
+  }
+
+  private static boolean isWritable(final GrpcBidiExchange<?, ?> exchange) {
+    if (exchange.writeQueueFull()) {
+      return false;
+    }
+
+    // Messages written to the exchange are queued by gRPC, which tells whether the client is ready for more of them
+    final StreamObserver<?> observer = exchange.writeObserver();
+    return !(observer instanceof CallStreamObserver) || ((CallStreamObserver<?>) observer).isReady();
+  }
+
+  private static VoteScoresReplyProto scoresReply(final Map<VoteSelector, Score> scores) {
+    final VoteScoresReplyProto.Builder reply = VoteScoresReplyProto.newBuilder();
+    scores.forEach((selector, score) -> reply.addScores(ItemScoreProto.newBuilder()
+        .setSelector(ProtoMapper.toProtobuf(selector))
+        .setScore(ProtoMapper.toProtobuf(score))));
+    return reply.build();
+  }
+
+  private static boolean readYourWrites() {
+    return ReadConsistencyInterceptor.READ_YOUR_WRITES_CONTEXT.get();
+  }
+
+  private static Deadline deadline() {
+    final io.grpc.Deadline deadline = Context.current().getDeadline();
+    return isNull(deadline) ? Deadline.NONE : Deadline.after(deadline.timeRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+  }
 }
@@ -0,0 +1,145 @@
+package io.appwish.voteservice.service;
+
+import static java.util.Objects.isNull;
+
+import com.google.protobuf.Timestamp;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
+import io.appwish.voteservice.dto.query.TrendingQuery;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.Granularity;
+import io.appwish.voteservice.dto.type.VoteType;
+import io.appwish.voteservice.repository.Deadline;
+import io.appwish.voteservice.repository.VoteRepository;
+import io.vertx.core.Future;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executes operations directly on the vote repository, on the caller's context.
+ */
+public class RepositoryVoteOperations implements VoteOperations {
+
+  private static final int DEFAULT_TOP_ITEMS = 10;
+  private static final int MAX_TOP_ITEMS = 1000;
+  // Pages are skipped item by item, both by Postgres and by the in-memory ranking on the event loop
+  private static final int MAX_TOP_ITEMS_OFFSET = 10_000;
+  private static final int MAX_HISTORY_BUCKETS = 1000;
+  // Selectors of one request are queried as one array and answered with one reply
+  private static final int MAX_SELECTORS = 1000;
+  private static final long HOUR_SECONDS = 3600;
+  private static final long DAY_SECONDS = 24 * HOUR_SECONDS;
+
+  private final VoteRepository voteRepository;
+
+  public RepositoryVoteOperations(final VoteRepository voteRepository) {
+    this.voteRepository = voteRepository;
+  }
+
+  @Override
+  public Future<Vote> vote(final VoteInput input, final String userId, final Deadline deadline) {
+    if (isNull(userId)) {
+      return Future.failedFuture("User needs to be logged in to vote");
+    }
+
+    return voteRepository.upsertVote(input, userId, deadline);
+  }
+
+  @Override
+  public Future<Boolean> unvote(final VoteSelector selector, final String userId, final Deadline deadline) {
+    if (isNull(userId)) {
+      return Future.failedFuture("User needs to be authenticated to unvote");
+    }
+
+    return voteRepository.unvote(selector, userId, deadline);
+  }
+
+  @Override
+  public Future<Boolean> hasVoted(final VoteSelector selector, final String userId, final boolean readYourWrites,
+      final Deadline deadline) {
+    if (isNull(userId)) {
+      return Future.failedFuture("To check if voted, user needs to be authenticated");
+    }
+
+    return voteRepository.hasVoted(selector, userId, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, VoteType>> userVotes(final List<VoteSelector> selectors, final String userId, final boolean readYourWrites,
+      final Deadline deadline) {
+    if (isNull(userId)) {
+      return Future.failedFuture("To check if voted, user needs to be authenticated");
+    }
+
+    if (selectors.size() > MAX_SELECTORS) {
+      return Future.failedFuture("Votes on at most " + MAX_SELECTORS + " items can be checked at once");
+    }
+
+    return voteRepository.userVotes(selectors, userId, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Score> voteScore(final VoteSelector selector, final boolean readYourWrites, final Deadline deadline) {
+    return voteRepository.voteScore(selector, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Score>> voteScores(final List<VoteSelector> selectors, final boolean readYourWrites, final Deadline deadline) {
+    if (selectors.size() > MAX_SELECTORS) {
+      return Future.failedFuture("Scores of at most " + MAX_SELECTORS + " items can be read at once");
+    }
+
+    return voteRepository.voteScores(selectors, readYourWrites, deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Score>> topItems(final TopItemsQuery query, final Deadline deadline) {
+    if (query.getLimit() < 0 || query.getLimit() > MAX_TOP_ITEMS || query.getOffset() < 0 || query.getOffset() > MAX_TOP_ITEMS_OFFSET) {
+      return Future.failedFuture("Limit has to be between 0 and " + MAX_TOP_ITEMS + " and offset between 0 and " + MAX_TOP_ITEMS_OFFSET);
+    }
+
+    // Limit isn't required, so it's zero when not set
+    final int limit = query.getLimit() == 0 ? DEFAULT_TOP_ITEMS : query.getLimit();
+    return voteRepository.topItems(new TopItemsQuery(query.getItemType(), limit, query.getOffset(), query.getOrder()), deadline);
+  }
+
+  @Override
+  public Future<Map<VoteSelector, Double>> trending(final TrendingQuery query, final Deadline deadline) {
+    if (query.getLimit() < 0 || query.getLimit() > MAX_TOP_ITEMS) {
+      return Future.failedFuture("Limit has to be between 0 and " + MAX_TOP_ITEMS);
+    }
+
+    // Limit isn't required, so it's zero when not set
+    final int limit = query.getLimit() == 0 ? DEFAULT_TOP_ITEMS : query.getLimit();
+    return voteRepository.trending(new TrendingQuery(query.getItemType(), limit), deadline);
+  }
+
+  @Override
+  public Future<Map<Timestamp, Score>> scoreHistory(final ScoreHistoryQuery query, final Deadline deadline) {
+    if (isNull(query.getFrom())) {
+      return Future.failedFuture("Start of the score history has to be set");
+    }
+
+    // End isn't required, so history is returned up to now when not set
+    final Timestamp to = isNull(query.getTo()) ? now() : query.getTo();
+    final long seconds = to.getSeconds() - query.getFrom().getSeconds();
+    final long bucketSeconds = query.getGranularity() == Granularity.DAY ? DAY_SECONDS : HOUR_SECONDS;
+
+    if (seconds <= 0 || seconds / bucketSeconds > MAX_HISTORY_BUCKETS) {
+      return Future.failedFuture("Start of the score history has to be before its end and the range can't span over " + MAX_HISTORY_BUCKETS
+          + " buckets");
+    }
+
+    return voteRepository.scoreHistory(new ScoreHistoryQuery(query.getSelector(), query.getFrom(), to, query.getGranularity()), deadline);
+  }
+
+  // Instants are in UTC, the same as times stored by the repository
+  private static Timestamp now() {
+    final Instant now = Instant.now();
+    return Timestamp.newBuilder().setSeconds(now.getEpochSecond()).setNanos(now.getNano()).build();
+  }
+}
@@ -0,0 +1,244 @@
+package io.appwish.voteservice.service;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.reply.VoteScoresReply;
+import io.appwish.voteservice.eventbus.Address;
+import io.appwish.voteservice.repository.Deadline;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Pushes scores of watched items to their watchers whenever the items are voted on.
+ * <p>
+ * Committed writes publish the new score of the changed item on {@link Address#SCORE_CHANGED}. Scores of watched items are collected and flushed
+ * once per interval, keeping only the latest score of each item, so a burst of votes on an item results in at most one update per interval
+ * without reading the scores back. Scores of items changed by different connections at almost the same time may arrive out of order, so a
+ * score is only taken if its version is newer than the version of the last score taken for the item.
+ * <p>
+ * New watches get the last score taken for an item with the next flush. Scores of items nobody watched before are read from the primary in one
+ * query with the next flush. Read scores have versions too, so they don't replace newer scores which arrived during the read.
+ * <p>
+ * A watch which can't be written to keeps only the latest score of each of its items and gets them with the first flush it's writable.
+ * <p>
+ * Watchers are kept on the context which started the watchers, so all methods have to be called on that context.
+ */
+public class ScoreWatchers {
+
+  private static final int MAX_ITEMS_PER_WATCH = 1000;
+
+  private final Vertx vertx;
+  private final VoteOperations voteOperations;
+  private final long intervalMs;
+  private final Map<VoteSelector, Set<Watch>> watches = new HashMap<>();
+  private final Map<VoteSelector, Score> changed = new LinkedHashMap<>();
+  // Last scores taken for watched items
+  private final Map<VoteSelector, Score> latest = new HashMap<>();
+  private final Set<VoteSelector> unread = new LinkedHashSet<>();
+  // Watches with scores they haven't been passed yet
+  private final Set<Watch> pending = new LinkedHashSet<>();
+
+  public ScoreWatchers(final Vertx vertx, final VoteOperations voteOperations, final long intervalMs) {
+    this.vertx = vertx;
+    this.voteOperations = voteOperations;
+    this.intervalMs = intervalMs;
+  }
+
+  /**
+   * Starts listening to score changes and flushing them to watchers. Both stop when the verticle which started them is undeployed.
+   */
+  public void start() {
+    vertx.eventBus().<VoteScoresReply>consumer(Address.SCORE_CHANGED.get()).handler(event -> event.body().getScores().forEach((selector, score) -> {
+      if (watches.containsKey(selector) && takeIfNewer(selector, score)) {
+        changed.put(selector, score);
+      }
+    }));
+    vertx.setPeriodic(intervalMs, id -> flush());
+  }
+
+  /**
+   * Creates a watch passing scores of the items it watches to given handler. The watch has to be closed once the watcher is gone.
+   */
+  public Watch watch(final Handler<Map<VoteSelector, Score>> handler) {
+    return watch(handler, () -> true);
+  }
+
+  /**
+   * Creates a watch passing scores of the items it watches to given handler whenever the watcher is writable. The watch has to be closed once the
+   * watcher is gone.
+   */
+  public Watch watch(final Handler<Map<VoteSelector, Score>> handler, final BooleanSupplier writable) {
+    return new Watch(handler, writable);
+  }
+
+  /**
+   * Returns how many items are watched.
+   */
+  public int size() {
+    return watches.size();
+  }
+
+  private void flush() {
+    if (!changed.isEmpty()) {
+      final Map<VoteSelector, Score> scores = new LinkedHashMap<>(changed);
+      changed.clear();
+      update(scores);
+    }
+
+    if (!unread.isEmpty()) {
+      read();
+    }
+
+    send();
+  }
+
+  private void read() {
+    final List<VoteSelector> selectors = new ArrayList<>(unread);
+    unread.clear();
+
+    voteOperations.voteScores(selectors, true, Deadline.NONE).setHandler(event -> {
+      if (event.failed()) {
+        // Retried with the next flush, unless nobody watches the items anymore
+        selectors.stream().filter(watches::containsKey).forEach(unread::add);
+        return;
+      }
+
+      final Map<VoteSelector, Score> scores = new LinkedHashMap<>(event.result());
+      scores.entrySet().removeIf(entry -> !watches.containsKey(entry.getKey()) || !takeIfNewer(entry.getKey(), entry.getValue()));
+      // Scores which arrived during the read and are older than the read ones aren't passed with the next flush
+      changed.keySet().removeAll(scores.keySet());
+      update(scores);
+      send();
+    });
+  }
+
+  /**
+   * Takes given score as the last score of the item if its version is newer than the version of the last score taken. Returns false if the
+   * score is stale.
+   */
+  private boolean takeIfNewer(final VoteSelector selector, final Score score) {
+    final Score last = latest.get(selector);
+
+    if (nonNull(last) && score.getVersion() <= last.getVersion()) {
+      return false;
+    }
+
+    latest.put(selector, score);
+    return true;
+  }
+
+  private void update(final Map<VoteSelector, Score> scores) {
+    // Watches closed in the meantime aren't updated
+    scores.forEach((selector, score) -> watches.getOrDefault(selector, Collections.emptySet()).forEach(watch -> {
+      watch.unsent.put(selector, score);
+      pending.add(watch);
+    }));
+  }
+
+  private void send() {
+    pending.removeIf(Watch::send);
+  }
+
+  /**
+   * Items watched by a single watcher.
+   */
+  public final class Watch {
+
+    private final Handler<Map<VoteSelector, Score>> handler;
+    private final BooleanSupplier writable;
+    private final Set<VoteSelector> selectors = new HashSet<>();
+    private final Map<VoteSelector, Score> unsent = new LinkedHashMap<>();
+    private boolean closed;
+
+    private Watch(final Handler<Map<VoteSelector, Score>> handler, final BooleanSupplier writable) {
+      this.handler = handler;
+      this.writable = writable;
+    }
+
+    /**
+     * Starts watching given item. Returns false without watching it if the watch is closed or already watches too many items.
+     */
+    public boolean add(final VoteSelector selector) {
+      if (closed || !selectors.contains(selector) && selectors.size() >= MAX_ITEMS_PER_WATCH) {
+        return false;
+      }
+
+      if (selectors.add(selector)) {
+        watches.computeIfAbsent(selector, key -> new HashSet<>()).add(this);
+        final Score last = latest.get(selector);
+
+        // Scores of items watched by others are known already
+        if (isNull(last)) {
+          unread.add(selector);
+        } else {
+          unsent.put(selector, last);
+          pending.add(this);
+        }
+      }
+
+      return true;
+    }
+
+    /**
+     * Stops watching all items. The watch can't be used anymore.
+     */
+    public void close() {
+      closed = true;
+
+      for (final VoteSelector selector : selectors) {
+        final Set<Watch> watchers = watches.get(selector);
+
+        if (isNull(watchers)) {
+          continue;
+        }
+
+        watchers.remove(this);
+
+        if (watchers.isEmpty()) {
+          watches.remove(selector);
+          changed.remove(selector);
+          unread.remove(selector);
+          latest.remove(selector);
+        }
+      }
+
+      selectors.clear();
+      unsent.clear();
+    }
+
+    public boolean isClosed() {
+      return closed;
+    }
+
+    /**
+     * Passes unsent scores to the handler if the watcher is writable. Returns false if the scores are still unsent.
+     */
+    private boolean send() {
+      if (closed || unsent.isEmpty()) {
+        return true;
+      }
+
+      if (!writable.getAsBoolean()) {
+        return false;
+      }
+
+      final Map<VoteSelector, Score> scores = new LinkedHashMap<>(unsent);
+      unsent.clear();
+      handler.handle(scores);
+      return true;
+    }
+  }
+}
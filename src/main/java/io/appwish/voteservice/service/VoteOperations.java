@@ -0,0 +1,70 @@
+package io.appwish.voteservice.service;
+
+import com.google.protobuf.Timestamp;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
+import io.appwish.voteservice.dto.query.TrendingQuery;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.VoteType;
+import io.appwish.voteservice.repository.Deadline;
+import io.vertx.core.Future;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operations exposed by the service over gRPC. User id is null for unauthenticated requests.
+ * <p>
+ * The deadline is the caller's gRPC deadline. Operations not started before it are skipped.
+ */
+public interface VoteOperations {
+
+  /**
+   * Stores user's vote or changes the type of the vote if user has already voted on given item.
+   */
+  Future<Vote> vote(final VoteInput input, final String userId, final Deadline deadline);
+
+  /**
+   * Removes user's vote.
+   */
+  Future<Boolean> unvote(final VoteSelector selector, final String userId, final Deadline deadline);
+
+  /**
+   * Checks if user has already voted on given item.
+   */
+  Future<Boolean> hasVoted(final VoteSelector selector, final String userId, final boolean readYourWrites,
+      final Deadline deadline);
+
+  /**
+   * Returns types of user's votes on given items. Items user hasn't voted on are not present in the result.
+   */
+  Future<Map<VoteSelector, VoteType>> userVotes(final List<VoteSelector> selectors, final String userId, final boolean readYourWrites,
+      final Deadline deadline);
+
+  /**
+   * Returns the score of given item.
+   */
+  Future<Score> voteScore(final VoteSelector selector, final boolean readYourWrites, final Deadline deadline);
+
+  /**
+   * Returns the scores of given items in the order of given selectors.
+   */
+  Future<Map<VoteSelector, Score>> voteScores(final List<VoteSelector> selectors, final boolean readYourWrites, final Deadline deadline);
+
+  /**
+   * Returns a page of the items of given type with the highest scores, in the order of their scores.
+   */
+  Future<Map<VoteSelector, Score>> topItems(final TopItemsQuery query, final Deadline deadline);
+
+  /**
+   * Returns the items of given type with the highest time-decayed scores, in the order of their scores.
+   */
+  Future<Map<VoteSelector, Double>> trending(final TrendingQuery query, final Deadline deadline);
+
+  /**
+   * Returns the scores of votes cast on given item in each bucket of the queried range, in the order of time.
+   */
+  Future<Map<Timestamp, Score>> scoreHistory(final ScoreHistoryQuery query, final Deadline deadline);
+}
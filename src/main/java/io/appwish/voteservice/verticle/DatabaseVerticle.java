@@ -4,21 +4,29 @@ import io.appwish.voteservice.repository.VoteRepository;
 import io.appwish.voteservice.service.DatabaseService;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import java.util.function.Function;
 
 /**
  * Verticle responsible for database access. Registers DatabaseService to expose the database on the event bus.
+ * <p>
+ * Each instance creates its repository on start, so that connection pools of the repository are bound to the instance's event loop.
  */
 public class DatabaseVerticle extends AbstractVerticle {
 
-  private final VoteRepository voteRepository;
+  private final Function<Vertx, VoteRepository> repositoryFactory;
 
   public DatabaseVerticle(final VoteRepository voteRepository) {
-    this.voteRepository = voteRepository;
+    this(vertx -> voteRepository);
+  }
+
+  public DatabaseVerticle(final Function<Vertx, VoteRepository> repositoryFactory) {
+    this.repositoryFactory = repositoryFactory;
   }
 
   @Override
   public void start(final Promise<Void> startPromise) throws Exception {
-    final DatabaseService databaseService = new DatabaseService(vertx.eventBus(), voteRepository);
+    final DatabaseService databaseService = new DatabaseService(vertx.eventBus(), repositoryFactory.apply(vertx));
     databaseService.registerEventBusEventHandlers();
     startPromise.complete();
   }
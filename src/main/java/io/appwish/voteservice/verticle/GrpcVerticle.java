@@ -1,32 +1,63 @@
 package io.appwish.voteservice.verticle;
 
+import static java.util.Objects.nonNull;
+
+import io.appwish.voteservice.interceptor.AdaptiveConcurrencyLimit;
+import io.appwish.voteservice.interceptor.ConcurrencyLimitInterceptor;
 import io.appwish.voteservice.interceptor.ExceptionDetailsInterceptor;
+import io.appwish.voteservice.interceptor.MetricsInterceptor;
+import io.appwish.voteservice.interceptor.ReadConsistencyInterceptor;
 import io.appwish.voteservice.interceptor.UserContextInterceptor;
+import io.appwish.voteservice.service.EventBusVoteOperations;
 import io.appwish.voteservice.service.GrpcServiceImpl;
+import io.appwish.voteservice.service.ScoreWatchers;
+import io.appwish.voteservice.service.VoteOperations;
 import io.grpc.BindableService;
 import io.vertx.config.ConfigRetriever;
 import io.vertx.config.ConfigRetrieverOptions;
 import io.vertx.config.ConfigStoreOptions;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import io.vertx.grpc.VertxServer;
 import io.vertx.grpc.VertxServerBuilder;
+import java.util.function.Function;
 
 /**
  * Verticle responsible for spinning up the gRPC server.
+ * <p>
+ * By default requests are sent on the event bus to be handled by {@link DatabaseVerticle}. Given a factory of {@link VoteOperations}, each instance
+ * creates its own operations on start and executes requests on its own context instead.
+ * <p>
+ * Each instance also pushes score changes to the score watchers connected to it.
  */
 public class GrpcVerticle extends AbstractVerticle {
 
   private static final Logger LOG = LoggerFactory.getLogger(GrpcVerticle.class.getName());
   private static final String APP_PORT = "appPort";
   private static final String APP_HOST = "appHost";
+  private static final String READ_CONCURRENCY_LIMIT = "readConcurrencyLimit";
+  private static final String WRITE_CONCURRENCY_LIMIT = "writeConcurrencyLimit";
+  private static final String MAX_CONCURRENCY_LIMIT = "maxConcurrencyLimit";
+  private static final String SCORE_WATCH_INTERVAL_MS = "scoreWatchIntervalMs";
+  private static final int MIN_CONCURRENCY_LIMIT = 2;
+
+  private final Function<Vertx, VoteOperations> voteOperationsFactory;
+
+  public GrpcVerticle() {
+    this(vertx -> new EventBusVoteOperations(vertx.eventBus()));
+  }
+
+  public GrpcVerticle(final Function<Vertx, VoteOperations> voteOperationsFactory) {
+    this.voteOperationsFactory = voteOperationsFactory;
+  }
 
   @Override
   public void start(final Promise<Void> startPromise) {
-    final BindableService grpcVoteService = new GrpcServiceImpl(vertx.eventBus());
+    final VoteOperations voteOperations = voteOperationsFactory.apply(vertx);
     final ConfigStoreOptions envs = new ConfigStoreOptions().setType("env");
     final ConfigStoreOptions fileStore = new ConfigStoreOptions().setType("file").setConfig(new JsonObject().put("path", "conf/config.json"));
     final ConfigRetrieverOptions options = new ConfigRetrieverOptions().addStore(fileStore).addStore(envs);
@@ -36,12 +67,30 @@ public class GrpcVerticle extends AbstractVerticle {
       final JsonObject config = event.result();
       final String appHost = config.getString(APP_HOST);
       final Integer appPort = config.getInteger(APP_PORT);
+      final Integer maxConcurrencyLimit = config.getInteger(MAX_CONCURRENCY_LIMIT, 1000);
+      final Integer scoreWatchIntervalMs = config.getInteger(SCORE_WATCH_INTERVAL_MS, 1000);
+      // Scores can't be watched with zero interval. Every instance pushes changes to the watchers connected to it.
+      final ScoreWatchers scoreWatchers = scoreWatchIntervalMs > 0 ? new ScoreWatchers(vertx, voteOperations, scoreWatchIntervalMs) : null;
+      final BindableService grpcVoteService = new GrpcServiceImpl(voteOperations, scoreWatchers);
+
+      if (nonNull(scoreWatchers)) {
+        scoreWatchers.start();
+      }
+      // Limits are per instance, every instance adapts them to the latency of its own requests
+      final ConcurrencyLimitInterceptor concurrencyLimitInterceptor = new ConcurrencyLimitInterceptor(
+          new AdaptiveConcurrencyLimit(config.getInteger(READ_CONCURRENCY_LIMIT, 100), MIN_CONCURRENCY_LIMIT, maxConcurrencyLimit),
+          new AdaptiveConcurrencyLimit(config.getInteger(WRITE_CONCURRENCY_LIMIT, 50), MIN_CONCURRENCY_LIMIT, maxConcurrencyLimit));
 
       final VertxServer server = VertxServerBuilder
           .forAddress(vertx, appHost, appPort)
           .intercept(new UserContextInterceptor())
+          .intercept(new ReadConsistencyInterceptor())
           .addService(grpcVoteService)
           .intercept(new ExceptionDetailsInterceptor())
+          // Interceptors added last run first, so requests over the limit are rejected before any other work is done
+          .intercept(concurrencyLimitInterceptor)
+          // Runs before the limit, so that rejected requests are recorded too
+          .intercept(new MetricsInterceptor())
           .build();
 
       server.start(asyncResult -> {
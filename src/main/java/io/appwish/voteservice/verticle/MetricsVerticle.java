@@ -0,0 +1,56 @@
+package io.appwish.voteservice.verticle;
+
+import io.appwish.voteservice.metrics.Metrics;
+import io.appwish.voteservice.repository.impl.StatementStatistics;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+/**
+ * Verticle serving metrics in Prometheus text format on {@code /metrics} and statistics of executed queries as JSON on {@code /statements}.
+ */
+public class MetricsVerticle extends AbstractVerticle {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MetricsVerticle.class.getName());
+  private static final String METRICS_PATH = "/metrics";
+  private static final String METRICS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  private static final String STATEMENTS_PATH = "/statements";
+  private static final String STATEMENTS_CONTENT_TYPE = "application/json";
+
+  private final String host;
+  private final int port;
+  private final StatementStatistics statementStatistics;
+
+  public MetricsVerticle(final String host, final int port, final StatementStatistics statementStatistics) {
+    this.host = host;
+    this.port = port;
+    this.statementStatistics = statementStatistics;
+  }
+
+  @Override
+  public void start(final Promise<Void> startPromise) {
+    vertx.createHttpServer()
+        .requestHandler(request -> {
+          if (METRICS_PATH.equals(request.path())) {
+            request.response().putHeader("Content-Type", METRICS_CONTENT_TYPE).end(Metrics.scrape());
+          } else if (STATEMENTS_PATH.equals(request.path())) {
+            final JsonObject statements = new JsonObject();
+            statementStatistics.summary().forEach((query, summary) -> statements.put(query.name(), summary.toJson()));
+            request.response().putHeader("Content-Type", STATEMENTS_CONTENT_TYPE).end(statements.encodePrettily());
+          } else {
+            request.response().setStatusCode(404).end();
+          }
+        })
+        .listen(port, host, asyncResult -> {
+          if (asyncResult.succeeded()) {
+            LOG.info("Metrics served on port: " + asyncResult.result().actualPort());
+            startPromise.complete();
+          } else {
+            LOG.error("Could not start metrics server: " + asyncResult.cause().getMessage());
+            startPromise.fail(asyncResult.cause());
+          }
+        });
+  }
+}
@@ -0,0 +1,150 @@
+package io.appwish.voteservice.dto.converter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.Timestamp;
+import io.appwish.grpc.GranularityProto;
+import io.appwish.grpc.ItemTypeProto;
+import io.appwish.grpc.ScoreHistoryQueryProto;
+import io.appwish.grpc.ScoreOrderProto;
+import io.appwish.grpc.TopItemsQueryProto;
+import io.appwish.grpc.TrendingQueryProto;
+import io.appwish.grpc.VoteInputProto;
+import io.appwish.grpc.VoteProto;
+import io.appwish.grpc.VoteScoreReplyProto;
+import io.appwish.grpc.VoteSelectorProto;
+import io.appwish.grpc.VoteTypeProto;
+import io.appwish.voteservice.TestData;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
+import io.appwish.voteservice.dto.query.TrendingQuery;
+import io.appwish.voteservice.dto.reply.UnvoteReply;
+import io.appwish.voteservice.dto.reply.VoteReply;
+import io.appwish.voteservice.dto.type.Granularity;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.dto.type.ScoreOrder;
+import io.appwish.voteservice.dto.type.VoteType;
+import org.junit.jupiter.api.Test;
+
+class ProtoMapperTest {
+
+  @Test
+  void should_map_vote_input_to_domain() {
+    // given
+    final VoteInputProto proto = VoteInputProto.newBuilder()
+        .setItemId(TestData.SOME_ITEM_ID)
+        .setItemType(ItemTypeProto.COMMENT)
+        .setVoteType(VoteTypeProto.DOWN)
+        .build();
+
+    // when
+    final VoteInput input = ProtoMapper.toDomain(proto);
+
+    // then
+    assertEquals(new VoteInput(TestData.SOME_ITEM_ID, ItemType.COMMENT, VoteType.DOWN), input);
+  }
+
+  @Test
+  void should_map_top_items_query_to_domain() {
+    // given
+    final TopItemsQueryProto proto = TopItemsQueryProto.newBuilder()
+        .setItemType(ItemTypeProto.COMMENT)
+        .setLimit(25)
+        .setOffset(50)
+        .setOrder(ScoreOrderProto.CONFIDENCE)
+        .build();
+
+    // when
+    final TopItemsQuery query = ProtoMapper.toDomain(proto);
+
+    // then
+    assertEquals(new TopItemsQuery(ItemType.COMMENT, 25, 50, ScoreOrder.CONFIDENCE), query);
+  }
+
+  @Test
+  void should_map_trending_query_to_domain() {
+    // given
+    final TrendingQueryProto proto = TrendingQueryProto.newBuilder()
+        .setItemType(ItemTypeProto.WISH)
+        .setLimit(25)
+        .build();
+
+    // when
+    final TrendingQuery query = ProtoMapper.toDomain(proto);
+
+    // then
+    assertEquals(new TrendingQuery(ItemType.WISH, 25), query);
+  }
+
+  @Test
+  void should_map_score_history_query_without_end_to_domain() {
+    // given
+    final Timestamp from = Timestamp.newBuilder().setSeconds(1580547600).build();
+    final ScoreHistoryQueryProto proto = ScoreHistoryQueryProto.newBuilder()
+        .setSelector(ProtoMapper.toProtobuf(TestData.VOTE_SELECTOR))
+        .setFrom(from)
+        .setGranularity(GranularityProto.DAY)
+        .build();
+
+    // when
+    final ScoreHistoryQuery query = ProtoMapper.toDomain(proto);
+
+    // then
+    assertEquals(new ScoreHistoryQuery(TestData.VOTE_SELECTOR, from, null, Granularity.DAY), query);
+  }
+
+  @Test
+  void should_map_vote_selector_both_ways() {
+    // when
+    final VoteSelectorProto proto = ProtoMapper.toProtobuf(TestData.VOTE_SELECTOR);
+
+    // then
+    assertEquals(TestData.SOME_ITEM_ID, proto.getItemId());
+    assertEquals(ItemTypeProto.WISH, proto.getItemType());
+    assertEquals(TestData.VOTE_SELECTOR, ProtoMapper.toDomain(proto));
+  }
+
+  @Test
+  void should_map_vote_both_ways() {
+    // when
+    final VoteProto proto = ProtoMapper.toProtobuf(TestData.VOTE_1);
+
+    // then
+    assertEquals(TestData.VOTE_1, ProtoMapper.toDomain(proto));
+  }
+
+  @Test
+  void should_leave_missing_vote_fields_unset() {
+    // given
+    final Vote vote = new Vote(1, null, TestData.SOME_ITEM_ID, ItemType.WISH, VoteType.UP, null);
+
+    // when
+    final VoteProto proto = ProtoMapper.toProtobuf(vote);
+
+    // then
+    assertEquals("", proto.getUserId());
+    assertFalse(proto.hasCreatedAt());
+    assertNull(ProtoMapper.toDomain(proto).getCreatedAt());
+  }
+
+  @Test
+  void should_map_replies_to_protobuf() {
+    // when
+    final VoteScoreReplyProto score = ProtoMapper.toProtobuf(new Score(5, 2));
+
+    // then
+    assertEquals(3, score.getScore());
+    assertEquals(5, score.getUp());
+    assertEquals(2, score.getDown());
+    assertEquals(0.359, score.getConfidence(), 0.001);
+    assertEquals(TestData.VOTE_1, ProtoMapper.toDomain(ProtoMapper.toProtobuf(new VoteReply(TestData.VOTE_1)).getVote()));
+    assertFalse(ProtoMapper.toProtobuf(new VoteReply(null)).hasVote());
+    assertTrue(ProtoMapper.toProtobuf(new UnvoteReply(true)).getDeleted());
+  }
+}
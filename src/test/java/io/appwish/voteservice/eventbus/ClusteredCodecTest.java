@@ -0,0 +1,140 @@
+package io.appwish.voteservice.eventbus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import io.appwish.voteservice.TestData;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.query.VoteSelectors;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.dto.type.VoteType;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.test.fakecluster.FakeClusterManager;
+import java.util.Arrays;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Passes messages between two clustered Vert.x instances, so they're framed by the clustered event bus and decoded after its headers.
+ */
+@ExtendWith(VertxExtension.class)
+class ClusteredCodecTest {
+
+  private static final String ECHO_ADDRESS = "echo";
+
+  private Vertx sender;
+  private Vertx receiver;
+
+  @BeforeEach
+  void setUp(final VertxTestContext context) {
+    // Both nodes have to join the same fake cluster, which is kept in static state until reset
+    FakeClusterManager.reset();
+
+    CompositeFuture.all(clustered(), clustered()).setHandler(context.succeeding(nodes -> {
+      sender = nodes.resultAt(0);
+      receiver = nodes.resultAt(1);
+      new EventBusConfigurer(sender.eventBus()).registerCodecs();
+      new EventBusConfigurer(receiver.eventBus()).registerCodecs();
+      // Received messages are sent back, so every value crosses the wire twice
+      receiver.eventBus().consumer(ECHO_ADDRESS, message -> message.reply(message.body())).completionHandler(context.completing());
+    }));
+  }
+
+  @AfterEach
+  void tearDown(final VertxTestContext context) {
+    final Promise<Void> senderClosed = Promise.promise();
+    final Promise<Void> receiverClosed = Promise.promise();
+    sender.close(senderClosed);
+    receiver.close(receiverClosed);
+    CompositeFuture.all(senderClosed.future(), receiverClosed.future()).setHandler(context.completing());
+  }
+
+  @Test
+  void should_pass_vote_between_nodes(final VertxTestContext context) {
+    echo(TestData.VOTE_1).setHandler(context.succeeding(vote -> context.verify(() -> {
+      // Values coming from another node are decoded, never passed by reference
+      assertNotSame(TestData.VOTE_1, vote);
+      assertEquals(TestData.VOTE_1, vote);
+      context.completeNow();
+    })));
+  }
+
+  @Test
+  void should_pass_vote_without_user_and_creation_time_between_nodes(final VertxTestContext context) {
+    final Vote sent = new Vote(TestData.SOME_ID, null, TestData.SOME_ITEM_ID, ItemType.COMMENT, VoteType.UP, null);
+
+    echo(sent).setHandler(context.succeeding(vote -> context.verify(() -> {
+      assertNull(vote.getUserId());
+      assertNull(vote.getCreatedAt());
+      assertEquals(sent, vote);
+      context.completeNow();
+    })));
+  }
+
+  @Test
+  void should_pass_vote_input_between_nodes(final VertxTestContext context) {
+    echo(TestData.VOTE_INPUT_1).setHandler(context.succeeding(input -> context.verify(() -> {
+      assertEquals(TestData.VOTE_INPUT_1, input);
+      context.completeNow();
+    })));
+  }
+
+  @Test
+  void should_pass_vote_selector_between_nodes(final VertxTestContext context) {
+    echo(TestData.VOTE_SELECTOR).setHandler(context.succeeding(selector -> context.verify(() -> {
+      assertEquals(TestData.VOTE_SELECTOR, selector);
+      context.completeNow();
+    })));
+  }
+
+  @Test
+  void should_pass_vote_selectors_between_nodes(final VertxTestContext context) {
+    final VoteSelectors sent = new VoteSelectors(Arrays.asList(TestData.VOTE_SELECTOR, new VoteSelector(TestData.NON_EXISTING_ID, ItemType.COMMENT)));
+
+    echo(sent).setHandler(context.succeeding(selectors -> context.verify(() -> {
+      assertEquals(sent.getSelectors(), selectors.getSelectors());
+      context.completeNow();
+    })));
+  }
+
+  @Test
+  void should_pass_score_between_nodes(final VertxTestContext context) {
+    echo(new Score(20, 5)).setHandler(context.succeeding(score -> context.verify(() -> {
+      assertEquals(new Score(20, 5), score);
+      context.completeNow();
+    })));
+  }
+
+  private <T> Future<T> echo(final T value) {
+    final Promise<T> promise = Promise.promise();
+
+    sender.eventBus().<T>request(ECHO_ADDRESS, value, event -> {
+      if (event.succeeded()) {
+        promise.complete(event.result().body());
+      } else {
+        promise.fail(event.cause());
+      }
+    });
+
+    return promise.future();
+  }
+
+  private static Future<Vertx> clustered() {
+    final Promise<Vertx> promise = Promise.promise();
+    final VertxOptions options = new VertxOptions().setClusterManager(new FakeClusterManager());
+    options.getEventBusOptions().setHost("localhost").setPort(0);
+    Vertx.clusteredVertx(options, promise);
+    return promise.future();
+  }
+}
@@ -0,0 +1,140 @@
+package io.appwish.voteservice.eventbus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.google.protobuf.Timestamp;
+import io.appwish.voteservice.TestData;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
+import io.appwish.voteservice.dto.query.TrendingQuery;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.query.VoteSelectors;
+import io.appwish.voteservice.dto.reply.HasVotedManyReply;
+import io.appwish.voteservice.dto.reply.ScoreHistoryReply;
+import io.appwish.voteservice.dto.reply.TrendingReply;
+import io.appwish.voteservice.dto.reply.VoteScoresReply;
+import io.appwish.voteservice.dto.type.Granularity;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.dto.type.ScoreOrder;
+import io.appwish.voteservice.dto.type.VoteType;
+import io.vertx.core.buffer.Buffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class CodecTest {
+
+  // Clustered event bus writes its own headers before the body
+  private static final String HEADER = "header";
+
+  private static final VoteSelector OTHER_SELECTOR = new VoteSelector(TestData.NON_EXISTING_ID, ItemType.COMMENT);
+
+  @Test
+  void should_pass_vote_over_the_wire() {
+    assertEquals(TestData.VOTE_1, roundTrip(Codec.VOTE, TestData.VOTE_1));
+  }
+
+  @Test
+  void should_pass_vote_without_user_and_creation_time_over_the_wire() {
+    final Vote vote = roundTrip(Codec.VOTE, new Vote(TestData.SOME_ID, null, TestData.SOME_ITEM_ID, ItemType.COMMENT, VoteType.UP, null));
+
+    assertNull(vote.getUserId());
+    assertNull(vote.getCreatedAt());
+    assertEquals(ItemType.COMMENT, vote.getItemType());
+    assertEquals(VoteType.UP, vote.getVoteType());
+  }
+
+  @Test
+  void should_pass_vote_input_over_the_wire() {
+    assertEquals(TestData.VOTE_INPUT_1, roundTrip(Codec.VOTE_INPUT, TestData.VOTE_INPUT_1));
+  }
+
+  @Test
+  void should_pass_vote_selector_over_the_wire() {
+    assertEquals(TestData.VOTE_SELECTOR, roundTrip(Codec.VOTE_SELECTOR, TestData.VOTE_SELECTOR));
+  }
+
+  @Test
+  void should_pass_vote_selectors_over_the_wire() {
+    final VoteSelectors selectors = new VoteSelectors(Arrays.asList(TestData.VOTE_SELECTOR, OTHER_SELECTOR));
+    assertEquals(selectors.getSelectors(), roundTrip(Codec.VOTE_SELECTORS, selectors).getSelectors());
+  }
+
+  @Test
+  void should_pass_top_items_query_over_the_wire() {
+    final TopItemsQuery query = new TopItemsQuery(ItemType.COMMENT, 25, 50, ScoreOrder.CONFIDENCE);
+    assertEquals(query, roundTrip(Codec.TOP_ITEMS_QUERY, query));
+  }
+
+  @Test
+  void should_pass_trending_query_over_the_wire() {
+    final TrendingQuery query = new TrendingQuery(ItemType.WISH, 25);
+    assertEquals(query, roundTrip(Codec.TRENDING_QUERY, query));
+  }
+
+  @Test
+  void should_pass_trending_scores_over_the_wire() {
+    final Map<VoteSelector, Double> scores = new LinkedHashMap<>();
+    scores.put(TestData.VOTE_SELECTOR, 12.5);
+    scores.put(OTHER_SELECTOR, -0.25);
+
+    assertEquals(scores, roundTrip(Codec.TRENDING_REPLY, new TrendingReply(scores)).getScores());
+  }
+
+  @Test
+  void should_pass_score_history_query_over_the_wire() {
+    final ScoreHistoryQuery query = new ScoreHistoryQuery(TestData.VOTE_SELECTOR, Timestamp.newBuilder().setSeconds(1580547600).build(), null,
+        Granularity.DAY);
+    assertEquals(query, roundTrip(Codec.SCORE_HISTORY_QUERY, query));
+  }
+
+  @Test
+  void should_pass_score_history_over_the_wire() {
+    final Map<Timestamp, Score> buckets = new LinkedHashMap<>();
+    buckets.put(Timestamp.newBuilder().setSeconds(1580547600).build(), new Score(3, 1));
+    buckets.put(Timestamp.newBuilder().setSeconds(1580551200).build(), new Score(0, 2));
+
+    assertEquals(buckets, roundTrip(Codec.SCORE_HISTORY_REPLY, new ScoreHistoryReply(buckets)).getBuckets());
+  }
+
+  @Test
+  void should_pass_score_over_the_wire() {
+    assertEquals(new Score(20, 5), roundTrip(Codec.SCORE, new Score(20, 5)));
+  }
+
+  @Test
+  void should_pass_score_version_over_the_wire() {
+    assertEquals(7, roundTrip(Codec.SCORE, new Score(20, 5, 7)).getVersion());
+  }
+
+  @Test
+  void should_pass_scores_of_many_items_over_the_wire() {
+    final Map<VoteSelector, Score> scores = new LinkedHashMap<>();
+    scores.put(OTHER_SELECTOR, new Score(0, 0));
+    scores.put(TestData.VOTE_SELECTOR, new Score(20, 5));
+
+    assertEquals(scores, roundTrip(Codec.VOTE_SCORES_REPLY, new VoteScoresReply(scores)).getScores());
+  }
+
+  @Test
+  void should_pass_user_votes_over_the_wire() {
+    final Map<VoteSelector, VoteType> votes = new LinkedHashMap<>();
+    votes.put(OTHER_SELECTOR, VoteType.DOWN);
+    votes.put(TestData.VOTE_SELECTOR, VoteType.UP);
+
+    assertEquals(votes, roundTrip(Codec.HAS_VOTED_MANY_REPLY, new HasVotedManyReply(votes)).getVotes());
+  }
+
+  private static <T> T roundTrip(final Codec codec, final T value) {
+    final LocalReferenceCodec<T> messageCodec = codec.getCodec();
+    final Buffer buffer = Buffer.buffer(HEADER);
+
+    messageCodec.encodeToWire(buffer, value);
+
+    return messageCodec.decodeFromWire(HEADER.length(), buffer);
+  }
+}
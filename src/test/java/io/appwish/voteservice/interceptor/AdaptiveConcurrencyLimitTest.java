@@ -0,0 +1,99 @@
+package io.appwish.voteservice.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+  @Test
+  void should_reject_calls_over_the_limit() {
+    // given
+    final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10);
+
+    // when
+    final boolean first = limit.tryAcquire();
+    final boolean second = limit.tryAcquire();
+    final boolean third = limit.tryAcquire();
+
+    // then
+    assertTrue(first);
+    assertTrue(second);
+    assertFalse(third);
+    assertEquals(2, limit.inFlight());
+  }
+
+  @Test
+  void should_raise_limit_while_fully_used_calls_stay_fast() {
+    // given
+    final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100);
+
+    // when
+    for (int round = 0; round < 20; round++) {
+      int acquired = 0;
+      while (limit.tryAcquire()) {
+        acquired++;
+      }
+      for (int call = 0; call < acquired; call++) {
+        limit.release(FAST, false);
+      }
+    }
+
+    // then
+    assertTrue(limit.limit() > 10);
+    assertEquals(0, limit.inFlight());
+  }
+
+  @Test
+  void should_not_raise_limit_of_mostly_idle_calls() {
+    // given
+    final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100);
+
+    // when
+    for (int call = 0; call < 100; call++) {
+      limit.tryAcquire();
+      limit.release(FAST, false);
+    }
+
+    // then
+    assertEquals(10, limit.limit());
+  }
+
+  @Test
+  void should_lower_limit_when_calls_get_slower() {
+    // given
+    final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100);
+    limit.tryAcquire();
+    limit.release(FAST, false);
+
+    // when
+    for (int call = 0; call < 20; call++) {
+      limit.tryAcquire();
+      limit.release(SLOW, false);
+    }
+
+    // then
+    assertTrue(limit.limit() < 10);
+  }
+
+  @Test
+  void should_back_off_on_dropped_calls_down_to_minimum() {
+    // given
+    final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 3, 100);
+
+    // when
+    for (int call = 0; call < 50; call++) {
+      limit.tryAcquire();
+      limit.release(FAST, true);
+    }
+
+    // then
+    assertEquals(3, limit.limit());
+  }
+}
@@ -0,0 +1,78 @@
+package io.appwish.voteservice.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void should_count_latency_in_linear_sub_bucket_of_its_power_of_two() {
+    // then
+    assertEquals(0, LatencyHistogram.bucket(0));
+    assertEquals(0, LatencyHistogram.bucket(16));
+    assertEquals(1, LatencyHistogram.bucket(17));
+    assertEquals(1, LatencyHistogram.bucket(18));
+    assertEquals(2, LatencyHistogram.bucket(19));
+    assertEquals(8, LatencyHistogram.bucket(32));
+    assertEquals(9, LatencyHistogram.bucket(33));
+    assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(1L << 25));
+    assertEquals(LatencyHistogram.BUCKETS, LatencyHistogram.bucket((1L << 25) + 1));
+    assertEquals(LatencyHistogram.BUCKETS, LatencyHistogram.bucket(Long.MAX_VALUE));
+  }
+
+  @Test
+  void should_record_latencies() {
+    // given
+    final LatencyHistogram histogram = new LatencyHistogram();
+
+    // when
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(20));
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(30));
+    histogram.record(TimeUnit.MINUTES.toNanos(1));
+    histogram.record(-1);
+
+    // then
+    assertEquals(4, histogram.count());
+    assertEquals(1, histogram.bucketCount(0));
+    assertEquals(1, histogram.bucketCount(2));
+    assertEquals(1, histogram.bucketCount(7));
+    assertEquals(1, histogram.bucketCount(LatencyHistogram.BUCKETS));
+  }
+
+  @Test
+  void should_write_cumulative_buckets_in_prometheus_format() {
+    // given
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final StringBuilder out = new StringBuilder();
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(10));
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(20));
+
+    // when
+    histogram.write(out, "latency_seconds", "query=\"VOTE\"");
+
+    // then
+    final String text = out.toString();
+    assertTrue(text.contains("latency_seconds_bucket{query=\"VOTE\",le=\"0.000016\"} 1\n"));
+    assertTrue(text.contains("latency_seconds_bucket{query=\"VOTE\",le=\"0.000018\"} 1\n"));
+    assertTrue(text.contains("latency_seconds_bucket{query=\"VOTE\",le=\"0.00002\"} 2\n"));
+    assertTrue(text.contains("latency_seconds_bucket{query=\"VOTE\",le=\"33.554432\"} 2\n"));
+    assertTrue(text.contains("latency_seconds_bucket{query=\"VOTE\",le=\"+Inf\"} 2\n"));
+    assertTrue(text.contains("latency_seconds_sum{query=\"VOTE\"} " + TimeUnit.MICROSECONDS.toNanos(30) / 1e9 + "\n"));
+    assertTrue(text.contains("latency_seconds_count{query=\"VOTE\"} 2\n"));
+  }
+
+  @Test
+  void should_report_quantiles_within_an_eighth_of_recorded_latency() {
+    // given
+    final LatencyHistogram histogram = new LatencyHistogram();
+
+    // when
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(70));
+
+    // then
+    assertEquals(TimeUnit.MICROSECONDS.toNanos(73_728), histogram.quantileNanos(0.99));
+  }
+}
@@ -0,0 +1,35 @@
+package io.appwish.voteservice.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.appwish.grpc.VoteServiceGrpc;
+import org.junit.jupiter.api.Test;
+
+class MetricsTest {
+
+  @Test
+  void should_scrape_recorded_metrics() {
+    // given
+    final String method = VoteServiceGrpc.getVoteMethod().getFullMethodName();
+    Metrics.RPC_LATENCY.labels(method).record(1000);
+    Metrics.RPC_HANDLED.labels(method, "OK").increment();
+    Metrics.gauge("test_gauge", "Gauge registered by a test.", () -> 42);
+
+    // when
+    final String text = Metrics.scrape();
+
+    // then
+    assertTrue(text.contains("# TYPE grpc_server_handling_seconds histogram\n"));
+    assertTrue(text.contains("grpc_server_handling_seconds_count{method=\"" + method + "\"} "));
+    assertTrue(text.contains("grpc_server_handled_total{method=\"" + method + "\",code=\"OK\"} "));
+    assertTrue(text.contains("postgres_pool_waiting{pool=\"primary\"} "));
+    assertTrue(text.contains("# TYPE test_gauge gauge\ntest_gauge 42\n"));
+  }
+
+  @Test
+  void should_escape_label_values() {
+    // then
+    assertEquals("address=\"a\\\"b\\\\c\"", Metrics.label("address", "a\"b\\c"));
+  }
+}
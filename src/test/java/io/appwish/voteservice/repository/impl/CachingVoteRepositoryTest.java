@@ -0,0 +1,133 @@
+package io.appwish.voteservice.repository.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.appwish.voteservice.TestData;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.repository.Deadline;
+import io.appwish.voteservice.repository.VoteRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class CachingVoteRepositoryTest {
+
+  private static final Score SCORE = new Score(3, 1);
+
+  private VoteRepository delegate;
+  private CachingVoteRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    delegate = mock(VoteRepository.class);
+    repository = new CachingVoteRepository(delegate, CachingVoteRepository.scoreCache(100, Duration.ofMinutes(1)));
+    when(delegate.voteScore(TestData.VOTE_SELECTOR, false, Deadline.NONE)).thenReturn(Future.succeededFuture(SCORE));
+    when(delegate.voteScore(TestData.VOTE_SELECTOR, true, Deadline.NONE)).thenReturn(Future.succeededFuture(SCORE));
+  }
+
+  @Test
+  void should_serve_repeated_score_reads_from_cache(final Vertx vertx, final VertxTestContext context) {
+    // when
+    repository.voteScore(TestData.VOTE_SELECTOR, false)
+        .compose(first -> repository.voteScore(TestData.VOTE_SELECTOR, false))
+        .onFailure(context::failNow)
+        .onSuccess(score -> context.verify(() -> {
+
+          // then
+          assertEquals(SCORE, score);
+          assertEquals(1, repository.stats().hitCount());
+          assertEquals(1, repository.stats().missCount());
+          verify(delegate, times(1)).voteScore(TestData.VOTE_SELECTOR, false, Deadline.NONE);
+          context.completeNow();
+        }));
+  }
+
+  @Test
+  void should_invalidate_score_of_voted_item(final Vertx vertx, final VertxTestContext context) {
+    // given
+    when(delegate.upsertVote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID, Deadline.NONE)).thenReturn(Future.succeededFuture(TestData.VOTE_1));
+
+    // when
+    repository.voteScore(TestData.VOTE_SELECTOR, false)
+        .compose(cached -> repository.upsertVote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID))
+        .compose(voted -> repository.voteScore(TestData.VOTE_SELECTOR, false))
+        .onFailure(context::failNow)
+        .onSuccess(score -> context.verify(() -> {
+
+          // then
+          verify(delegate, times(2)).voteScore(TestData.VOTE_SELECTOR, false, Deadline.NONE);
+          context.completeNow();
+        }));
+  }
+
+  @Test
+  void should_bypass_cache_when_reading_own_writes(final Vertx vertx, final VertxTestContext context) {
+    // when
+    repository.voteScore(TestData.VOTE_SELECTOR, false)
+        .compose(cached -> repository.voteScore(TestData.VOTE_SELECTOR, true))
+        .onFailure(context::failNow)
+        .onSuccess(score -> context.verify(() -> {
+
+          // then
+          verify(delegate, times(1)).voteScore(TestData.VOTE_SELECTOR, true, Deadline.NONE);
+          context.completeNow();
+        }));
+  }
+
+  @Test
+  void should_load_only_missing_scores_of_many_items(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final VoteSelector missing = new VoteSelector(TestData.NON_EXISTING_ID, ItemType.COMMENT);
+    when(delegate.voteScores(Collections.singletonList(missing), false, Deadline.NONE))
+        .thenReturn(Future.succeededFuture(Collections.singletonMap(missing, new Score(0, 0))));
+
+    // when
+    repository.voteScore(TestData.VOTE_SELECTOR, false)
+        .compose(cached -> repository.voteScores(Arrays.asList(missing, TestData.VOTE_SELECTOR), false))
+        .onFailure(context::failNow)
+        .onSuccess(scores -> context.verify(() -> {
+
+          // then
+          assertEquals(Arrays.asList(missing, TestData.VOTE_SELECTOR), Arrays.asList(scores.keySet().toArray()));
+          assertEquals(new Score(0, 0), scores.get(missing));
+          assertEquals(SCORE, scores.get(TestData.VOTE_SELECTOR));
+          context.completeNow();
+        }));
+  }
+
+  @Test
+  void should_invalidate_score_for_repositories_sharing_the_cache(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final Cache<VoteSelector, Score> scores = CachingVoteRepository.scoreCache(100, Duration.ofMinutes(1));
+    final VoteRepository reading = new CachingVoteRepository(delegate, scores);
+    final VoteRepository writing = new CachingVoteRepository(delegate, scores);
+    when(delegate.unvote(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID, Deadline.NONE)).thenReturn(Future.succeededFuture(true));
+
+    // when
+    reading.voteScore(TestData.VOTE_SELECTOR, false)
+        .compose(cached -> writing.unvote(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID))
+        .compose(unvoted -> reading.voteScore(TestData.VOTE_SELECTOR, false))
+        .onFailure(context::failNow)
+        .onSuccess(score -> context.verify(() -> {
+
+          // then
+          verify(delegate, times(2)).voteScore(TestData.VOTE_SELECTOR, false, Deadline.NONE);
+          context.completeNow();
+        }));
+  }
+}
@@ -0,0 +1,125 @@
+package io.appwish.voteservice.repository.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.appwish.voteservice.TestData;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.type.VoteType;
+import io.appwish.voteservice.repository.Deadline;
+import io.appwish.voteservice.repository.DeadlineExceededException;
+import io.appwish.voteservice.repository.VoteRepository;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.pgclient.PgPool;
+import io.vertx.sqlclient.PoolOptions;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class GroupCommitterTest {
+
+  private static final String DATABASE_HOST = "localhost";
+  private static final String DEFAULT_POSTGRES = "postgres";
+  private static final long WINDOW_MILLIS = 20;
+  private static final int MAX_GROUP_SIZE = 8;
+
+  private EmbeddedPostgres postgres;
+  private VoteRepository repository;
+
+  @BeforeEach
+  void setUp(final Vertx vertx, final VertxTestContext context) throws Exception {
+    postgres = EmbeddedPostgres.start();
+
+    final PgConnectOptions connectOptions = new PgConnectOptions()
+        .setPort(postgres.getPort())
+        .setHost(DATABASE_HOST)
+        .setDatabase(DEFAULT_POSTGRES)
+        .setUser(DEFAULT_POSTGRES)
+        .setPassword(DEFAULT_POSTGRES);
+    final PoolOptions poolOptions = new PoolOptions().setMaxSize(5);
+    final PgPool client = PgPool.pool(connectOptions, poolOptions);
+
+    PostgresSchema.prepare(client).setHandler(context.completing());
+
+    repository = new PostgresVoteRepository(client, new GroupCommitter(vertx, client, WINDOW_MILLIS, MAX_GROUP_SIZE));
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    postgres.close();
+  }
+
+  @Test
+  void should_commit_all_grouped_writes(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final List<Future> votes = new ArrayList<>();
+
+    // when
+    for (int i = 0; i < MAX_GROUP_SIZE * 3; i++) {
+      votes.add(repository.upsertVote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), "user" + i));
+    }
+
+    // then
+    CompositeFuture.all(votes)
+        .compose(voted -> repository.voteScore(TestData.VOTE_SELECTOR))
+        .onFailure(context::failNow)
+        .onSuccess(score -> context.verify(() -> {
+          assertEquals(new Score(MAX_GROUP_SIZE * 3, 0), score);
+          context.completeNow();
+        }));
+  }
+
+  @Test
+  void should_fail_only_failing_write_of_the_group(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final VoteInput input = new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP);
+
+    // when
+    final Future<Vote> first = repository.vote(input, TestData.SOME_USER_ID);
+    final Future<Vote> duplicate = repository.vote(input, TestData.SOME_USER_ID);
+    final Future<Vote> another = repository.vote(input, "anotherUser");
+
+    // then
+    CompositeFuture.join(first, duplicate, another).setHandler(event -> repository.voteScore(TestData.VOTE_SELECTOR)
+        .onFailure(context::failNow)
+        .onSuccess(score -> context.verify(() -> {
+          // Users are resolved concurrently, so either of the two may reach the database first
+          assertTrue(first.succeeded() ^ duplicate.succeeded());
+          assertTrue(another.succeeded());
+          assertEquals(new Score(2, 0), score);
+          context.completeNow();
+        })));
+  }
+
+  @Test
+  void should_skip_writes_expiring_while_waiting_for_their_group(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final VoteInput input = new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP);
+
+    // when
+    repository.upsertVote(input, TestData.SOME_USER_ID, Deadline.after(1, TimeUnit.MILLISECONDS))
+        .setHandler(event -> repository.voteScore(TestData.VOTE_SELECTOR)
+            .onFailure(context::failNow)
+            .onSuccess(score -> context.verify(() -> {
+
+              // then
+              assertTrue(event.failed());
+              assertTrue(event.cause() instanceof DeadlineExceededException);
+              assertEquals(new Score(0, 0), score);
+              context.completeNow();
+            })));
+  }
+}
@@ -0,0 +1,169 @@
+package io.appwish.voteservice.repository.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class KeyedSerializerTest {
+
+  private static final String KEY = "key";
+  private static final String OTHER_KEY = "otherKey";
+
+  @Test
+  void should_execute_operation_of_same_key_after_previous_completed() {
+    // given
+    final KeyedSerializer<String> serializer = new KeyedSerializer<>();
+    final Promise<Integer> first = Promise.promise();
+    final AtomicBoolean secondStarted = new AtomicBoolean();
+
+    // when
+    serializer.execute(KEY, first::future);
+    final Future<Integer> second = serializer.execute(KEY, () -> {
+      secondStarted.set(true);
+      return Future.succeededFuture(2);
+    });
+
+    // then
+    assertFalse(secondStarted.get());
+    first.complete(1);
+    assertTrue(secondStarted.get());
+    assertEquals(2, second.result());
+    assertEquals(0, serializer.size());
+  }
+
+  @Test
+  void should_execute_operations_of_different_keys_in_parallel() {
+    // given
+    final KeyedSerializer<String> serializer = new KeyedSerializer<>();
+    final Promise<Integer> first = Promise.promise();
+
+    // when
+    serializer.execute(KEY, first::future);
+    final Future<Integer> other = serializer.execute(OTHER_KEY, () -> Future.succeededFuture(2));
+
+    // then
+    assertEquals(2, other.result());
+    assertEquals(1, serializer.size());
+  }
+
+  @Test
+  void should_execute_next_operation_if_previous_failed() {
+    // given
+    final KeyedSerializer<String> serializer = new KeyedSerializer<>();
+    final Promise<Integer> first = Promise.promise();
+
+    // when
+    final Future<Integer> failed = serializer.execute(KEY, first::future);
+    final Future<Integer> second = serializer.execute(KEY, () -> Future.succeededFuture(2));
+    first.fail(new AssertionError());
+
+    // then
+    assertTrue(failed.failed());
+    assertEquals(2, second.result());
+  }
+
+  @Test
+  void should_execute_next_operation_if_previous_threw() {
+    // given
+    final KeyedSerializer<String> serializer = new KeyedSerializer<>();
+
+    // when
+    final Future<Integer> thrown = serializer.execute(KEY, () -> {
+      throw new IllegalStateException();
+    });
+    final Future<Integer> second = serializer.execute(KEY, () -> Future.succeededFuture(2));
+
+    // then
+    assertTrue(thrown.failed());
+    assertEquals(2, second.result());
+    assertEquals(0, serializer.size());
+  }
+
+  @Test
+  @Timeout(value = 30, timeUnit = TimeUnit.SECONDS)
+  void should_never_overlap_operations_of_same_key_submitted_from_many_threads(final VertxTestContext context) throws Exception {
+    // given
+    final int threads = 8;
+    final int operationsPerThread = 2000;
+    final String[] keys = {"a", "b", "c", "d"};
+    final KeyedSerializer<String> serializer = new KeyedSerializer<>();
+    final ExecutorService submitters = Executors.newFixedThreadPool(threads);
+    final ExecutorService completers = Executors.newFixedThreadPool(threads);
+    final AtomicIntegerArray running = new AtomicIntegerArray(keys.length);
+    final AtomicInteger overlaps = new AtomicInteger();
+    final AtomicInteger outOfOrder = new AtomicInteger();
+    final AtomicInteger maxParallelKeys = new AtomicInteger();
+    final AtomicInteger runningKeys = new AtomicInteger();
+    final List<Future> results = new ArrayList<>();
+
+    // when
+    for (int thread = 0; thread < threads; thread++) {
+      final Promise<Void> submitted = Promise.promise();
+      final List<Future> threadResults = new ArrayList<>();
+      results.add(submitted.future());
+
+      submitters.execute(() -> {
+        final int[] lastExecuted = new int[keys.length];
+
+        for (int operation = 1; operation <= operationsPerThread; operation++) {
+          final int key = operation % keys.length;
+          final int sequence = operation;
+
+          threadResults.add(serializer.execute(keys[key], () -> {
+            if (running.incrementAndGet(key) > 1) {
+              overlaps.incrementAndGet();
+            }
+            maxParallelKeys.accumulateAndGet(runningKeys.incrementAndGet(), Math::max);
+            // Operations submitted by one thread must execute in submission order
+            synchronized (lastExecuted) {
+              if (lastExecuted[key] > sequence) {
+                outOfOrder.incrementAndGet();
+              }
+              lastExecuted[key] = sequence;
+            }
+
+            final Promise<Integer> promise = Promise.promise();
+            completers.execute(() -> {
+              runningKeys.decrementAndGet();
+              running.decrementAndGet(key);
+              promise.complete(sequence);
+            });
+            return promise.future();
+          }));
+        }
+
+        CompositeFuture.all(threadResults).<Void>mapEmpty().setHandler(submitted);
+      });
+    }
+
+    CompositeFuture.all(results).setHandler(context.succeeding(done -> context.verify(() -> {
+
+      // then
+      assertEquals(0, overlaps.get());
+      assertEquals(0, outOfOrder.get());
+      assertTrue(maxParallelKeys.get() > 1);
+      assertEquals(0, serializer.size());
+      submitters.shutdown();
+      completers.shutdown();
+      context.completeNow();
+    })));
+  }
+}
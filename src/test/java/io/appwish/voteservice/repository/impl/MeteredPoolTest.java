@@ -0,0 +1,112 @@
+package io.appwish.voteservice.repository.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.appwish.voteservice.metrics.LatencyHistogram;
+import io.appwish.voteservice.metrics.PoolUsage;
+import io.appwish.voteservice.repository.Deadline;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.pgclient.PgPool;
+import io.vertx.sqlclient.PoolOptions;
+import io.vertx.sqlclient.Tuple;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class MeteredPoolTest {
+
+  private static final String DATABASE_HOST = "localhost";
+  private static final String DEFAULT_POSTGRES = "postgres";
+  private static final long DEADLINE_MILLIS = 200;
+
+  private EmbeddedPostgres postgres;
+  private LatencyHistogram waitLatency;
+  private PoolUsage usage;
+  private MeteredPool client;
+
+  @BeforeEach
+  void setUp(final Vertx vertx, final VertxTestContext context) throws Exception {
+    postgres = EmbeddedPostgres.start();
+
+    final PgConnectOptions connectOptions = new PgConnectOptions()
+        .setPort(postgres.getPort())
+        .setHost(DATABASE_HOST)
+        .setDatabase(DEFAULT_POSTGRES)
+        .setUser(DEFAULT_POSTGRES)
+        .setPassword(DEFAULT_POSTGRES);
+
+    final PgPool pool = PgPool.pool(vertx, connectOptions, new PoolOptions().setMaxSize(1));
+
+    PostgresSchema.prepare(pool).setHandler(context.completing());
+
+    waitLatency = new LatencyHistogram();
+    usage = new PoolUsage(waitLatency);
+    client = new MeteredPool(pool, usage, new StatementStatistics());
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    postgres.close();
+  }
+
+  @Test
+  void should_abort_statement_running_past_deadline(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final long start = System.nanoTime();
+
+    // when
+    client.begin(Deadline.after(DEADLINE_MILLIS, TimeUnit.MILLISECONDS), context.succeeding(transaction ->
+        transaction.query("SELECT pg_sleep(10)", event -> context.verify(() -> {
+          transaction.rollback();
+
+          // then
+          assertTrue(event.failed());
+          assertTrue(event.cause().getMessage().contains("statement timeout"));
+          assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+          context.completeNow();
+        }))));
+  }
+
+  @Test
+  void should_not_abort_statement_finishing_before_deadline(final Vertx vertx, final VertxTestContext context) {
+    // when
+    client.begin(Deadline.after(10, TimeUnit.SECONDS), context.succeeding(transaction ->
+        transaction.query("SELECT pg_sleep(0.2)", event -> context.verify(() -> {
+          transaction.rollback();
+
+          // then
+          assertTrue(event.succeeded());
+          context.completeNow();
+        }))));
+  }
+
+  @Test
+  void should_count_queries_waiting_for_connection_used_by_transaction(final Vertx vertx, final VertxTestContext context) {
+    // given
+    client.begin(context.succeeding(transaction -> {
+      client.preparedQuery(Query.FIND_USER_KEY, Tuple.of("user"), context.succeeding(rows -> context.verify(() -> {
+        // then
+        assertEquals(0, usage.inUse());
+        assertEquals(0, usage.waiting());
+        assertEquals(2, waitLatency.count());
+        context.completeNow();
+      })));
+
+      // when
+      context.verify(() -> {
+        assertEquals(1, usage.inUse());
+        assertEquals(1, usage.waiting());
+        assertEquals(1, waitLatency.count());
+      });
+      transaction.commit(context.succeeding());
+    }));
+  }
+}
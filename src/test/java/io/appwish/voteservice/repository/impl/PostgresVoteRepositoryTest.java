@@ -6,13 +6,21 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.google.protobuf.Timestamp;
 import io.appwish.voteservice.TestData;
 import io.appwish.voteservice.dto.Score;
 import io.appwish.voteservice.dto.Vote;
 import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.query.ScoreHistoryQuery;
+import io.appwish.voteservice.dto.query.TopItemsQuery;
 import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.Granularity;
 import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.dto.type.ScoreOrder;
 import io.appwish.voteservice.dto.type.VoteType;
+import io.appwish.voteservice.metrics.LatencyHistograms;
+import io.appwish.voteservice.repository.Deadline;
+import io.appwish.voteservice.repository.DeadlineExceededException;
 import io.appwish.voteservice.repository.VoteRepository;
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
@@ -24,7 +32,17 @@ import io.vertx.pgclient.PgConnectOptions;
 import io.vertx.pgclient.PgPool;
 import io.vertx.sqlclient.PoolOptions;
 import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -37,6 +55,7 @@ class PostgresVoteRepositoryTest {
   private static final String DEFAULT_POSTGRES = "postgres";
 
   private EmbeddedPostgres postgres;
+  private PgPool client;
   private VoteRepository repository;
 
   @BeforeEach
@@ -52,8 +71,9 @@ class PostgresVoteRepositoryTest {
     final PoolOptions poolOptions = new PoolOptions().setMaxSize(5);
     final PgPool client = PgPool.pool(connectOptions, poolOptions);
 
-    client.query(Query.CREATE_VOTE_TABLE.sql(), context.completing());
+    PostgresSchema.prepare(client).setHandler(context.completing());
 
+    this.client = client;
     repository = new PostgresVoteRepository(client);
   }
 
@@ -171,15 +191,15 @@ class PostgresVoteRepositoryTest {
     Future<Vote> vote1 = context
         .assertComplete(repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), TestData.SOME_USER_ID));
     Future<Vote> vote2 = context
-        .assertComplete(repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), TestData.SOME_USER_ID));
+        .assertComplete(repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), "secondUser"));
     Future<Vote> vote3 = context
-        .assertComplete(repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), TestData.SOME_USER_ID));
+        .assertComplete(repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), "thirdUser"));
     Future<Vote> vote4 = context
-        .assertComplete(repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), "anotherUser"));
+        .assertComplete(repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), "fourthUser"));
     Future<Vote> vote5 = context
-        .assertComplete(repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.DOWN), "anotherUser"));
+        .assertComplete(repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.DOWN), "fifthUser"));
     Future<Vote> vote6 = context
-        .assertComplete(repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.DOWN), "anotherUser"));
+        .assertComplete(repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.DOWN), "sixthUser"));
     CompositeFuture.all(vote1, vote2, vote3, vote4, vote5, vote6).onSuccess(event -> {
 
       // when
@@ -198,6 +218,658 @@ class PostgresVoteRepositoryTest {
     });
   }
 
+  @Test
+  void should_insert_vote_on_upsert_if_not_voted_before(final Vertx vertx, final VertxTestContext context) {
+    // when
+    repository.upsertVote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID)
+        .compose(vote -> repository.voteScore(TestData.VOTE_SELECTOR))
+        .onFailure(context::failNow)
+        .onSuccess(res -> {
+
+          // then
+          context.verify(() -> {
+            assertEquals(new Score(0, 1), res);
+            context.completeNow();
+          });
+        });
+  }
+
+  @Test
+  void should_change_vote_type_on_upsert_if_voted_before(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final VoteInput up = new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP);
+    final VoteInput down = new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.DOWN);
+
+    repository.upsertVote(up, TestData.SOME_USER_ID).onFailure(context::failNow).onSuccess(first -> {
+
+      // when
+      repository.upsertVote(down, TestData.SOME_USER_ID)
+          .onFailure(context::failNow)
+          .onSuccess(second -> repository.voteScore(TestData.VOTE_SELECTOR)
+              .onFailure(context::failNow)
+              .onSuccess(res -> {
+
+                // then
+                context.verify(() -> {
+                  assertEquals(first.getId(), second.getId());
+                  assertEquals(VoteType.DOWN, second.getVoteType());
+                  assertEquals(new Score(0, 1), res);
+                  context.completeNow();
+                });
+              }));
+    });
+  }
+
+  @Test
+  void should_return_existing_vote_on_upsert_with_same_vote_type(final Vertx vertx, final VertxTestContext context) {
+    // given
+    repository.upsertVote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID).onFailure(context::failNow).onSuccess(first -> {
+
+      // when
+      repository.upsertVote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID)
+          .onFailure(context::failNow)
+          .onSuccess(second -> repository.voteScore(TestData.VOTE_SELECTOR)
+              .onFailure(context::failNow)
+              .onSuccess(res -> {
+
+                // then
+                context.verify(() -> {
+                  assertEquals(first, second);
+                  assertEquals(new Score(0, 1), res);
+                  context.completeNow();
+                });
+              }));
+    });
+  }
+
+  @Test
+  void should_return_the_vote_to_all_concurrent_upserts_with_same_vote_type(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final VoteInput another = new VoteInput(TestData.NON_EXISTING_ID, TestData.SOME_ITEM_TYPE, VoteType.UP);
+
+    // User key is created upfront, so that the upserts race on the vote only
+    repository.upsertVote(another, TestData.SOME_USER_ID).onFailure(context::failNow).onSuccess(created -> {
+      final List<Future> upserts = new ArrayList<>();
+
+      // when
+      for (int i = 0; i < 10; i++) {
+        upserts.add(repository.upsertVote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID));
+      }
+
+      CompositeFuture.all(upserts)
+          .compose(upserted -> repository.voteScore(TestData.VOTE_SELECTOR).map(score -> {
+
+            // then
+            context.verify(() -> {
+              for (int i = 1; i < upserts.size(); i++) {
+                assertEquals(upserted.<Vote>resultAt(0).getId(), upserted.<Vote>resultAt(i).getId());
+              }
+              assertEquals(new Score(0, 1), score);
+            });
+            return score;
+          }))
+          .onFailure(context::failNow)
+          .onSuccess(score -> context.completeNow());
+    });
+  }
+
+  @Test
+  void should_not_allow_second_vote_of_the_same_user(final Vertx vertx, final VertxTestContext context) {
+    // given
+    repository.vote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID).onFailure(context::failNow).onSuccess(first -> {
+
+      // when
+      repository.vote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID).setHandler(second -> {
+
+        // then
+        context.verify(() -> {
+          assertTrue(second.failed());
+          context.completeNow();
+        });
+      });
+    });
+  }
+
+  @Test
+  void should_return_zero_score_if_nobody_voted(final Vertx vertx, final VertxTestContext context) {
+    // when
+    repository.voteScore(new VoteSelector(TestData.NON_EXISTING_ID, ItemType.COMMENT))
+        .onFailure(context::failNow)
+        .onSuccess(res -> {
+
+          // then
+          context.verify(() -> {
+            assertEquals(new Score(0, 0), res);
+            context.completeNow();
+          });
+        });
+  }
+
+  @Test
+  void should_keep_score_in_sync_with_updated_and_removed_votes(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final VoteSelector selector = new VoteSelector(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE);
+    final Future<Vote> vote1 = repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), TestData.SOME_USER_ID);
+    final Future<Vote> vote2 = repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), "anotherUser");
+
+    CompositeFuture.all(vote1, vote2)
+        .compose(votes -> repository.updateVote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.DOWN), "anotherUser"))
+        .compose(updated -> repository.unvote(selector, TestData.SOME_USER_ID))
+
+        // when
+        .compose(deleted -> repository.voteScore(selector))
+        .onFailure(context::failNow)
+        .onSuccess(res -> {
+
+          // then
+          context.verify(() -> {
+            assertEquals(new Score(0, 1), res);
+            context.completeNow();
+          });
+        });
+  }
+
+  @Test
+  void should_backfill_scores_from_existing_votes(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final Future<Vote> vote1 = repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), TestData.SOME_USER_ID);
+    final Future<Vote> vote2 = repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.DOWN), "anotherUser");
+
+    CompositeFuture.all(vote1, vote2).onFailure(context::failNow).onSuccess(votes -> client.query("TRUNCATE vote_scores", truncated -> {
+
+      // when
+      PostgresSchema.prepare(client)
+          .compose(prepared -> repository.voteScore(new VoteSelector(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE)))
+          .onFailure(context::failNow)
+          .onSuccess(res -> {
+
+            // then
+            context.verify(() -> {
+              assertEquals(new Score(1, 1), res);
+              context.completeNow();
+            });
+          });
+    }));
+  }
+
+  @Test
+  void should_migrate_votes_stored_by_older_versions(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final String legacySchema = "DROP TABLE votes, vote_scores, users_dict; "
+        + "CREATE TABLE votes(id serial PRIMARY KEY, user_id varchar(50), item_id serial, item_type varchar(255), "
+        + "vote_type varchar(255), created_at timestamp); "
+        + "INSERT INTO votes (user_id, item_id, item_type, vote_type, created_at) VALUES "
+        + "('" + TestData.SOME_USER_ID + "', " + TestData.SOME_ITEM_ID + ", 'WISH', 'UP', now()), "
+        + "('anotherUser', " + TestData.SOME_ITEM_ID + ", 'WISH', 'DOWN', now())";
+    final VoteSelector selector = new VoteSelector(TestData.SOME_ITEM_ID, ItemType.WISH);
+
+    client.query(legacySchema, legacy -> {
+
+      // when
+      PostgresSchema.prepare(client)
+          .compose(prepared -> CompositeFuture.all(repository.voteScore(selector), repository.hasVoted(selector, TestData.SOME_USER_ID)))
+          .onFailure(context::failNow)
+          .onSuccess(res -> {
+
+            // then
+            context.verify(() -> {
+              assertTrue(legacy.succeeded());
+              assertEquals(new Score(1, 1), res.resultAt(0));
+              assertTrue(res.<Boolean>resultAt(1));
+              context.completeNow();
+            });
+          });
+    });
+  }
+
+  @Test
+  void should_take_removed_votes_without_user_back_from_migrated_scores(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final String legacySchema = "DROP TABLE votes, vote_scores, users_dict; "
+        + "CREATE TABLE votes(id serial PRIMARY KEY, user_id varchar(50), item_id serial, item_type varchar(255), "
+        + "vote_type varchar(255), created_at timestamp); "
+        + "CREATE TABLE vote_scores(item_id bigint NOT NULL, item_type varchar(255) NOT NULL, up bigint NOT NULL DEFAULT 0, "
+        + "down bigint NOT NULL DEFAULT 0, PRIMARY KEY (item_id, item_type)); "
+        + "INSERT INTO votes (user_id, item_id, item_type, vote_type, created_at) VALUES "
+        + "('" + TestData.SOME_USER_ID + "', " + TestData.SOME_ITEM_ID + ", 'WISH', 'UP', now()), "
+        + "(NULL, " + TestData.SOME_ITEM_ID + ", 'WISH', 'UP', now()), "
+        + "('anotherUser', " + TestData.SOME_ITEM_ID + ", 'WISH', 'DOWN', now()); "
+        + "INSERT INTO vote_scores (item_id, item_type, up, down) VALUES (" + TestData.SOME_ITEM_ID + ", 'WISH', 2, 1)";
+    final VoteSelector selector = new VoteSelector(TestData.SOME_ITEM_ID, ItemType.WISH);
+
+    client.query(legacySchema, legacy -> {
+
+      // when
+      PostgresSchema.prepare(client)
+          .compose(prepared -> repository.voteScore(selector))
+          .onFailure(context::failNow)
+          .onSuccess(score -> context.verify(() -> {
+
+            // then
+            assertTrue(legacy.succeeded());
+            assertEquals(new Score(1, 1), score);
+            context.completeNow();
+          }));
+    });
+  }
+
+  @Test
+  void should_decode_votes_stored_in_migrated_table(final Vertx vertx, final VertxTestContext context) {
+    // given
+    // Migrated table has user_id as its last column
+    final String legacySchema = "DROP TABLE votes, vote_scores, users_dict; "
+        + "CREATE TABLE votes(id serial PRIMARY KEY, user_id varchar(50), item_id serial, item_type varchar(255), "
+        + "vote_type varchar(255), created_at timestamp)";
+    final VoteInput input = new VoteInput(TestData.SOME_ITEM_ID, ItemType.COMMENT, VoteType.UP);
+
+    client.query(legacySchema, legacy -> PostgresSchema.prepare(client)
+
+        // when
+        .compose(prepared -> repository.vote(input, TestData.SOME_USER_ID))
+        .onFailure(context::failNow)
+        .onSuccess(vote -> context.verify(() -> {
+
+          // then
+          assertEquals(TestData.SOME_USER_ID, vote.getUserId());
+          assertEquals(TestData.SOME_ITEM_ID, vote.getItemId());
+          assertEquals(ItemType.COMMENT, vote.getItemType());
+          assertEquals(VoteType.UP, vote.getVoteType());
+          assertTrue(Math.abs(vote.getCreatedAt().getSeconds() - Instant.now().getEpochSecond()) < 60);
+          context.completeNow();
+        })));
+  }
+
+  @Test
+  void should_store_vote_time_in_utc_regardless_of_default_time_zone(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final TimeZone defaultTimeZone = TimeZone.getDefault();
+    TimeZone.setDefault(TimeZone.getTimeZone("Pacific/Kiritimati"));
+
+    // when
+    repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), TestData.SOME_USER_ID)
+        .setHandler(event -> {
+          TimeZone.setDefault(defaultTimeZone);
+          context.verify(() -> {
+
+            // then
+            assertTrue(event.succeeded(), () -> String.valueOf(event.cause()));
+            assertTrue(Math.abs(event.result().getCreatedAt().getSeconds() - Instant.now().getEpochSecond()) < 60);
+            context.completeNow();
+          });
+        });
+  }
+
+  @Test
+  void should_return_scores_of_many_items_in_query_order(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final VoteSelector voted = new VoteSelector(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE);
+    final VoteSelector otherType = new VoteSelector(TestData.SOME_ITEM_ID, ItemType.COMMENT);
+    final VoteSelector notVoted = new VoteSelector(TestData.NON_EXISTING_ID, ItemType.WISH);
+    final Future<Vote> vote1 = repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), TestData.SOME_USER_ID);
+    final Future<Vote> vote2 = repository.vote(new VoteInput(TestData.SOME_ITEM_ID, ItemType.COMMENT, VoteType.DOWN), TestData.SOME_USER_ID);
+
+    CompositeFuture.all(vote1, vote2).onFailure(context::failNow).onSuccess(votes -> {
+
+      // when
+      repository.voteScores(Arrays.asList(notVoted, voted, otherType))
+          .onFailure(context::failNow)
+          .onSuccess(res -> {
+
+            // then
+            context.verify(() -> {
+              assertEquals(Arrays.asList(notVoted, voted, otherType), new ArrayList<>(res.keySet()));
+              assertEquals(new Score(0, 0), res.get(notVoted));
+              assertEquals(new Score(1, 0), res.get(voted));
+              assertEquals(new Score(0, 1), res.get(otherType));
+              assertEquals(0, res.get(notVoted).getVersion());
+              assertEquals(1, res.get(voted).getVersion());
+              context.completeNow();
+            });
+          });
+    });
+  }
+
+  @Test
+  void should_return_top_items_by_score(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final Future<Vote> vote1 = repository.vote(new VoteInput(1, ItemType.WISH, VoteType.UP), TestData.SOME_USER_ID);
+    final Future<Vote> vote2 = repository.vote(new VoteInput(1, ItemType.WISH, VoteType.UP), "anotherUser");
+    final Future<Vote> vote3 = repository.vote(new VoteInput(2, ItemType.WISH, VoteType.UP), TestData.SOME_USER_ID);
+    final Future<Vote> vote4 = repository.vote(new VoteInput(3, ItemType.WISH, VoteType.DOWN), TestData.SOME_USER_ID);
+    final Future<Vote> vote5 = repository.vote(new VoteInput(4, ItemType.COMMENT, VoteType.UP), TestData.SOME_USER_ID);
+
+    CompositeFuture.all(vote1, vote2, vote3, vote4, vote5).onFailure(context::failNow).onSuccess(votes -> {
+
+      // when
+      repository.topItems(new TopItemsQuery(ItemType.WISH, 2, 1, ScoreOrder.SCORE))
+          .onFailure(context::failNow)
+          .onSuccess(res -> context.verify(() -> {
+
+            // then
+            assertEquals(Arrays.asList(new VoteSelector(2, ItemType.WISH), new VoteSelector(3, ItemType.WISH)), new ArrayList<>(res.keySet()));
+            assertEquals(new Score(1, 0), res.get(new VoteSelector(2, ItemType.WISH)));
+            assertEquals(new Score(0, 1), res.get(new VoteSelector(3, ItemType.WISH)));
+            context.completeNow();
+          }));
+    });
+  }
+
+  @Test
+  void should_return_top_items_by_confidence_stored_on_every_write(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final List<Future> votes = new ArrayList<>();
+    votes.add(repository.vote(new VoteInput(1, ItemType.WISH, VoteType.UP), TestData.SOME_USER_ID));
+    for (int i = 0; i < 10; i++) {
+      votes.add(repository.vote(new VoteInput(2, ItemType.WISH, i == 0 ? VoteType.DOWN : VoteType.UP), "user" + i));
+    }
+
+    CompositeFuture.all(votes)
+        .compose(voted -> repository.updateVote(new VoteInput(2, ItemType.WISH, VoteType.UP), "user0"))
+        .compose(updated -> repository.unvote(new VoteSelector(2, ItemType.WISH), "user1"))
+
+        // when
+        .compose(unvoted -> repository.topItems(new TopItemsQuery(ItemType.WISH, 10, 0, ScoreOrder.CONFIDENCE)))
+        .onFailure(context::failNow)
+        .onSuccess(res -> client.query("SELECT confidence FROM vote_scores WHERE item_id=2", stored -> context.verify(() -> {
+
+          // then
+          assertEquals(Arrays.asList(new VoteSelector(2, ItemType.WISH), new VoteSelector(1, ItemType.WISH)), new ArrayList<>(res.keySet()));
+          assertEquals(new Score(9, 0), res.get(new VoteSelector(2, ItemType.WISH)));
+          assertEquals(Score.wilsonLowerBound(9, 0), stored.result().iterator().next().getDouble(0), 1e-9);
+          assertEquals(Score.wilsonLowerBound(1, 0), res.get(new VoteSelector(1, ItemType.WISH)).getConfidence(), 1e-9);
+          context.completeNow();
+        })));
+  }
+
+  @Test
+  void should_keep_loaded_ranking_in_sync_with_writes(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final ScoreRanking ranking = new ScoreRanking();
+    final PostgresVoteRepository repository = new PostgresVoteRepository(client);
+    repository.addScoreChangeHandler(ranking::apply);
+    final TopItemsQuery query = new TopItemsQuery(ItemType.WISH, 10, 0, ScoreOrder.SCORE);
+
+    repository.vote(new VoteInput(1, ItemType.WISH, VoteType.UP), TestData.SOME_USER_ID)
+        .compose(voted -> repository.vote(new VoteInput(2, ItemType.WISH, VoteType.DOWN), TestData.SOME_USER_ID))
+        .compose(voted -> ranking.load(client))
+
+        // when
+        .compose(loaded -> repository.upsertVote(new VoteInput(1, ItemType.WISH, VoteType.DOWN), TestData.SOME_USER_ID))
+        .compose(upserted -> repository.upsertVote(new VoteInput(3, ItemType.WISH, VoteType.UP), TestData.SOME_USER_ID))
+        .compose(upserted -> repository.updateVote(new VoteInput(2, ItemType.WISH, VoteType.UP), TestData.SOME_USER_ID))
+        .compose(updated -> repository.vote(new VoteInput(2, ItemType.WISH, VoteType.UP), "anotherUser"))
+        .compose(voted -> repository.unvote(new VoteSelector(1, ItemType.WISH), TestData.SOME_USER_ID))
+        .compose(unvoted -> repository.topItems(query))
+        .onFailure(context::failNow)
+        .onSuccess(res -> context.verify(() -> {
+
+          // then
+          assertEquals(res, ranking.top(ItemType.WISH, query.getLimit(), query.getOffset()));
+          assertEquals(Arrays.asList(new VoteSelector(2, ItemType.WISH), new VoteSelector(3, ItemType.WISH)), new ArrayList<>(res.keySet()));
+          assertEquals(2, ranking.size());
+          context.completeNow();
+        }));
+  }
+
+  @Test
+  void should_pass_new_counters_with_every_score_change(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final VoteSelector selector = new VoteSelector(TestData.SOME_ITEM_ID, ItemType.WISH);
+    final PostgresVoteRepository repository = new PostgresVoteRepository(client);
+    final List<Score> scores = new ArrayList<>();
+    repository.addScoreChangeHandler(change -> scores.add(change.getScore()));
+
+    // when
+    repository.vote(new VoteInput(TestData.SOME_ITEM_ID, ItemType.WISH, VoteType.UP), TestData.SOME_USER_ID)
+        .compose(voted -> repository.upsertVote(new VoteInput(TestData.SOME_ITEM_ID, ItemType.WISH, VoteType.UP), "anotherUser"))
+        .compose(upserted -> repository.upsertVote(new VoteInput(TestData.SOME_ITEM_ID, ItemType.WISH, VoteType.UP), "anotherUser"))
+        .compose(upserted -> repository.updateVote(new VoteInput(TestData.SOME_ITEM_ID, ItemType.WISH, VoteType.DOWN), TestData.SOME_USER_ID))
+        .compose(updated -> repository.unvote(selector, "anotherUser"))
+        .onFailure(context::failNow)
+        .onSuccess(unvoted -> context.verify(() -> {
+
+          // then
+          // Upserting the same vote again doesn't change the score
+          assertEquals(Arrays.asList(new Score(1, 0), new Score(2, 0), new Score(1, 1), new Score(0, 1)), scores);
+          // Every write to the counters increments their version
+          assertEquals(Arrays.asList(1L, 2L, 3L, 4L), scores.stream().map(Score::getVersion).collect(Collectors.toList()));
+          context.completeNow();
+        }));
+  }
+
+  @Test
+  void should_load_trending_scores_matching_applied_changes(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final Map<ItemType, Duration> halfLives = new EnumMap<>(ItemType.class);
+    halfLives.put(ItemType.WISH, Duration.ofHours(1));
+    halfLives.put(ItemType.COMMENT, Duration.ofHours(1));
+    final TrendingRanking applied = new TrendingRanking(halfLives);
+    final TrendingRanking loaded = new TrendingRanking(halfLives);
+    final PostgresVoteRepository repository = new PostgresVoteRepository(client);
+    repository.addScoreChangeHandler(applied::apply);
+
+    repository.vote(new VoteInput(1, ItemType.WISH, VoteType.UP), TestData.SOME_USER_ID)
+        .compose(voted -> repository.vote(new VoteInput(1, ItemType.WISH, VoteType.UP), "anotherUser"))
+        .compose(voted -> repository.vote(new VoteInput(2, ItemType.WISH, VoteType.UP), TestData.SOME_USER_ID))
+        .compose(voted -> repository.updateVote(new VoteInput(2, ItemType.WISH, VoteType.DOWN), TestData.SOME_USER_ID))
+        .compose(updated -> repository.vote(new VoteInput(3, ItemType.WISH, VoteType.UP), TestData.SOME_USER_ID))
+        .compose(voted -> repository.unvote(new VoteSelector(3, ItemType.WISH), TestData.SOME_USER_ID))
+
+        // when
+        .compose(unvoted -> loaded.load(client))
+        .onFailure(context::failNow)
+        .onSuccess(done -> context.verify(() -> {
+
+          // then
+          final Map<VoteSelector, Double> expected = applied.top(ItemType.WISH, 10);
+          final Map<VoteSelector, Double> actual = loaded.top(ItemType.WISH, 10);
+          assertEquals(Arrays.asList(new VoteSelector(1, ItemType.WISH), new VoteSelector(2, ItemType.WISH)), new ArrayList<>(actual.keySet()));
+          assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+          assertEquals(expected.get(new VoteSelector(1, ItemType.WISH)), actual.get(new VoteSelector(1, ItemType.WISH)), 0.01);
+          assertEquals(expected.get(new VoteSelector(2, ItemType.WISH)), actual.get(new VoteSelector(2, ItemType.WISH)), 0.01);
+          context.completeNow();
+        }));
+  }
+
+  @Test
+  void should_count_standing_votes_in_history_buckets(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final VoteSelector selector = new VoteSelector(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE);
+    final LocalDateTime now = RowDecoder.now();
+    final Timestamp from = RowDecoder.timestamp(now.minusHours(1));
+    final Timestamp to = RowDecoder.timestamp(now.plusHours(1));
+
+    repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), TestData.SOME_USER_ID)
+        .compose(voted -> repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), "anotherUser"))
+        .compose(voted -> repository.updateVote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.DOWN), "anotherUser"))
+        .compose(updated -> repository.vote(new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, VoteType.UP), "thirdUser"))
+        .compose(voted -> repository.unvote(selector, "thirdUser"))
+
+        // when
+        .compose(unvoted -> CompositeFuture.all(
+            repository.scoreHistory(new ScoreHistoryQuery(selector, from, to, Granularity.HOUR)),
+            repository.scoreHistory(new ScoreHistoryQuery(selector, from, to, Granularity.DAY))))
+        .onFailure(context::failNow)
+        .onSuccess(histories -> context.verify(() -> {
+
+          // then
+          // Votes cast right before a full hour or midnight fall into two buckets
+          for (int i = 0; i < histories.size(); i++) {
+            final Map<Timestamp, Score> buckets = histories.resultAt(i);
+            assertEquals(1, buckets.values().stream().mapToLong(Score::getUp).sum());
+            assertEquals(1, buckets.values().stream().mapToLong(Score::getDown).sum());
+          }
+          context.completeNow();
+        }));
+  }
+
+  @Test
+  void should_keep_daily_history_of_compacted_hourly_buckets(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final VoteSelector selector = new VoteSelector(TestData.SOME_ITEM_ID, ItemType.WISH);
+    final LocalDateTime day = LocalDateTime.of(2020, 2, 1, 0, 0);
+    final String votes = "INSERT INTO votes (user_id, item_id, item_type, vote_type, created_at) VALUES "
+        + "(1, " + TestData.SOME_ITEM_ID + ", 0, 0, '2020-02-01 09:30'), "
+        + "(2, " + TestData.SOME_ITEM_ID + ", 0, 1, '2020-02-01 15:10'), "
+        + "(3, " + TestData.SOME_ITEM_ID + ", 0, 0, '2020-02-02 10:00')";
+    final RollupCompactor compactor = new RollupCompactor(client, Duration.ofHours(48));
+
+    client.query(votes, inserted -> PostgresSchema.prepare(client)
+        .compose(prepared -> compactor.compact())
+        .compose(moved -> {
+          context.verify(() -> assertEquals(3L, moved));
+
+          // when
+          return CompositeFuture.all(
+              repository.scoreHistory(new ScoreHistoryQuery(selector, RowDecoder.timestamp(day), RowDecoder.timestamp(day.plusDays(2)),
+                  Granularity.HOUR)),
+              repository.scoreHistory(new ScoreHistoryQuery(selector, RowDecoder.timestamp(day.plusHours(12)),
+                  RowDecoder.timestamp(day.plusDays(2)), Granularity.DAY)));
+        })
+        .onFailure(context::failNow)
+        .onSuccess(histories -> context.verify(() -> {
+
+          // then
+          final Map<Timestamp, Score> hourly = histories.resultAt(0);
+          final Map<Timestamp, Score> daily = histories.resultAt(1);
+          assertTrue(hourly.isEmpty());
+          assertEquals(Arrays.asList(RowDecoder.timestamp(day), RowDecoder.timestamp(day.plusDays(1))), new ArrayList<>(daily.keySet()));
+          assertEquals(new Score(1, 1), daily.get(RowDecoder.timestamp(day)));
+          assertEquals(new Score(1, 0), daily.get(RowDecoder.timestamp(day.plusDays(1))));
+          context.completeNow();
+        })));
+  }
+
+  @Test
+  void should_return_user_votes_on_many_items(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final VoteSelector votedUp = new VoteSelector(TestData.SOME_ITEM_ID, ItemType.WISH);
+    final VoteSelector votedDown = new VoteSelector(TestData.SOME_ITEM_ID, ItemType.COMMENT);
+    final VoteSelector votedByAnotherUser = new VoteSelector(TestData.NON_EXISTING_ID, ItemType.WISH);
+    final Future<Vote> vote1 = repository.vote(new VoteInput(TestData.SOME_ITEM_ID, ItemType.WISH, VoteType.UP), TestData.SOME_USER_ID);
+    final Future<Vote> vote2 = repository.vote(new VoteInput(TestData.SOME_ITEM_ID, ItemType.COMMENT, VoteType.DOWN), TestData.SOME_USER_ID);
+    final Future<Vote> vote3 = repository.vote(new VoteInput(TestData.NON_EXISTING_ID, ItemType.WISH, VoteType.UP), "anotherUser");
+
+    CompositeFuture.all(vote1, vote2, vote3).onFailure(context::failNow).onSuccess(votes -> {
+
+      // when
+      repository.userVotes(Arrays.asList(votedUp, votedDown, votedByAnotherUser), TestData.SOME_USER_ID)
+          .onFailure(context::failNow)
+          .onSuccess(res -> {
+
+            // then
+            context.verify(() -> {
+              assertEquals(2, res.size());
+              assertEquals(VoteType.UP, res.get(votedUp));
+              assertEquals(VoteType.DOWN, res.get(votedDown));
+              context.completeNow();
+            });
+          });
+    });
+  }
+
+  @Test
+  void should_skip_operations_whose_deadline_has_expired(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final PostgresVoteRepository repository = new PostgresVoteRepository(client);
+    final Deadline expired = Deadline.after(0, TimeUnit.MILLISECONDS);
+
+    // when
+    final Future<Vote> vote = repository.upsertVote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID, expired);
+    final Future<Score> score = repository.voteScore(TestData.VOTE_SELECTOR, false, expired);
+
+    CompositeFuture.join(vote, score).setHandler(event -> repository.hasVoted(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID, true)
+        .setHandler(voted -> context.verify(() -> {
+
+          // then
+          assertTrue(vote.cause() instanceof DeadlineExceededException);
+          assertTrue(score.cause() instanceof DeadlineExceededException);
+          assertFalse(voted.result());
+          assertEquals(1L, repository.expiredBeforeExecution().get("upsertVote"));
+          assertEquals(1L, repository.expiredBeforeExecution().get("voteScore"));
+          context.completeNow();
+        })));
+  }
+
+  @Test
+  void should_record_statistics_of_executed_queries(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final StatementStatistics statistics = new StatementStatistics(
+        new LatencyHistograms("test_query_seconds", "Query latency recorded by a test.", "query"), 0, 0);
+    final PostgresVoteRepository repository = new PostgresVoteRepository(client, client, null, statistics);
+
+    // when
+    repository.upsertVote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID)
+        .compose(voted -> repository.voteScore(TestData.VOTE_SELECTOR, true))
+        .compose(scored -> repository.voteScore(new VoteSelector(TestData.NON_EXISTING_ID, ItemType.COMMENT), true))
+        .onFailure(context::failNow)
+        .onSuccess(score -> context.verify(() -> {
+
+          // then
+          final Map<Query, StatementStatistics.Summary> summary = repository.statementStatistics();
+          assertEquals(1, summary.get(Query.CREATE_USER_KEY).getCalls());
+          assertEquals(1, summary.get(Query.UPSERT_VOTE).getRows());
+          assertEquals(2, summary.get(Query.GET_SCORE).getCalls());
+          assertEquals(1, summary.get(Query.GET_SCORE).getRows());
+          assertEquals(0, summary.get(Query.GET_SCORE).getErrors());
+          assertTrue(summary.get(Query.GET_SCORE).getMaxMillis() > 0);
+          assertFalse(summary.containsKey(Query.UNVOTE));
+          context.completeNow();
+        }));
+  }
+
+  @Test
+  void should_not_store_existing_users_again(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final StatementStatistics statistics = new StatementStatistics(
+        new LatencyHistograms("test_user_key_seconds", "Query latency recorded by a test.", "query"), 0, 0);
+    final PostgresVoteRepository first = new PostgresVoteRepository(client, client, null, statistics);
+    // Separate repository doesn't have the user key cached
+    final PostgresVoteRepository second = new PostgresVoteRepository(client, client, null, statistics);
+
+    // when
+    first.upsertVote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID)
+        .compose(voted -> second.upsertVote(TestData.VOTE_INPUT_4, TestData.SOME_USER_ID))
+        .onFailure(context::failNow)
+        .onSuccess(voted -> context.verify(() -> {
+
+          // then
+          final Map<Query, StatementStatistics.Summary> summary = statistics.summary();
+          assertEquals(1, summary.get(Query.CREATE_USER_KEY).getCalls());
+          assertEquals(2, summary.get(Query.FIND_USER_KEY).getCalls());
+          context.completeNow();
+        }));
+  }
+
+  @Test
+  void should_read_from_primary_only_if_asked_to_read_own_writes(final Vertx vertx, final VertxTestContext context) throws Exception {
+    // given
+    // Replica which hasn't received any writes yet
+    final EmbeddedPostgres replica = EmbeddedPostgres.start();
+    final PgPool readClient = PgPool.pool(new PgConnectOptions()
+        .setPort(replica.getPort())
+        .setHost(DATABASE_HOST)
+        .setDatabase(DEFAULT_POSTGRES)
+        .setUser(DEFAULT_POSTGRES)
+        .setPassword(DEFAULT_POSTGRES), new PoolOptions().setMaxSize(1));
+    final VoteRepository replicated = new PostgresVoteRepository(client, readClient, null);
+
+    PostgresSchema.prepare(readClient)
+        .compose(prepared -> replicated.upsertVote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID))
+
+        // when
+        .compose(voted -> CompositeFuture.all(replicated.voteScore(TestData.VOTE_SELECTOR), replicated.voteScore(TestData.VOTE_SELECTOR, true)))
+        .setHandler(event -> context.verify(() -> {
+          replica.close();
+
+          // then
+          assertTrue(event.succeeded());
+          assertEquals(new Score(0, 0), event.result().resultAt(0));
+          assertEquals(new Score(0, 1), event.result().resultAt(1));
+          context.completeNow();
+        }));
+  }
+
   @Test
   @Timeout(value = 5, timeUnit = TimeUnit.SECONDS)
   void should_fail_fast_on_postgres_connection_error(final Vertx vertx, final VertxTestContext context) throws Exception {
@@ -0,0 +1,170 @@
+package io.appwish.voteservice.repository.impl;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.pgclient.PgPool;
+import io.vertx.sqlclient.PoolOptions;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class QueryPlanTest {
+
+  private static final String DATABASE_HOST = "localhost";
+  private static final String DEFAULT_POSTGRES = "postgres";
+  private static final int USER_KEY = 1;
+  private static final long ITEM_ID = 1;
+  private static final short CODE = 0;
+
+  // Queries which don't look anything up. Every other query has to be planned with parameters from LOOKUPS.
+  private static final Set<Query> NOT_LOOKUPS = EnumSet.of(
+      Query.VOTE,
+      Query.CREATE_USER_KEY,
+      Query.CREATE_VOTE_TABLE,
+      Query.CREATE_USERS_DICT_TABLE,
+      Query.CREATE_VOTE_SCORES_TABLE,
+      Query.CREATE_VOTE_ROLLUPS_HOURLY_TABLE,
+      Query.CREATE_VOTE_ROLLUPS_DAILY_TABLE,
+      Query.MIGRATE_TO_COMPACT_SCHEMA,
+      Query.CREATE_WILSON_LOWER_BOUND_FUNCTION,
+      Query.MIGRATE_TO_VOTE_SCORES_CONFIDENCE,
+      Query.MIGRATE_TO_VOTE_SCORES_VERSION,
+      Query.BACKFILL_VOTE_SCORES,
+      Query.BACKFILL_VOTE_ROLLUPS,
+      Query.DEDUPLICATE_VOTES,
+      Query.CREATE_VOTES_USER_ITEM_INDEX,
+      Query.DROP_VOTES_USER_ITEM_LEGACY_INDEX,
+      Query.CREATE_VOTES_ITEM_INDEX,
+      Query.CREATE_VOTE_SCORES_CONFIDENCE_INDEX,
+      Query.SET_STATEMENT_TIMEOUT,
+      Query.FIND_INDEXES,
+      // Moves all hourly buckets past their retention, the table only holds buckets within the retention and a few hours more
+      Query.COMPACT_HOURLY_ROLLUPS);
+
+  // Queries looking up existing rows with the parameters to plan them with
+  private static final Map<Query, Tuple> LOOKUPS = new EnumMap<>(Query.class);
+
+  static {
+    LOOKUPS.put(Query.UPSERT_VOTE, Tuple.of(USER_KEY, ITEM_ID, CODE, CODE, RowDecoder.now()));
+    LOOKUPS.put(Query.UNVOTE, Tuple.of(ITEM_ID, CODE, USER_KEY));
+    LOOKUPS.put(Query.UPDATE_VOTE, Tuple.of(CODE, ITEM_ID, CODE, USER_KEY));
+    LOOKUPS.put(Query.FIND_USER_KEY, Tuple.of("user"));
+    LOOKUPS.put(Query.HAS_VOTED, Tuple.of(USER_KEY, ITEM_ID, CODE));
+    LOOKUPS.put(Query.HAS_VOTED_MANY, Tuple.of(USER_KEY, new Long[]{ITEM_ID}, new Short[]{CODE}));
+    LOOKUPS.put(Query.GET_SCORE, Tuple.of(ITEM_ID, CODE));
+    LOOKUPS.put(Query.GET_SCORES, Tuple.of(new Long[]{ITEM_ID}, new Short[]{CODE}));
+    LOOKUPS.put(Query.GET_TOP_SCORES, Tuple.of(CODE, 10L, 0L));
+    LOOKUPS.put(Query.GET_TOP_CONFIDENCE, Tuple.of(CODE, 10L, 0L));
+    LOOKUPS.put(Query.GET_HOURLY_HISTORY, Tuple.of(ITEM_ID, CODE, RowDecoder.now().minusDays(1), RowDecoder.now()));
+    LOOKUPS.put(Query.GET_DAILY_HISTORY, Tuple.of(ITEM_ID, CODE, RowDecoder.now().minusDays(30), RowDecoder.now()));
+    LOOKUPS.put(Query.GET_SCORES_PAGE, Tuple.of(ITEM_ID, CODE, 100L));
+    LOOKUPS.put(Query.GET_TRENDING_PAGE, Tuple.of(CODE, ITEM_ID, RowDecoder.now(), 3600.0, 100L));
+  }
+
+  private EmbeddedPostgres postgres;
+  private PgPool client;
+
+  @BeforeEach
+  void setUp(final Vertx vertx, final VertxTestContext context) throws Exception {
+    postgres = EmbeddedPostgres.start();
+
+    final PgConnectOptions connectOptions = new PgConnectOptions()
+        .setPort(postgres.getPort())
+        .setHost(DATABASE_HOST)
+        .setDatabase(DEFAULT_POSTGRES)
+        .setUser(DEFAULT_POSTGRES)
+        .setPassword(DEFAULT_POSTGRES);
+    final PoolOptions poolOptions = new PoolOptions().setMaxSize(1);
+    client = PgPool.pool(connectOptions, poolOptions);
+
+    PostgresSchema.prepare(client).setHandler(context.completing());
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    postgres.close();
+  }
+
+  @Test
+  void should_use_indexes_for_every_lookup(final Vertx vertx, final VertxTestContext context) {
+    client.getConnection(connected -> {
+      if (connected.failed()) {
+        context.failNow(connected.cause());
+        return;
+      }
+
+      final SqlConnection connection = connected.result();
+      final Map<Query, String> plans = new HashMap<>();
+
+      // given
+      // Test tables are tiny, so scanning them would be cheaper than using any index
+      Future<Void> explained = execute(connection, "SET enable_seqscan = off", Tuple.tuple()).mapEmpty();
+
+      // when
+      for (final Query query : Query.values()) {
+        if (NOT_LOOKUPS.contains(query)) {
+          continue;
+        }
+
+        explained = explained
+            .compose(previous -> LOOKUPS.containsKey(query)
+                ? execute(connection, "EXPLAIN " + query.sql(), LOOKUPS.get(query))
+                : Future.failedFuture(query + " has no parameters to plan it with"))
+            .map(plan -> {
+              plans.put(query, plan);
+              return null;
+            });
+      }
+
+      // then
+      explained.setHandler(event -> {
+        connection.close();
+        context.verify(() -> {
+          assertTrue(event.succeeded(), () -> String.valueOf(event.cause()));
+          plans.forEach((query, plan) -> {
+            assertFalse(plan.contains("Seq Scan"), () -> query + " scans a table:\n" + plan);
+            assertTrue(plan.contains("Index"), () -> query + " doesn't use an index:\n" + plan);
+          });
+          context.completeNow();
+        });
+      });
+    });
+  }
+
+  private static Future<String> execute(final SqlConnection connection, final String sql, final Tuple tuple) {
+    final Promise<String> promise = Promise.promise();
+
+    connection.preparedQuery(sql, tuple, event -> {
+      if (event.succeeded()) {
+        final StringBuilder plan = new StringBuilder();
+        for (final Row row : event.result()) {
+          plan.append(row.getString(0)).append('\n');
+        }
+        promise.complete(plan.toString());
+      } else {
+        promise.fail(event.cause());
+      }
+    });
+
+    return promise.future();
+  }
+}
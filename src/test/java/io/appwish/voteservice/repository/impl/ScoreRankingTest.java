@@ -0,0 +1,86 @@
+package io.appwish.voteservice.repository.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.repository.ScoreChange;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ScoreRankingTest {
+
+  private static final VoteSelector FIRST = new VoteSelector(1, ItemType.WISH);
+  private static final VoteSelector SECOND = new VoteSelector(2, ItemType.WISH);
+  private static final VoteSelector THIRD = new VoteSelector(3, ItemType.WISH);
+  private static final VoteSelector COMMENT = new VoteSelector(1, ItemType.COMMENT);
+  private static final LocalDateTime CREATED_AT = LocalDateTime.of(2020, 2, 1, 9, 0);
+
+  @Test
+  void should_order_items_by_score_and_ties_by_item_id() {
+    // given
+    final ScoreRanking ranking = new ScoreRanking();
+
+    // when
+    ranking.apply(new ScoreChange(THIRD, 2, 1, CREATED_AT));
+    ranking.apply(new ScoreChange(FIRST, 1, 0, CREATED_AT));
+    ranking.apply(new ScoreChange(SECOND, 3, 0, CREATED_AT));
+    ranking.apply(new ScoreChange(COMMENT, 10, 0, CREATED_AT));
+    final Map<VoteSelector, Score> top = ranking.top(ItemType.WISH, 10, 0);
+
+    // then
+    assertEquals(Arrays.asList(SECOND, FIRST, THIRD), new ArrayList<>(top.keySet()));
+    assertEquals(new Score(2, 1), top.get(THIRD));
+    assertEquals(4, ranking.size());
+  }
+
+  @Test
+  void should_move_item_by_relative_changes() {
+    // given
+    final ScoreRanking ranking = new ScoreRanking();
+    ranking.apply(new ScoreChange(FIRST, 2, 0, CREATED_AT));
+    ranking.apply(new ScoreChange(SECOND, 1, 0, CREATED_AT));
+
+    // when
+    ranking.apply(new ScoreChange(FIRST, -1, 1, CREATED_AT));
+
+    // then
+    assertEquals(Arrays.asList(SECOND, FIRST), new ArrayList<>(ranking.top(ItemType.WISH, 10, 0).keySet()));
+    assertEquals(new Score(1, 1), ranking.top(ItemType.WISH, 10, 0).get(FIRST));
+  }
+
+  @Test
+  void should_remove_items_without_votes() {
+    // given
+    final ScoreRanking ranking = new ScoreRanking();
+    ranking.apply(new ScoreChange(FIRST, 1, 0, CREATED_AT));
+
+    // when
+    ranking.apply(new ScoreChange(FIRST, -1, 0, CREATED_AT));
+
+    // then
+    assertTrue(ranking.top(ItemType.WISH, 10, 0).isEmpty());
+    assertEquals(0, ranking.size());
+  }
+
+  @Test
+  void should_return_requested_page() {
+    // given
+    final ScoreRanking ranking = new ScoreRanking();
+    ranking.apply(new ScoreChange(FIRST, 3, 0, CREATED_AT));
+    ranking.apply(new ScoreChange(SECOND, 2, 0, CREATED_AT));
+    ranking.apply(new ScoreChange(THIRD, 1, 0, CREATED_AT));
+
+    // when
+    final Map<VoteSelector, Score> page = ranking.top(ItemType.WISH, 1, 1);
+
+    // then
+    assertEquals(Arrays.asList(SECOND), new ArrayList<>(page.keySet()));
+    assertTrue(ranking.top(ItemType.WISH, 10, 3).isEmpty());
+  }
+}
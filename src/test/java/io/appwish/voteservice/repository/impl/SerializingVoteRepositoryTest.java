@@ -0,0 +1,118 @@
+package io.appwish.voteservice.repository.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.appwish.voteservice.TestData;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.input.VoteInput;
+import io.appwish.voteservice.dto.type.VoteType;
+import io.appwish.voteservice.repository.VoteRepository;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.pgclient.PgPool;
+import io.vertx.sqlclient.PoolOptions;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class SerializingVoteRepositoryTest {
+
+  private static final String DATABASE_HOST = "localhost";
+  private static final String DEFAULT_POSTGRES = "postgres";
+  private static final int THREADS = 8;
+  private static final int OPERATIONS_PER_THREAD = 50;
+
+  private EmbeddedPostgres postgres;
+  private VoteRepository repository;
+
+  @BeforeEach
+  void setUp(final Vertx vertx, final VertxTestContext context) throws Exception {
+    postgres = EmbeddedPostgres.start();
+
+    final PgConnectOptions connectOptions = new PgConnectOptions()
+        .setPort(postgres.getPort())
+        .setHost(DATABASE_HOST)
+        .setDatabase(DEFAULT_POSTGRES)
+        .setUser(DEFAULT_POSTGRES)
+        .setPassword(DEFAULT_POSTGRES);
+    final PoolOptions poolOptions = new PoolOptions().setMaxSize(THREADS);
+    final PgPool client = PgPool.pool(vertx, connectOptions, poolOptions);
+
+    PostgresSchema.prepare(client).setHandler(context.completing());
+
+    repository = new SerializingVoteRepository(new PostgresVoteRepository(client), new KeyedSerializer<>());
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    postgres.close();
+  }
+
+  @Test
+  @Timeout(value = 60, timeUnit = TimeUnit.SECONDS)
+  void should_leave_state_of_last_write_after_conflicting_writes_from_many_threads(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final ExecutorService submitters = Executors.newFixedThreadPool(THREADS);
+    // Writes of one user on one item complete in the order they execute, so the last one to complete decides the final state
+    final AtomicReference<Score> lastWrite = new AtomicReference<>();
+    final List<Future> results = new ArrayList<>();
+
+    // when
+    for (int thread = 0; thread < THREADS; thread++) {
+      final int offset = thread;
+      final Promise<Void> submitted = Promise.promise();
+      results.add(submitted.future());
+
+      submitters.execute(() -> {
+        final List<Future> threadResults = new ArrayList<>();
+
+        for (int operation = 0; operation < OPERATIONS_PER_THREAD; operation++) {
+          switch ((operation + offset) % 3) {
+            case 0:
+              threadResults.add(repository.upsertVote(input(VoteType.UP), TestData.SOME_USER_ID)
+                  .map(vote -> lastWrite.getAndSet(new Score(1, 0))));
+              break;
+            case 1:
+              threadResults.add(repository.upsertVote(input(VoteType.DOWN), TestData.SOME_USER_ID)
+                  .map(vote -> lastWrite.getAndSet(new Score(0, 1))));
+              break;
+            default:
+              threadResults.add(repository.unvote(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID)
+                  .map(unvoted -> lastWrite.getAndSet(new Score(0, 0))));
+          }
+        }
+
+        CompositeFuture.all(threadResults).<Void>mapEmpty().setHandler(submitted);
+      });
+    }
+
+    CompositeFuture.all(results)
+        .compose(done -> repository.voteScore(TestData.VOTE_SELECTOR, true))
+        .setHandler(context.succeeding(score -> context.verify(() -> {
+
+          // then
+          assertEquals(lastWrite.get(), score);
+          submitters.shutdown();
+          context.completeNow();
+        })));
+  }
+
+  private static VoteInput input(final VoteType voteType) {
+    return new VoteInput(TestData.SOME_ITEM_ID, TestData.SOME_ITEM_TYPE, voteType);
+  }
+}
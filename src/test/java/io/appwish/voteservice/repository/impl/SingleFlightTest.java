@@ -0,0 +1,135 @@
+package io.appwish.voteservice.repository.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.Checkpoint;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class SingleFlightTest {
+
+  private static final String KEY = "key";
+
+  @Test
+  void should_execute_concurrent_identical_queries_once() {
+    // given
+    final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+    final Promise<Integer> query = Promise.promise();
+    final AtomicInteger executions = new AtomicInteger();
+
+    // when
+    final Future<Integer> first = singleFlight.execute(KEY, () -> {
+      executions.incrementAndGet();
+      return query.future();
+    });
+    final Future<Integer> second = singleFlight.execute(KEY, () -> {
+      executions.incrementAndGet();
+      return query.future();
+    });
+    query.complete(42);
+
+    // then
+    assertEquals(1, executions.get());
+    assertEquals(1, singleFlight.collapsed());
+    assertEquals(42, first.result());
+    assertEquals(42, second.result());
+  }
+
+  @Test
+  void should_execute_query_again_once_previous_completed() {
+    // given
+    final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+    final AtomicInteger executions = new AtomicInteger();
+
+    // when
+    singleFlight.execute(KEY, () -> Future.succeededFuture(executions.incrementAndGet()));
+    final Future<Integer> second = singleFlight.execute(KEY, () -> Future.succeededFuture(executions.incrementAndGet()));
+
+    // then
+    assertEquals(2, executions.get());
+    assertEquals(0, singleFlight.collapsed());
+    assertEquals(2, second.result());
+  }
+
+  @Test
+  void should_fail_all_collapsed_requests_if_query_fails() {
+    // given
+    final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+    final Promise<Integer> query = Promise.promise();
+
+    // when
+    final Future<Integer> first = singleFlight.execute(KEY, query::future);
+    final Future<Integer> second = singleFlight.execute(KEY, query::future);
+    query.fail(new AssertionError());
+
+    // then
+    assertTrue(first.failed());
+    assertTrue(second.failed());
+  }
+
+  @Test
+  void should_fail_all_collapsed_requests_and_forget_query_if_it_throws() {
+    // given
+    final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+    final Promise<Integer> waiting = Promise.promise();
+
+    // when
+    final Future<Integer> first = singleFlight.execute(KEY, () -> {
+      // Another request for the key arrives while the query is being started
+      singleFlight.execute(KEY, () -> Future.succeededFuture(1)).setHandler(waiting);
+      throw new IllegalStateException();
+    });
+    final Future<Integer> next = singleFlight.execute(KEY, () -> Future.succeededFuture(2));
+
+    // then
+    assertTrue(first.failed());
+    assertTrue(waiting.future().failed());
+    assertEquals(2, next.result());
+  }
+
+  @Test
+  void should_complete_collapsed_requests_on_their_own_contexts(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+    final Promise<Integer> query = Promise.promise();
+    final Context first = vertx.getOrCreateContext();
+    final Context second = vertx.getOrCreateContext();
+    final Checkpoint completed = context.checkpoint(2);
+    assertNotSame(first, second);
+
+    // when
+    first.runOnContext(started -> {
+      singleFlight.execute(KEY, query::future).setHandler(event -> context.verify(() -> {
+
+        // then
+        assertSame(first, Vertx.currentContext());
+        assertEquals(42, event.result());
+        completed.flag();
+      }));
+
+      second.runOnContext(collapsed -> {
+        singleFlight.execute(KEY, () -> Future.succeededFuture(0)).setHandler(event -> context.verify(() -> {
+
+          // then
+          assertSame(second, Vertx.currentContext());
+          assertEquals(42, event.result());
+          completed.flag();
+        }));
+
+        // The query completes on the context which started it
+        first.runOnContext(done -> query.complete(42));
+      });
+    });
+  }
+}
@@ -0,0 +1,101 @@
+package io.appwish.voteservice.repository.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.appwish.voteservice.metrics.LatencyHistograms;
+import io.vertx.sqlclient.Tuple;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class StatementStatisticsTest {
+
+  private static final Tuple PARAMETERS = Tuple.of(1L, new Long[]{1L, 2L});
+
+  @Test
+  void should_summarize_executions_per_query() {
+    // given
+    final StatementStatistics statistics = new StatementStatistics(histograms(), 0, 0);
+
+    // when
+    for (int i = 0; i < 98; i++) {
+      statistics.record(Query.GET_SCORE, PARAMETERS, TimeUnit.MICROSECONDS.toNanos(100), 1, false);
+    }
+    statistics.record(Query.GET_SCORE, PARAMETERS, TimeUnit.MILLISECONDS.toNanos(5), 0, true);
+    statistics.record(Query.GET_SCORE, PARAMETERS, TimeUnit.MILLISECONDS.toNanos(50), 1, false);
+    final Map<Query, StatementStatistics.Summary> summary = statistics.summary();
+
+    // then
+    assertEquals(1, summary.size());
+    final StatementStatistics.Summary score = summary.get(Query.GET_SCORE);
+    assertEquals(100, score.getCalls());
+    assertEquals(1, score.getErrors());
+    assertEquals(99, score.getRows());
+    assertEquals(64.8, score.getTotalMillis(), 0.001);
+    assertEquals(0.104, score.getP50Millis(), 0.001);
+    assertEquals(5.12, score.getP99Millis(), 0.001);
+    assertEquals(50, score.getMaxMillis(), 0.001);
+  }
+
+  @Test
+  void should_not_report_quantiles_above_maximum() {
+    // given
+    final StatementStatistics statistics = new StatementStatistics(histograms(), 0, 0);
+
+    // when
+    statistics.record(Query.VOTE, PARAMETERS, TimeUnit.MICROSECONDS.toNanos(100), 1, false);
+
+    // then
+    assertEquals(0.1, statistics.summary().get(Query.VOTE).getP99Millis(), 0.001);
+  }
+
+  @Test
+  void should_summarize_only_own_executions_by_default() {
+    // given
+    final StatementStatistics statistics = new StatementStatistics();
+    final StatementStatistics other = new StatementStatistics();
+
+    // when
+    statistics.record(Query.HAS_VOTED, PARAMETERS, TimeUnit.MICROSECONDS.toNanos(100), 1, false);
+    other.record(Query.HAS_VOTED, PARAMETERS, TimeUnit.SECONDS.toNanos(1), 1, false);
+
+    // then
+    final StatementStatistics.Summary summary = statistics.summary().get(Query.HAS_VOTED);
+    assertEquals(1, summary.getCalls());
+    assertEquals(0.1, summary.getMaxMillis(), 0.001);
+    assertEquals(0.1, summary.getP99Millis(), 0.001);
+  }
+
+  @Test
+  void should_log_slow_query_once_per_interval() {
+    // given
+    final StatementStatistics statistics = new StatementStatistics(histograms(), 10, TimeUnit.MINUTES.toMillis(1));
+
+    // when
+    statistics.record(Query.UNVOTE, PARAMETERS, TimeUnit.MILLISECONDS.toNanos(5), 1, false);
+    statistics.record(Query.UNVOTE, PARAMETERS, TimeUnit.MILLISECONDS.toNanos(20), 1, false);
+    statistics.record(Query.UNVOTE, PARAMETERS, TimeUnit.MILLISECONDS.toNanos(30), 1, false);
+    statistics.record(Query.VOTE, PARAMETERS, TimeUnit.MILLISECONDS.toNanos(40), 1, false);
+
+    // then
+    assertEquals(2, statistics.slowQueriesLogged());
+    assertEquals(1, statistics.slowQueriesSuppressed());
+  }
+
+  @Test
+  void should_not_log_slow_queries_with_zero_threshold() {
+    // given
+    final StatementStatistics statistics = new StatementStatistics(histograms(), 0, 0);
+
+    // when
+    statistics.record(Query.UNVOTE, PARAMETERS, TimeUnit.SECONDS.toNanos(5), 1, false);
+
+    // then
+    assertEquals(0, statistics.slowQueriesLogged());
+    assertEquals(0, statistics.slowQueriesSuppressed());
+  }
+
+  private static LatencyHistograms histograms() {
+    return new LatencyHistograms("test_query_seconds", "Query latency recorded by a test.", "query");
+  }
+}
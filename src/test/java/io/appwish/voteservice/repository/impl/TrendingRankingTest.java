@@ -0,0 +1,112 @@
+package io.appwish.voteservice.repository.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.repository.ScoreChange;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TrendingRankingTest {
+
+  private static final VoteSelector FIRST = new VoteSelector(1, ItemType.WISH);
+  private static final VoteSelector SECOND = new VoteSelector(2, ItemType.WISH);
+  private static final VoteSelector COMMENT = new VoteSelector(3, ItemType.COMMENT);
+
+  @Test
+  void should_rank_recent_votes_above_older_ones() {
+    // given
+    final TrendingRanking ranking = new TrendingRanking(halfLives(Duration.ofHours(1), Duration.ofHours(1)));
+    final LocalDateTime now = RowDecoder.now();
+
+    // when
+    ranking.apply(new ScoreChange(FIRST, 1, 0, now.minusHours(3)));
+    ranking.apply(new ScoreChange(FIRST, 1, 0, now.minusHours(3)));
+    ranking.apply(new ScoreChange(SECOND, 1, 0, now));
+    ranking.apply(new ScoreChange(COMMENT, 1, 0, now));
+    final Map<VoteSelector, Double> trending = ranking.top(ItemType.WISH, 10);
+
+    // then
+    assertEquals(Arrays.asList(SECOND, FIRST), new ArrayList<>(trending.keySet()));
+    assertEquals(0.25, trending.get(FIRST), 0.01);
+    assertEquals(1, trending.get(SECOND), 0.01);
+    assertEquals(3, ranking.size());
+  }
+
+  @Test
+  void should_decay_item_types_with_their_half_lives() {
+    // given
+    final TrendingRanking ranking = new TrendingRanking(halfLives(Duration.ofHours(1), Duration.ofHours(2)));
+    final LocalDateTime hourAgo = RowDecoder.now().minusHours(1);
+
+    // when
+    ranking.apply(new ScoreChange(FIRST, 1, 0, hourAgo));
+    ranking.apply(new ScoreChange(COMMENT, 1, 0, hourAgo));
+
+    // then
+    assertEquals(0.5, ranking.top(ItemType.WISH, 10).get(FIRST), 0.01);
+    assertEquals(Math.sqrt(0.5), ranking.top(ItemType.COMMENT, 10).get(COMMENT), 0.01);
+  }
+
+  @Test
+  void should_subtract_weight_of_changed_vote_type() {
+    // given
+    final TrendingRanking ranking = new TrendingRanking(halfLives(Duration.ofHours(1), Duration.ofHours(1)));
+    final LocalDateTime now = RowDecoder.now();
+    ranking.apply(new ScoreChange(FIRST, 1, 0, now));
+    ranking.apply(new ScoreChange(SECOND, 0, 1, now));
+
+    // when
+    ranking.apply(new ScoreChange(FIRST, -1, 1, now));
+
+    // then
+    assertEquals(-1, ranking.top(ItemType.WISH, 10).get(FIRST), 0.01);
+    assertEquals(2, ranking.top(ItemType.WISH, 10).size());
+  }
+
+  @Test
+  void should_remove_items_without_votes() {
+    // given
+    final TrendingRanking ranking = new TrendingRanking(halfLives(Duration.ofHours(1), Duration.ofHours(1)));
+    final LocalDateTime twoHoursAgo = RowDecoder.now().minusHours(2);
+    ranking.apply(new ScoreChange(FIRST, 1, 0, twoHoursAgo));
+
+    // when
+    ranking.apply(new ScoreChange(FIRST, -1, 0, twoHoursAgo));
+
+    // then
+    assertTrue(ranking.top(ItemType.WISH, 10).isEmpty());
+    assertEquals(0, ranking.size());
+  }
+
+  @Test
+  void should_keep_scores_when_moving_landmark() {
+    // given
+    final TrendingRanking ranking = new TrendingRanking(halfLives(Duration.ofSeconds(1), Duration.ofSeconds(1)));
+    final LocalDateTime now = RowDecoder.now();
+    ranking.apply(new ScoreChange(FIRST, 1, 0, now));
+
+    // when
+    ranking.apply(new ScoreChange(SECOND, 1, 0, now.plusSeconds(100)));
+    final Map<VoteSelector, Double> trending = ranking.top(ItemType.WISH, 10);
+
+    // then
+    assertEquals(Arrays.asList(SECOND, FIRST), new ArrayList<>(trending.keySet()));
+    assertEquals(1, trending.get(FIRST), 0.05);
+    assertEquals(Math.pow(2, 100), trending.get(SECOND), Math.pow(2, 100) * 0.05);
+  }
+
+  private static Map<ItemType, Duration> halfLives(final Duration wish, final Duration comment) {
+    final Map<ItemType, Duration> halfLives = new EnumMap<>(ItemType.class);
+    halfLives.put(ItemType.WISH, wish);
+    halfLives.put(ItemType.COMMENT, comment);
+    return halfLives;
+  }
+}
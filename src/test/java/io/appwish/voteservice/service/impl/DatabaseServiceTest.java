@@ -2,24 +2,38 @@ package io.appwish.voteservice.service.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.appwish.voteservice.TestData;
+import io.appwish.voteservice.dto.Score;
 import io.appwish.voteservice.dto.Vote;
 import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.query.VoteSelectors;
+import io.appwish.voteservice.dto.reply.VoteScoresReply;
 import io.appwish.voteservice.eventbus.Address;
 import io.appwish.voteservice.eventbus.EventBusConfigurer;
+import io.appwish.voteservice.metrics.Metrics;
+import io.appwish.voteservice.repository.Deadline;
+import io.appwish.voteservice.repository.DeadlineExceededException;
 import io.appwish.voteservice.repository.VoteRepository;
 import io.appwish.voteservice.service.DatabaseService;
+import io.appwish.voteservice.service.EventBusVoteOperations;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -43,10 +57,9 @@ class DatabaseServiceTest {
   }
 
   @Test
-  void should_reply_added_vote_if_not_voted_before(final Vertx vertx, final VertxTestContext context) {
+  void should_reply_upserted_vote(final Vertx vertx, final VertxTestContext context) {
     // given
-    when(voteRepository.vote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID)).thenReturn(Future.succeededFuture(TestData.VOTE_1));
-    when(voteRepository.hasVoted(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID)).thenReturn(Future.succeededFuture(false));
+    when(voteRepository.upsertVote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID, Deadline.NONE)).thenReturn(Future.succeededFuture(TestData.VOTE_1));
     final DeliveryOptions options = new DeliveryOptions().addHeader(USER_ID, TestData.SOME_USER_ID);
 
     // when
@@ -55,16 +68,17 @@ class DatabaseServiceTest {
       // then
       context.verify(() -> {
         assertEquals(TestData.VOTE_1, event.result().body());
+        verify(voteRepository, never()).hasVoted(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID);
         context.completeNow();
       });
     });
   }
 
   @Test
-  void should_update_vote_if_voted_before(final Vertx vertx, final VertxTestContext context) {
+  void should_return_error_on_error_upserting_vote(final Vertx vertx, final VertxTestContext context) {
     // given
-    when(voteRepository.updateVote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID)).thenReturn(Future.succeededFuture(TestData.VOTE_1));
-    when(voteRepository.hasVoted(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID)).thenReturn(Future.succeededFuture(true));
+    when(voteRepository.upsertVote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID, Deadline.NONE))
+        .thenReturn(Future.failedFuture(new AssertionError()));
     final DeliveryOptions options = new DeliveryOptions().addHeader(USER_ID, TestData.SOME_USER_ID);
 
     // when
@@ -72,25 +86,21 @@ class DatabaseServiceTest {
 
       // then
       context.verify(() -> {
-        assertEquals(TestData.VOTE_1, event.result().body());
+        assertTrue(event.failed());
         context.completeNow();
       });
     });
   }
 
   @Test
-  void should_return_error_on_error_adding_vote(final Vertx vertx, final VertxTestContext context) {
-    // given
-    when(voteRepository.vote(TestData.VOTE_INPUT_1, TestData.SOME_USER_ID)).thenReturn(Future.failedFuture(new AssertionError()));
-    when(voteRepository.hasVoted(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID)).thenReturn(Future.succeededFuture(false));
-    final DeliveryOptions options = new DeliveryOptions().addHeader(USER_ID, TestData.SOME_USER_ID);
-
+  void should_not_vote_if_user_is_not_authenticated(final Vertx vertx, final VertxTestContext context) {
     // when
-    vertx.eventBus().<Vote>request(Address.VOTE.get(), TestData.VOTE_INPUT_1, options, event -> {
+    vertx.eventBus().<Vote>request(Address.VOTE.get(), TestData.VOTE_INPUT_1, event -> {
 
       // then
       context.verify(() -> {
         assertTrue(event.failed());
+        verify(voteRepository, never()).upsertVote(TestData.VOTE_INPUT_1, null, Deadline.NONE);
         context.completeNow();
       });
     });
@@ -100,7 +110,7 @@ class DatabaseServiceTest {
   void should_return_true_if_deleted_vote(final Vertx vertx, final VertxTestContext context) {
     // given
     final DeliveryOptions options = new DeliveryOptions().addHeader(USER_ID, TestData.SOME_USER_ID);
-    when(voteRepository.unvote(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID)).thenReturn(Future.succeededFuture(true));
+    when(voteRepository.unvote(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID, Deadline.NONE)).thenReturn(Future.succeededFuture(true));
     when(voteRepository.hasVoted(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID)).thenReturn(Future.succeededFuture(true));
 
     // when
@@ -119,7 +129,7 @@ class DatabaseServiceTest {
   void should_return_false_if_not_deleted_vote(final Vertx vertx, final VertxTestContext context) {
     // given
     final DeliveryOptions options = new DeliveryOptions().addHeader(USER_ID, TestData.SOME_USER_ID);
-    when(voteRepository.unvote(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID)).thenReturn(Future.succeededFuture(false));
+    when(voteRepository.unvote(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID, Deadline.NONE)).thenReturn(Future.succeededFuture(false));
     when(voteRepository.hasVoted(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID)).thenReturn(Future.succeededFuture(true));
 
     // when
@@ -140,7 +150,7 @@ class DatabaseServiceTest {
     // given
     final DeliveryOptions options = new DeliveryOptions().addHeader(USER_ID, TestData.SOME_USER_ID);
     when(voteRepository.hasVoted(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID)).thenReturn(Future.succeededFuture(true));
-    when(voteRepository.unvote(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID)).thenReturn(Future.succeededFuture(false));
+    when(voteRepository.unvote(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID, Deadline.NONE)).thenReturn(Future.succeededFuture(false));
 
     // when
     vertx.eventBus().<Boolean>request(Address.UNVOTE.get(),
@@ -159,7 +169,7 @@ class DatabaseServiceTest {
   void should_return_error_on_error_deleting_vote(final Vertx vertx, final VertxTestContext context) {
     // given
     final DeliveryOptions options = new DeliveryOptions().addHeader(USER_ID, TestData.SOME_USER_ID);
-    when(voteRepository.unvote(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID)).thenReturn(Future.failedFuture(new AssertionError()));
+    when(voteRepository.unvote(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID, Deadline.NONE)).thenReturn(Future.failedFuture(new AssertionError()));
     when(voteRepository.hasVoted(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID)).thenReturn(Future.succeededFuture(true));
 
     // when
@@ -175,39 +185,98 @@ class DatabaseServiceTest {
   }
 
   @Test
-  void should_return_empty_if_vote_not_updated(final Vertx vertx, final VertxTestContext context) {
+  void should_return_error_on_error_updating_vote(final Vertx vertx, final VertxTestContext context) {
     // given
-    final DeliveryOptions options = new DeliveryOptions().addHeader(USER_ID, "4040");
-    when(voteRepository.hasVoted(new VoteSelector(TestData.UPDATE_VOTE_INPUT.getItemId(), TestData.UPDATE_VOTE_INPUT.getItemType()), "4040"))
+    final DeliveryOptions options = new DeliveryOptions().addHeader(USER_ID, TestData.SOME_USER_ID);
+    when(voteRepository.updateVote(TestData.UPDATE_VOTE_INPUT, TestData.SOME_USER_ID, Deadline.NONE))
+        .thenReturn(Future.failedFuture(new AssertionError()));
+    when(voteRepository
+        .hasVoted(new VoteSelector(TestData.UPDATE_VOTE_INPUT.getItemId(), TestData.UPDATE_VOTE_INPUT.getItemType()), TestData.SOME_USER_ID))
         .thenReturn(Future.succeededFuture(true));
-    when(voteRepository.updateVote(TestData.UPDATE_VOTE_INPUT, "4040")).thenReturn(Future.succeededFuture(null));
 
     // when
-    vertx.eventBus().<Vote>request(Address.VOTE.get(), TestData.UPDATE_VOTE_INPUT, options, event -> {
+    vertx.eventBus().<Optional<Vote>>request(Address.UPDATE_VOTE.get(), TestData.UPDATE_VOTE_INPUT, options, event -> {
 
       // then
       context.verify(() -> {
-        assertNull(event.result().body());
+        assertTrue(event.failed());
         context.completeNow();
       });
     });
   }
 
   @Test
-  void should_return_error_on_error_updating_vote(final Vertx vertx, final VertxTestContext context) {
+  void should_reply_scores_of_many_items(final Vertx vertx, final VertxTestContext context) {
     // given
-    final DeliveryOptions options = new DeliveryOptions().addHeader(USER_ID, TestData.SOME_USER_ID);
-    when(voteRepository.updateVote(TestData.UPDATE_VOTE_INPUT, TestData.SOME_USER_ID)).thenReturn(Future.failedFuture(new AssertionError()));
-    when(voteRepository
-        .hasVoted(new VoteSelector(TestData.UPDATE_VOTE_INPUT.getItemId(), TestData.UPDATE_VOTE_INPUT.getItemType()), TestData.SOME_USER_ID))
-        .thenReturn(Future.succeededFuture(true));
+    final Map<VoteSelector, Score> scores = Collections.singletonMap(TestData.VOTE_SELECTOR, new Score(3, 1));
+    when(voteRepository.voteScores(Collections.singletonList(TestData.VOTE_SELECTOR), false, Deadline.NONE))
+        .thenReturn(Future.succeededFuture(scores));
 
     // when
-    vertx.eventBus().<Optional<Vote>>request(Address.UPDATE_VOTE.get(), TestData.UPDATE_VOTE_INPUT, options, event -> {
+    vertx.eventBus().<VoteScoresReply>request(Address.VOTE_SCORES.get(), new VoteSelectors(Collections.singletonList(TestData.VOTE_SELECTOR)),
+        event -> {
+
+          // then
+          context.verify(() -> {
+            assertTrue(event.succeeded());
+            assertEquals(scores, event.result().body().getScores());
+            context.completeNow();
+          });
+        });
+  }
+
+  @Test
+  void should_read_score_from_primary_if_asked_to_read_own_writes(final Vertx vertx, final VertxTestContext context) {
+    // given
+    when(voteRepository.voteScore(TestData.VOTE_SELECTOR, true, Deadline.NONE)).thenReturn(Future.succeededFuture(new Score(1, 0)));
+
+    // when
+    vertx.eventBus().<Score>request(Address.VOTE_SCORE.get(), TestData.VOTE_SELECTOR, new DeliveryOptions().addHeader("readYourWrites", "true"),
+        event -> {
+
+          // then
+          context.verify(() -> {
+            assertTrue(event.succeeded());
+            assertEquals(new Score(1, 0), event.result().body());
+            context.completeNow();
+          });
+        });
+  }
+
+  @Test
+  void should_pass_deadline_of_request_to_repository(final Vertx vertx, final VertxTestContext context) {
+    // given
+    when(voteRepository.voteScore(eq(TestData.VOTE_SELECTOR), eq(false), argThat(Deadline::isSet)))
+        .thenReturn(Future.succeededFuture(new Score(1, 0)));
+
+    // when
+    vertx.eventBus().<Score>request(Address.VOTE_SCORE.get(), TestData.VOTE_SELECTOR, new DeliveryOptions().addHeader("timeoutMs", "1000"),
+        event -> {
+
+          // then
+          context.verify(() -> {
+            assertTrue(event.succeeded());
+            assertEquals(new Score(1, 0), event.result().body());
+            context.completeNow();
+          });
+        });
+  }
+
+  @Test
+  void should_not_send_operation_whose_deadline_has_expired(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final Deadline expired = Deadline.after(-1, TimeUnit.MILLISECONDS);
+    final long counted = Metrics.DEADLINE_EXPIRED.labels("voteScore", "eventbus").sum();
+
+    // when
+    new EventBusVoteOperations(vertx.eventBus()).voteScore(TestData.VOTE_SELECTOR, false, expired).setHandler(event -> {
 
       // then
       context.verify(() -> {
         assertTrue(event.failed());
+        assertTrue(event.cause() instanceof DeadlineExceededException);
+        assertEquals(counted + 1, Metrics.DEADLINE_EXPIRED.labels("voteScore", "eventbus").sum());
+        verify(voteRepository, never()).voteScore(eq(TestData.VOTE_SELECTOR), eq(false), any());
         context.completeNow();
       });
     });
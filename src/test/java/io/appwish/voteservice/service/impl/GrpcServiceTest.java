@@ -3,31 +3,53 @@ package io.appwish.voteservice.service.impl;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.appwish.grpc.HasVotedManyReplyProto;
 import io.appwish.grpc.HasVotedReplyProto;
 import io.appwish.grpc.ItemTypeProto;
+import io.appwish.grpc.TopItemsQueryProto;
 import io.appwish.grpc.UnvoteReplyProto;
 import io.appwish.grpc.VoteInputProto;
 import io.appwish.grpc.VoteReplyProto;
 import io.appwish.grpc.VoteScoreReplyProto;
+import io.appwish.grpc.VoteScoresReplyProto;
 import io.appwish.grpc.VoteSelectorProto;
+import io.appwish.grpc.VoteSelectorsProto;
 import io.appwish.grpc.VoteTypeProto;
 import io.appwish.voteservice.TestData;
 import io.appwish.voteservice.dto.Score;
-import io.appwish.voteservice.dto.Vote;
+import io.appwish.voteservice.dto.converter.ProtoMapper;
 import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.query.VoteSelectors;
+import io.appwish.voteservice.dto.reply.HasVotedManyReply;
+import io.appwish.voteservice.dto.reply.VoteScoresReply;
 import io.appwish.voteservice.dto.type.ItemType;
+import io.appwish.voteservice.dto.type.VoteType;
 import io.appwish.voteservice.eventbus.Address;
 import io.appwish.voteservice.eventbus.Codec;
 import io.appwish.voteservice.eventbus.EventBusConfigurer;
+import io.appwish.voteservice.interceptor.UserContextInterceptor;
+import io.appwish.voteservice.repository.Deadline;
+import io.appwish.voteservice.repository.VoteRepository;
 import io.appwish.voteservice.service.GrpcServiceImpl;
+import io.appwish.voteservice.service.RepositoryVoteOperations;
+import io.grpc.Context;
+import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.ReplyException;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
-import net.badata.protobuf.converter.Converter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -66,7 +88,7 @@ class GrpcServiceTest {
     promise.future().setHandler(event -> {
       context.verify(() -> {
         assertTrue(promise.future().succeeded());
-        assertEquals(TestData.VOTE_1, Converter.create().toDomain(Vote.class, promise.future().result().getVote()));
+        assertEquals(TestData.VOTE_1, ProtoMapper.toDomain(promise.future().result().getVote()));
         context.completeNow();
       });
     });
@@ -104,6 +126,40 @@ class GrpcServiceTest {
     });
   }
 
+  @Test
+  void should_check_if_user_has_voted_on_many_items(final Vertx vertx, VertxTestContext context) {
+    // given
+    final Promise<HasVotedManyReplyProto> promise = Promise.promise();
+    final VoteSelectorProto voted = VoteSelectorProto.newBuilder()
+        .setItemId(TestData.SOME_ITEM_ID)
+        .setItemType(ItemTypeProto.WISH)
+        .build();
+    final VoteSelectorProto notVoted = VoteSelectorProto.newBuilder()
+        .setItemId(TestData.NON_EXISTING_ID)
+        .setItemType(ItemTypeProto.COMMENT)
+        .build();
+
+    vertx.eventBus().<VoteSelectors>consumer(Address.HAS_VOTED_MANY.get(), event -> {
+      event.reply(new HasVotedManyReply(Collections.singletonMap(new VoteSelector(TestData.SOME_ITEM_ID, ItemType.WISH), VoteType.DOWN)));
+    });
+
+    // when
+    grpcService.hasVotedMany(VoteSelectorsProto.newBuilder().addSelectors(voted).addSelectors(notVoted).build(), promise);
+
+    // then
+    promise.future().setHandler(event -> {
+      context.verify(() -> {
+        assertTrue(event.succeeded());
+        assertEquals(voted, event.result().getVotes(0).getSelector());
+        assertTrue(event.result().getVotes(0).getVoted());
+        assertEquals(VoteTypeProto.DOWN, event.result().getVotes(0).getVoteType());
+        assertEquals(notVoted, event.result().getVotes(1).getSelector());
+        assertFalse(event.result().getVotes(1).getVoted());
+        context.completeNow();
+      });
+    });
+  }
+
   @Test
   void should_check_item_vote_score(final Vertx vertx, VertxTestContext context) {
     // given
@@ -135,6 +191,36 @@ class GrpcServiceTest {
     });
   }
 
+  @Test
+  void should_check_many_items_vote_scores(final Vertx vertx, VertxTestContext context) {
+    // given
+    final Promise<VoteScoresReplyProto> promise = Promise.promise();
+    final VoteSelectorProto selectorProto = VoteSelectorProto.newBuilder()
+        .setItemId(TestData.SOME_ITEM_ID)
+        .setItemType(ItemTypeProto.WISH)
+        .build();
+
+    vertx.eventBus().<VoteSelectors>consumer(Address.VOTE_SCORES.get(), event -> {
+      final Map<VoteSelector, Score> scores = new LinkedHashMap<>();
+      event.body().getSelectors().forEach(selector -> scores.put(selector, new Score(20, 5)));
+      event.reply(new VoteScoresReply(scores));
+    });
+
+    // when
+    grpcService.voteScores(VoteSelectorsProto.newBuilder().addSelectors(selectorProto).build(), promise);
+
+    // then
+    promise.future().setHandler(event -> {
+      context.verify(() -> {
+        assertTrue(event.succeeded());
+        assertEquals(1, event.result().getScoresCount());
+        assertEquals(selectorProto, event.result().getScores(0).getSelector());
+        assertEquals(15, event.result().getScores(0).getScore().getScore());
+        context.completeNow();
+      });
+    });
+  }
+
   @Test
   void should_report_error_while_error_adding_vote(final Vertx vertx, VertxTestContext context) {
     // given
@@ -184,7 +270,7 @@ class GrpcServiceTest {
       // then
       context.verify(() -> {
         assertTrue(promise.future().succeeded());
-        assertEquals(Converter.create().toDomain(Vote.class, promise.future().result().getVote()), TestData.VOTE_3);
+        assertEquals(ProtoMapper.toDomain(promise.future().result().getVote()), TestData.VOTE_3);
         context.completeNow();
       });
     });
@@ -320,4 +406,132 @@ class GrpcServiceTest {
       });
     });
   }
+
+  @Test
+  void should_check_item_vote_score_directly_on_repository(final Vertx vertx, VertxTestContext context) {
+    // given
+    final VoteRepository repository = mock(VoteRepository.class);
+    final GrpcServiceImpl directService = new GrpcServiceImpl(new RepositoryVoteOperations(repository));
+    final Promise<VoteScoreReplyProto> promise = Promise.promise();
+    final VoteSelectorProto selectorProto = VoteSelectorProto.newBuilder()
+        .setItemId(TestData.SOME_ITEM_ID)
+        .setItemType(ItemTypeProto.WISH)
+        .build();
+    when(repository.voteScore(TestData.VOTE_SELECTOR, false, Deadline.NONE)).thenReturn(Future.succeededFuture(new Score(20, 5)));
+
+    // when
+    directService.voteScore(selectorProto, promise);
+
+    // then
+    promise.future().setHandler(event -> {
+      context.verify(() -> {
+        assertEquals(20, event.result().getUp());
+        assertEquals(5, event.result().getDown());
+        context.completeNow();
+      });
+    });
+  }
+
+  @Test
+  void should_not_vote_directly_on_repository_if_user_is_unauthenticated(final Vertx vertx, VertxTestContext context) {
+    // given
+    final VoteRepository repository = mock(VoteRepository.class);
+    final GrpcServiceImpl directService = new GrpcServiceImpl(new RepositoryVoteOperations(repository));
+    final Promise<VoteReplyProto> promise = Promise.promise();
+    final VoteInputProto inputProto = VoteInputProto.newBuilder()
+        .setItemId(TestData.SOME_ITEM_ID)
+        .setItemType(ItemTypeProto.WISH)
+        .setVoteType(VoteTypeProto.UP)
+        .build();
+
+    // when
+    directService.vote(inputProto, promise);
+
+    // then
+    promise.future().setHandler(event -> {
+      context.verify(() -> {
+        assertTrue(event.failed());
+        verify(repository, never()).upsertVote(any(), any(), any());
+        context.completeNow();
+      });
+    });
+  }
+
+  @Test
+  void should_not_look_up_top_items_directly_on_repository_beyond_maximum_offset(final Vertx vertx, VertxTestContext context) {
+    // given
+    final VoteRepository repository = mock(VoteRepository.class);
+    final GrpcServiceImpl directService = new GrpcServiceImpl(new RepositoryVoteOperations(repository));
+    final Promise<VoteScoresReplyProto> promise = Promise.promise();
+    final TopItemsQueryProto queryProto = TopItemsQueryProto.newBuilder()
+        .setItemType(ItemTypeProto.WISH)
+        .setLimit(10)
+        .setOffset(Integer.MAX_VALUE)
+        .build();
+
+    // when
+    directService.topItems(queryProto, promise);
+
+    // then
+    promise.future().setHandler(event -> {
+      context.verify(() -> {
+        assertTrue(event.failed());
+        verify(repository, never()).topItems(any(), any());
+        context.completeNow();
+      });
+    });
+  }
+
+  @Test
+  void should_not_read_too_many_vote_scores_directly_on_repository(final Vertx vertx, VertxTestContext context) {
+    // given
+    final VoteRepository repository = mock(VoteRepository.class);
+    final GrpcServiceImpl directService = new GrpcServiceImpl(new RepositoryVoteOperations(repository));
+    final Promise<VoteScoresReplyProto> promise = Promise.promise();
+
+    // when
+    directService.voteScores(selectors(1001), promise);
+
+    // then
+    promise.future().setHandler(event -> {
+      context.verify(() -> {
+        assertTrue(event.failed());
+        assertTrue(event.cause().getMessage().contains("at most 1000"));
+        verify(repository, never()).voteScores(any(), anyBoolean(), any());
+        context.completeNow();
+      });
+    });
+  }
+
+  @Test
+  void should_not_check_too_many_votes_directly_on_repository(final Vertx vertx, VertxTestContext context) {
+    // given
+    final VoteRepository repository = mock(VoteRepository.class);
+    final GrpcServiceImpl directService = new GrpcServiceImpl(new RepositoryVoteOperations(repository));
+    final Promise<HasVotedManyReplyProto> promise = Promise.promise();
+
+    // when
+    Context.current().withValue(UserContextInterceptor.USER_CONTEXT, TestData.SOME_USER_ID)
+        .run(() -> directService.hasVotedMany(selectors(1001), promise));
+
+    // then
+    promise.future().setHandler(event -> {
+      context.verify(() -> {
+        assertTrue(event.failed());
+        assertTrue(event.cause().getMessage().contains("at most 1000"));
+        verify(repository, never()).userVotes(any(), any(), anyBoolean(), any());
+        context.completeNow();
+      });
+    });
+  }
+
+  private static VoteSelectorsProto selectors(final int count) {
+    final VoteSelectorsProto.Builder selectors = VoteSelectorsProto.newBuilder();
+
+    for (int i = 0; i < count; i++) {
+      selectors.addSelectors(VoteSelectorProto.newBuilder().setItemId(i).setItemType(ItemTypeProto.WISH));
+    }
+
+    return selectors.build();
+  }
 }
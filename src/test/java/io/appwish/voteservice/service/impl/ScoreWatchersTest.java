@@ -0,0 +1,207 @@
+package io.appwish.voteservice.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.appwish.voteservice.TestData;
+import io.appwish.voteservice.dto.Score;
+import io.appwish.voteservice.dto.query.VoteSelector;
+import io.appwish.voteservice.dto.reply.VoteScoresReply;
+import io.appwish.voteservice.eventbus.Address;
+import io.appwish.voteservice.eventbus.EventBusConfigurer;
+import io.appwish.voteservice.service.ScoreWatchers;
+import io.appwish.voteservice.service.VoteOperations;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class ScoreWatchersTest {
+
+  private static final long INTERVAL_MS = 50;
+  private static final Score SCORE = new Score(3, 1, 1);
+  private static final Map<VoteSelector, Score> SCORES = Collections.singletonMap(TestData.VOTE_SELECTOR, SCORE);
+
+  private VoteOperations voteOperations;
+  private ScoreWatchers scoreWatchers;
+
+  @BeforeEach
+  void setUp(final Vertx vertx, final VertxTestContext context) {
+    new EventBusConfigurer(vertx.eventBus()).registerCodecs();
+    voteOperations = mock(VoteOperations.class);
+    when(voteOperations.voteScores(anyList(), eq(true), any())).thenReturn(Future.succeededFuture(SCORES));
+    scoreWatchers = new ScoreWatchers(vertx, voteOperations, INTERVAL_MS);
+    // Watchers have to be used on the context which started them
+    vertx.runOnContext(started -> {
+      scoreWatchers.start();
+      context.completeNow();
+    });
+  }
+
+  @Test
+  void should_push_current_score_to_new_watch(final Vertx vertx, final VertxTestContext context) {
+    // given
+    vertx.runOnContext(run -> {
+      final ScoreWatchers.Watch watch = scoreWatchers.watch(scores -> context.verify(() -> {
+
+        // then
+        assertEquals(SCORES, scores);
+        context.completeNow();
+      }));
+
+      // when
+      watch.add(TestData.VOTE_SELECTOR);
+    });
+  }
+
+  @Test
+  void should_coalesce_changes_into_one_update_per_interval_without_reading_scores(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final List<Map<VoteSelector, Score>> updates = new CopyOnWriteArrayList<>();
+
+    vertx.runOnContext(run -> {
+      scoreWatchers.watch(updates::add).add(TestData.VOTE_SELECTOR);
+
+      vertx.setTimer(INTERVAL_MS * 2, initial -> {
+
+        // when
+        for (int i = 0; i < 5; i++) {
+          vertx.eventBus().publish(Address.SCORE_CHANGED.get(), changed(TestData.VOTE_SELECTOR, new Score(4 + i, 1, 2 + i)));
+        }
+        vertx.eventBus().publish(Address.SCORE_CHANGED.get(), changed(new VoteSelector(TestData.NON_EXISTING_ID, TestData.SOME_ITEM_TYPE), SCORE));
+
+        vertx.setTimer(INTERVAL_MS * 3, published -> context.verify(() -> {
+
+          // then
+          assertEquals(Arrays.asList(SCORES, Collections.singletonMap(TestData.VOTE_SELECTOR, new Score(8, 1))), updates);
+          // Only the score of the new watch is read
+          verify(voteOperations, times(1)).voteScores(anyList(), eq(true), any());
+          context.completeNow();
+        }));
+      });
+    });
+  }
+
+  @Test
+  void should_drop_scores_older_than_the_last_one_pushed(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final List<Map<VoteSelector, Score>> updates = new CopyOnWriteArrayList<>();
+
+    vertx.runOnContext(run -> {
+      scoreWatchers.watch(updates::add).add(TestData.VOTE_SELECTOR);
+
+      vertx.setTimer(INTERVAL_MS * 2, initial -> {
+
+        // when
+        vertx.eventBus().publish(Address.SCORE_CHANGED.get(), changed(TestData.VOTE_SELECTOR, new Score(5, 1, 3)));
+
+        vertx.setTimer(INTERVAL_MS * 2, newer -> {
+          // Published by a write which committed before the previous one
+          vertx.eventBus().publish(Address.SCORE_CHANGED.get(), changed(TestData.VOTE_SELECTOR, new Score(4, 1, 2)));
+
+          vertx.setTimer(INTERVAL_MS * 2, older -> context.verify(() -> {
+
+            // then
+            assertEquals(Arrays.asList(SCORES, Collections.singletonMap(TestData.VOTE_SELECTOR, new Score(5, 1))), updates);
+            context.completeNow();
+          }));
+        });
+      });
+    });
+  }
+
+  @Test
+  void should_push_last_score_to_new_watch_of_watched_item_without_reading_it(final Vertx vertx, final VertxTestContext context) {
+    // given
+    vertx.runOnContext(run -> {
+      scoreWatchers.watch(scores -> {
+      }).add(TestData.VOTE_SELECTOR);
+
+      vertx.setTimer(INTERVAL_MS * 2, initial -> {
+        vertx.eventBus().publish(Address.SCORE_CHANGED.get(), changed(TestData.VOTE_SELECTOR, new Score(4, 1, 2)));
+
+        vertx.setTimer(INTERVAL_MS * 2, published -> {
+
+          // when
+          scoreWatchers.watch(scores -> context.verify(() -> {
+
+            // then
+            assertEquals(Collections.singletonMap(TestData.VOTE_SELECTOR, new Score(4, 1)), scores);
+            verify(voteOperations, times(1)).voteScores(anyList(), eq(true), any());
+            context.completeNow();
+          })).add(TestData.VOTE_SELECTOR);
+        });
+      });
+    });
+  }
+
+  @Test
+  void should_keep_latest_scores_until_watch_is_writable(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final List<Map<VoteSelector, Score>> updates = new CopyOnWriteArrayList<>();
+    final AtomicBoolean writable = new AtomicBoolean(false);
+
+    vertx.runOnContext(run -> {
+      scoreWatchers.watch(updates::add, writable::get).add(TestData.VOTE_SELECTOR);
+
+      // when
+      vertx.setTimer(INTERVAL_MS * 2, initial -> {
+        vertx.eventBus().publish(Address.SCORE_CHANGED.get(), changed(TestData.VOTE_SELECTOR, new Score(4, 1, 2)));
+
+        vertx.setTimer(INTERVAL_MS * 2, published -> {
+          writable.set(true);
+
+          vertx.setTimer(INTERVAL_MS * 2, written -> context.verify(() -> {
+
+            // then
+            assertEquals(Collections.singletonList(Collections.singletonMap(TestData.VOTE_SELECTOR, new Score(4, 1))), updates);
+            context.completeNow();
+          }));
+        });
+      });
+    });
+  }
+
+  @Test
+  void should_stop_watching_items_of_closed_watch(final Vertx vertx, final VertxTestContext context) {
+    // given
+    final List<Map<VoteSelector, Score>> updates = new CopyOnWriteArrayList<>();
+
+    vertx.runOnContext(run -> {
+      final ScoreWatchers.Watch watch = scoreWatchers.watch(updates::add);
+      watch.add(TestData.VOTE_SELECTOR);
+
+      // when
+      watch.close();
+      vertx.eventBus().publish(Address.SCORE_CHANGED.get(), changed(TestData.VOTE_SELECTOR, SCORE));
+
+      vertx.setTimer(INTERVAL_MS * 3, published -> context.verify(() -> {
+
+        // then
+        assertEquals(0, updates.size());
+        assertEquals(0, scoreWatchers.size());
+        context.completeNow();
+      }));
+    });
+  }
+
+  private static VoteScoresReply changed(final VoteSelector selector, final Score score) {
+    return new VoteScoresReply(Collections.singletonMap(selector, score));
+  }
+}
@@ -8,6 +8,7 @@ import static org.mockito.Mockito.when;
 import io.appwish.voteservice.TestData;
 import io.appwish.voteservice.eventbus.Address;
 import io.appwish.voteservice.eventbus.EventBusConfigurer;
+import io.appwish.voteservice.repository.Deadline;
 import io.appwish.voteservice.repository.VoteRepository;
 import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Future;
@@ -27,7 +28,7 @@ class DatabaseVerticleTest {
     final VoteRepository repository = mock(VoteRepository.class);
     final DatabaseVerticle verticle = new DatabaseVerticle(repository);
     final EventBusConfigurer util = new EventBusConfigurer(vertx.eventBus());
-    when(repository.hasVoted(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID)).thenReturn(Future.succeededFuture(false));
+    when(repository.hasVoted(TestData.VOTE_SELECTOR, TestData.SOME_USER_ID, false, Deadline.NONE)).thenReturn(Future.succeededFuture(false));
 
     util.registerCodecs();
 